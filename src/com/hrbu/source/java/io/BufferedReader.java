@@ -59,6 +59,13 @@ import java.util.stream.StreamSupport;
  * <p> Programs that use DataInputStreams for textual input can be localized by
  * replacing each DataInputStream with an appropriate BufferedReader.
  *
+ * <p> A BufferedReader synchronizes each operation on its lock, so that it
+ * may be shared by multiple threads.  A reader that is confined to a single
+ * thread may instead be created with the {@link #BufferedReader(Reader, int,
+ * boolean) threadSafe} flag cleared, in which case no operation acquires the
+ * lock and text parsing loops avoid the cost of locking on every call of
+ * read() or readLine().
+ *
  * @see FileReader
  * @see InputStreamReader
  * @see java.nio.file.Files#newBufferedReader
@@ -85,9 +92,18 @@ public class BufferedReader extends Reader {
     /** The skipLF flag when the mark was set */
     private boolean markedSkipLF = false;
 
+    /** Whether operations synchronize on the lock */
+    private final boolean threadSafe;
+
+    /** Buffer reused by readLine for lines that span refills, or null */
+    private StringBuilder lineBuffer;
+
     private static int defaultCharBufferSize = 8192;
     private static int defaultExpectedLineLength = 80;
 
+    /** Line buffers that grow larger than this are not reused */
+    private static int maxRetainedLineLength = 8192;
+
     /**
      * Creates a buffering character-input stream that uses an input buffer of
      * the specified size.
@@ -98,10 +114,33 @@ public class BufferedReader extends Reader {
      * @exception  IllegalArgumentException  If {@code sz <= 0}
      */
     public BufferedReader(Reader in, int sz) {
+        this(in, sz, true);
+    }
+
+    /**
+     * Creates a buffering character-input stream that uses an input buffer of
+     * the specified size, and that synchronizes its operations only if
+     * requested.
+     *
+     * <p> If {@code threadSafe} is {@code false} then no operation of the
+     * reader synchronizes on its lock, so the reader must only be used by a
+     * single thread at a time, with any hand-off between threads being safely
+     * published by other means.  Operations of subclasses that synchronize on
+     * the lock themselves, such as those of {@link LineNumberReader}, are not
+     * affected.
+     *
+     * @param  in          A Reader
+     * @param  sz          Input-buffer size
+     * @param  threadSafe  Whether operations synchronize on the lock
+     *
+     * @exception  IllegalArgumentException  If {@code sz <= 0}
+     */
+    public BufferedReader(Reader in, int sz, boolean threadSafe) {
         super(in);
         if (sz <= 0)
             throw new IllegalArgumentException("Buffer size <= 0");
         this.in = in;
+        this.threadSafe = threadSafe;
         cb = new char[sz];
         nextChar = nChars = 0;
     }
@@ -175,23 +214,29 @@ public class BufferedReader extends Reader {
      * @exception  IOException  If an I/O error occurs
      */
     public int read() throws IOException {
+        if (!threadSafe)
+            return implRead();
         synchronized (lock) {
-            ensureOpen();
-            for (;;) {
-                if (nextChar >= nChars) {
-                    fill();
-                    if (nextChar >= nChars)
-                        return -1;
-                }
-                if (skipLF) {
-                    skipLF = false;
-                    if (cb[nextChar] == '\n') {
-                        nextChar++;
-                        continue;
-                    }
+            return implRead();
+        }
+    }
+
+    private int implRead() throws IOException {
+        ensureOpen();
+        for (;;) {
+            if (nextChar >= nChars) {
+                fill();
+                if (nextChar >= nChars)
+                    return -1;
+            }
+            if (skipLF) {
+                skipLF = false;
+                if (cb[nextChar] == '\n') {
+                    nextChar++;
+                    continue;
                 }
-                return cb[nextChar++];
             }
+            return cb[nextChar++];
         }
     }
 
@@ -274,24 +319,30 @@ public class BufferedReader extends Reader {
      * @exception  IOException  If an I/O error occurs
      */
     public int read(char cbuf[], int off, int len) throws IOException {
+        if (!threadSafe)
+            return implRead(cbuf, off, len);
         synchronized (lock) {
-            ensureOpen();
-            if ((off < 0) || (off > cbuf.length) || (len < 0) ||
-                ((off + len) > cbuf.length) || ((off + len) < 0)) {
-                throw new IndexOutOfBoundsException();
-            } else if (len == 0) {
-                return 0;
-            }
+            return implRead(cbuf, off, len);
+        }
+    }
 
-            int n = read1(cbuf, off, len);
-            if (n <= 0) return n;
-            while ((n < len) && in.ready()) {
-                int n1 = read1(cbuf, off + n, len - n);
-                if (n1 <= 0) break;
-                n += n1;
-            }
-            return n;
+    private int implRead(char cbuf[], int off, int len) throws IOException {
+        ensureOpen();
+        if ((off < 0) || (off > cbuf.length) || (len < 0) ||
+            ((off + len) > cbuf.length) || ((off + len) < 0)) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+
+        int n = read1(cbuf, off, len);
+        if (n <= 0) return n;
+        while ((n < len) && in.ready()) {
+            int n1 = read1(cbuf, off + n, len - n);
+            if (n1 <= 0) break;
+            n += n1;
         }
+        return n;
     }
 
     /**
@@ -310,68 +361,93 @@ public class BufferedReader extends Reader {
      * @exception  IOException  If an I/O error occurs
      */
     String readLine(boolean ignoreLF) throws IOException {
-        StringBuffer s = null;
+        if (!threadSafe)
+            return implReadLine(ignoreLF);
+        synchronized (lock) {
+            return implReadLine(ignoreLF);
+        }
+    }
+
+    private String implReadLine(boolean ignoreLF) throws IOException {
+        StringBuilder s = null;
         int startChar;
 
-        synchronized (lock) {
-            ensureOpen();
-            boolean omitLF = ignoreLF || skipLF;
+        ensureOpen();
+        boolean omitLF = ignoreLF || skipLF;
 
-        bufferLoop:
-            for (;;) {
+    bufferLoop:
+        for (;;) {
 
-                if (nextChar >= nChars)
-                    fill();
-                if (nextChar >= nChars) { /* EOF */
-                    if (s != null && s.length() > 0)
-                        return s.toString();
-                    else
-                        return null;
-                }
-                boolean eol = false;
-                char c = 0;
-                int i;
+            if (nextChar >= nChars)
+                fill();
+            if (nextChar >= nChars) { /* EOF */
+                if (s != null && s.length() > 0)
+                    return takeLine(s);
+                else
+                    return null;
+            }
+            boolean eol = false;
+            char c = 0;
+            int i;
 
-                /* Skip a leftover '\n', if necessary */
-                if (omitLF && (cb[nextChar] == '\n'))
-                    nextChar++;
-                skipLF = false;
-                omitLF = false;
-
-            charLoop:
-                for (i = nextChar; i < nChars; i++) {
-                    c = cb[i];
-                    if ((c == '\n') || (c == '\r')) {
-                        eol = true;
-                        break charLoop;
-                    }
+            /* Skip a leftover '\n', if necessary */
+            if (omitLF && (cb[nextChar] == '\n'))
+                nextChar++;
+            skipLF = false;
+            omitLF = false;
+
+        charLoop:
+            for (i = nextChar; i < nChars; i++) {
+                c = cb[i];
+                if ((c == '\n') || (c == '\r')) {
+                    eol = true;
+                    break charLoop;
                 }
+            }
 
-                startChar = nextChar;
-                nextChar = i;
+            startChar = nextChar;
+            nextChar = i;
 
-                if (eol) {
-                    String str;
-                    if (s == null) {
-                        str = new String(cb, startChar, i - startChar);
-                    } else {
-                        s.append(cb, startChar, i - startChar);
-                        str = s.toString();
-                    }
-                    nextChar++;
-                    if (c == '\r') {
-                        skipLF = true;
-                    }
-                    return str;
+            if (eol) {
+                String str;
+                if (s == null) {
+                    str = new String(cb, startChar, i - startChar);
+                } else {
+                    s.append(cb, startChar, i - startChar);
+                    str = takeLine(s);
+                }
+                nextChar++;
+                if (c == '\r') {
+                    skipLF = true;
                 }
+                return str;
+            }
 
-                if (s == null)
-                    s = new StringBuffer(defaultExpectedLineLength);
-                s.append(cb, startChar, i - startChar);
+            if (s == null) {
+                // discard any prefix left by a read that failed part way
+                if ((s = lineBuffer) == null)
+                    s = lineBuffer = new StringBuilder(defaultExpectedLineLength);
+                else
+                    s.setLength(0);
             }
+            s.append(cb, startChar, i - startChar);
         }
     }
 
+    /**
+     * Returns the line accumulated in the given line buffer, and empties the
+     * buffer for reuse by the next line, unless it has grown too large to be
+     * worth retaining.
+     */
+    private String takeLine(StringBuilder s) {
+        String str = s.toString();
+        if (s.capacity() > maxRetainedLineLength)
+            lineBuffer = null;
+        else
+            s.setLength(0);
+        return str;
+    }
+
     /**
      * Reads a line of text.  A line is considered to be terminated by any one
      * of a line feed ('\n'), a carriage return ('\r'), or a carriage return
@@ -403,33 +479,39 @@ public class BufferedReader extends Reader {
         if (n < 0L) {
             throw new IllegalArgumentException("skip value is negative");
         }
+        if (!threadSafe)
+            return implSkip(n);
         synchronized (lock) {
-            ensureOpen();
-            long r = n;
-            while (r > 0) {
-                if (nextChar >= nChars)
-                    fill();
-                if (nextChar >= nChars) /* EOF */
-                    break;
-                if (skipLF) {
-                    skipLF = false;
-                    if (cb[nextChar] == '\n') {
-                        nextChar++;
-                    }
-                }
-                long d = nChars - nextChar;
-                if (r <= d) {
-                    nextChar += r;
-                    r = 0;
-                    break;
-                }
-                else {
-                    r -= d;
-                    nextChar = nChars;
+            return implSkip(n);
+        }
+    }
+
+    private long implSkip(long n) throws IOException {
+        ensureOpen();
+        long r = n;
+        while (r > 0) {
+            if (nextChar >= nChars)
+                fill();
+            if (nextChar >= nChars) /* EOF */
+                break;
+            if (skipLF) {
+                skipLF = false;
+                if (cb[nextChar] == '\n') {
+                    nextChar++;
                 }
             }
-            return n - r;
+            long d = nChars - nextChar;
+            if (r <= d) {
+                nextChar += r;
+                r = 0;
+                break;
+            }
+            else {
+                r -= d;
+                nextChar = nChars;
+            }
         }
+        return n - r;
     }
 
     /**
@@ -440,28 +522,34 @@ public class BufferedReader extends Reader {
      * @exception  IOException  If an I/O error occurs
      */
     public boolean ready() throws IOException {
+        if (!threadSafe)
+            return implReady();
         synchronized (lock) {
-            ensureOpen();
+            return implReady();
+        }
+    }
+
+    private boolean implReady() throws IOException {
+        ensureOpen();
 
-            /*
-             * If newline needs to be skipped and the next char to be read
-             * is a newline character, then just skip it right away.
+        /*
+         * If newline needs to be skipped and the next char to be read
+         * is a newline character, then just skip it right away.
+         */
+        if (skipLF) {
+            /* Note that in.ready() will return true if and only if the next
+             * read on the stream will not block.
              */
-            if (skipLF) {
-                /* Note that in.ready() will return true if and only if the next
-                 * read on the stream will not block.
-                 */
-                if (nextChar >= nChars && in.ready()) {
-                    fill();
-                }
-                if (nextChar < nChars) {
-                    if (cb[nextChar] == '\n')
-                        nextChar++;
-                    skipLF = false;
-                }
+            if (nextChar >= nChars && in.ready()) {
+                fill();
+            }
+            if (nextChar < nChars) {
+                if (cb[nextChar] == '\n')
+                    nextChar++;
+                skipLF = false;
             }
-            return (nextChar < nChars) || in.ready();
         }
+        return (nextChar < nChars) || in.ready();
     }
 
     /**
@@ -491,14 +579,22 @@ public class BufferedReader extends Reader {
         if (readAheadLimit < 0) {
             throw new IllegalArgumentException("Read-ahead limit < 0");
         }
+        if (!threadSafe) {
+            implMark(readAheadLimit);
+            return;
+        }
         synchronized (lock) {
-            ensureOpen();
-            this.readAheadLimit = readAheadLimit;
-            markedChar = nextChar;
-            markedSkipLF = skipLF;
+            implMark(readAheadLimit);
         }
     }
 
+    private void implMark(int readAheadLimit) throws IOException {
+        ensureOpen();
+        this.readAheadLimit = readAheadLimit;
+        markedChar = nextChar;
+        markedSkipLF = skipLF;
+    }
+
     /**
      * Resets the stream to the most recent mark.
      *
@@ -506,27 +602,44 @@ public class BufferedReader extends Reader {
      *                          or if the mark has been invalidated
      */
     public void reset() throws IOException {
+        if (!threadSafe) {
+            implReset();
+            return;
+        }
         synchronized (lock) {
-            ensureOpen();
-            if (markedChar < 0)
-                throw new IOException((markedChar == INVALIDATED)
-                                      ? "Mark invalid"
-                                      : "Stream not marked");
-            nextChar = markedChar;
-            skipLF = markedSkipLF;
+            implReset();
         }
     }
 
+    private void implReset() throws IOException {
+        ensureOpen();
+        if (markedChar < 0)
+            throw new IOException((markedChar == INVALIDATED)
+                                  ? "Mark invalid"
+                                  : "Stream not marked");
+        nextChar = markedChar;
+        skipLF = markedSkipLF;
+    }
+
     public void close() throws IOException {
+        if (!threadSafe) {
+            implClose();
+            return;
+        }
         synchronized (lock) {
-            if (in == null)
-                return;
-            try {
-                in.close();
-            } finally {
-                in = null;
-                cb = null;
-            }
+            implClose();
+        }
+    }
+
+    private void implClose() throws IOException {
+        if (in == null)
+            return;
+        try {
+            in.close();
+        } finally {
+            in = null;
+            cb = null;
+            lineBuffer = null;
         }
     }
 
@@ -54,6 +54,12 @@ package java.io;
  * bytes that would then be written immediately to the file, which can be very
  * inefficient.
  *
+ * <p> A BufferedWriter synchronizes each operation on its lock, so that it
+ * may be shared by multiple threads.  A writer that is confined to a single
+ * thread may instead be created with the {@link #BufferedWriter(Writer, int,
+ * boolean) threadSafe} flag cleared, in which case no operation acquires the
+ * lock.
+ *
  * @see PrintWriter
  * @see FileWriter
  * @see OutputStreamWriter
@@ -72,6 +78,9 @@ public class BufferedWriter extends Writer {
 
     private static int defaultCharBufferSize = 8192;
 
+    /** Whether operations synchronize on the lock */
+    private final boolean threadSafe;
+
     /**
      * Line separator string.  This is the value of the line.separator
      * property at the moment that the stream was created.
@@ -98,10 +107,31 @@ public class BufferedWriter extends Writer {
      * @exception  IllegalArgumentException  If {@code sz <= 0}
      */
     public BufferedWriter(Writer out, int sz) {
+        this(out, sz, true);
+    }
+
+    /**
+     * Creates a new buffered character-output stream that uses an output
+     * buffer of the given size, and that synchronizes its operations only if
+     * requested.
+     *
+     * <p> If {@code threadSafe} is {@code false} then no operation of the
+     * writer synchronizes on its lock, so the writer must only be used by a
+     * single thread at a time, with any hand-off between threads being safely
+     * published by other means.
+     *
+     * @param  out         A Writer
+     * @param  sz          Output-buffer size, a positive integer
+     * @param  threadSafe  Whether operations synchronize on the lock
+     *
+     * @exception  IllegalArgumentException  If {@code sz <= 0}
+     */
+    public BufferedWriter(Writer out, int sz, boolean threadSafe) {
         super(out);
         if (sz <= 0)
             throw new IllegalArgumentException("Buffer size <= 0");
         this.out = out;
+        this.threadSafe = threadSafe;
         cb = new char[sz];
         nChars = sz;
         nextChar = 0;
@@ -122,29 +152,45 @@ public class BufferedWriter extends Writer {
      * may be invoked by PrintStream.
      */
     void flushBuffer() throws IOException {
+        if (!threadSafe) {
+            implFlushBuffer();
+            return;
+        }
         synchronized (lock) {
-            ensureOpen();
-            if (nextChar == 0)
-                return;
-            out.write(cb, 0, nextChar);
-            nextChar = 0;
+            implFlushBuffer();
         }
     }
 
+    private void implFlushBuffer() throws IOException {
+        ensureOpen();
+        if (nextChar == 0)
+            return;
+        out.write(cb, 0, nextChar);
+        nextChar = 0;
+    }
+
     /**
      * Writes a single character.
      *
      * @exception  IOException  If an I/O error occurs
      */
     public void write(int c) throws IOException {
+        if (!threadSafe) {
+            implWrite(c);
+            return;
+        }
         synchronized (lock) {
-            ensureOpen();
-            if (nextChar >= nChars)
-                flushBuffer();
-            cb[nextChar++] = (char) c;
+            implWrite(c);
         }
     }
 
+    private void implWrite(int c) throws IOException {
+        ensureOpen();
+        if (nextChar >= nChars)
+            implFlushBuffer();
+        cb[nextChar++] = (char) c;
+    }
+
     /**
      * Our own little min method, to avoid loading java.lang.Math if we've run
      * out of file descriptors and we're trying to print a stack trace.
@@ -171,33 +217,41 @@ public class BufferedWriter extends Writer {
      * @exception  IOException  If an I/O error occurs
      */
     public void write(char cbuf[], int off, int len) throws IOException {
+        if (!threadSafe) {
+            implWrite(cbuf, off, len);
+            return;
+        }
         synchronized (lock) {
-            ensureOpen();
-            if ((off < 0) || (off > cbuf.length) || (len < 0) ||
-                ((off + len) > cbuf.length) || ((off + len) < 0)) {
-                throw new IndexOutOfBoundsException();
-            } else if (len == 0) {
-                return;
-            }
+            implWrite(cbuf, off, len);
+        }
+    }
 
-            if (len >= nChars) {
-                /* If the request length exceeds the size of the output buffer,
-                   flush the buffer and then write the data directly.  In this
-                   way buffered streams will cascade harmlessly. */
-                flushBuffer();
-                out.write(cbuf, off, len);
-                return;
-            }
+    private void implWrite(char cbuf[], int off, int len) throws IOException {
+        ensureOpen();
+        if ((off < 0) || (off > cbuf.length) || (len < 0) ||
+            ((off + len) > cbuf.length) || ((off + len) < 0)) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return;
+        }
 
-            int b = off, t = off + len;
-            while (b < t) {
-                int d = min(nChars - nextChar, t - b);
-                System.arraycopy(cbuf, b, cb, nextChar, d);
-                b += d;
-                nextChar += d;
-                if (nextChar >= nChars)
-                    flushBuffer();
-            }
+        if (len >= nChars) {
+            /* If the request length exceeds the size of the output buffer,
+               flush the buffer and then write the data directly.  In this
+               way buffered streams will cascade harmlessly. */
+            implFlushBuffer();
+            out.write(cbuf, off, len);
+            return;
+        }
+
+        int b = off, t = off + len;
+        while (b < t) {
+            int d = min(nChars - nextChar, t - b);
+            System.arraycopy(cbuf, b, cb, nextChar, d);
+            b += d;
+            nextChar += d;
+            if (nextChar >= nChars)
+                implFlushBuffer();
         }
     }
 
@@ -217,18 +271,26 @@ public class BufferedWriter extends Writer {
      * @exception  IOException  If an I/O error occurs
      */
     public void write(String s, int off, int len) throws IOException {
+        if (!threadSafe) {
+            implWrite(s, off, len);
+            return;
+        }
         synchronized (lock) {
-            ensureOpen();
+            implWrite(s, off, len);
+        }
+    }
 
-            int b = off, t = off + len;
-            while (b < t) {
-                int d = min(nChars - nextChar, t - b);
-                s.getChars(b, b + d, cb, nextChar);
-                b += d;
-                nextChar += d;
-                if (nextChar >= nChars)
-                    flushBuffer();
-            }
+    private void implWrite(String s, int off, int len) throws IOException {
+        ensureOpen();
+
+        int b = off, t = off + len;
+        while (b < t) {
+            int d = min(nChars - nextChar, t - b);
+            s.getChars(b, b + d, cb, nextChar);
+            b += d;
+            nextChar += d;
+            if (nextChar >= nChars)
+                implFlushBuffer();
         }
     }
 
@@ -249,24 +311,40 @@ public class BufferedWriter extends Writer {
      * @exception  IOException  If an I/O error occurs
      */
     public void flush() throws IOException {
+        if (!threadSafe) {
+            implFlush();
+            return;
+        }
         synchronized (lock) {
-            flushBuffer();
-            out.flush();
+            implFlush();
         }
     }
 
-    @SuppressWarnings("try")
+    private void implFlush() throws IOException {
+        implFlushBuffer();
+        out.flush();
+    }
+
     public void close() throws IOException {
+        if (!threadSafe) {
+            implClose();
+            return;
+        }
         synchronized (lock) {
-            if (out == null) {
-                return;
-            }
-            try (Writer w = out) {
-                flushBuffer();
-            } finally {
-                out = null;
-                cb = null;
-            }
+            implClose();
+        }
+    }
+
+    @SuppressWarnings("try")
+    private void implClose() throws IOException {
+        if (out == null) {
+            return;
+        }
+        try (Writer w = out) {
+            implFlushBuffer();
+        } finally {
+            out = null;
+            cb = null;
         }
     }
 }
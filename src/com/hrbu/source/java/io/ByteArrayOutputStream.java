@@ -37,6 +37,12 @@ import java.util.Arrays;
  * Closing a <tt>ByteArrayOutputStream</tt> has no effect. The methods in
  * this class can be called after the stream has been closed without
  * generating an <tt>IOException</tt>.
+ * <p>
+ * The methods of a <tt>ByteArrayOutputStream</tt> are synchronized, so that
+ * it may be shared by multiple threads. A stream that is confined to a
+ * single thread may instead be created with the {@link
+ * #ByteArrayOutputStream(int, boolean) threadSafe} flag cleared, in which
+ * case no method acquires the stream's monitor.
  *
  * @author  Arthur van Hoff
  * @since   JDK1.0
@@ -54,6 +60,11 @@ public class ByteArrayOutputStream extends OutputStream {
      */
     protected int count;
 
+    /**
+     * Whether methods synchronize on this stream.
+     */
+    private final boolean threadSafe;
+
     /**
      * Creates a new byte array output stream. The buffer capacity is
      * initially 32 bytes, though its size increases if necessary.
@@ -70,11 +81,30 @@ public class ByteArrayOutputStream extends OutputStream {
      * @exception  IllegalArgumentException if size is negative.
      */
     public ByteArrayOutputStream(int size) {
+        this(size, true);
+    }
+
+    /**
+     * Creates a new byte array output stream, with a buffer capacity of
+     * the specified size, in bytes, whose methods synchronize on the stream
+     * only if requested.
+     * <p>
+     * If <code>threadSafe</code> is <code>false</code> then no method of the
+     * stream synchronizes on it, so the stream must only be used by a single
+     * thread at a time, with any hand-off between threads being safely
+     * published by other means.
+     *
+     * @param   size         the initial size.
+     * @param   threadSafe   whether methods synchronize on this stream.
+     * @exception  IllegalArgumentException if size is negative.
+     */
+    public ByteArrayOutputStream(int size, boolean threadSafe) {
         if (size < 0) {
             throw new IllegalArgumentException("Negative initial size: "
                                                + size);
         }
         buf = new byte[size];
+        this.threadSafe = threadSafe;
     }
 
     /**
@@ -131,7 +161,17 @@ public class ByteArrayOutputStream extends OutputStream {
      *
      * @param   b   the byte to be written.
      */
-    public synchronized void write(int b) {
+    public void write(int b) {
+        if (!threadSafe) {
+            implWrite(b);
+            return;
+        }
+        synchronized (this) {
+            implWrite(b);
+        }
+    }
+
+    private void implWrite(int b) {
         ensureCapacity(count + 1);
         buf[count] = (byte) b;
         count += 1;
@@ -145,7 +185,17 @@ public class ByteArrayOutputStream extends OutputStream {
      * @param   off   the start offset in the data.
      * @param   len   the number of bytes to write.
      */
-    public synchronized void write(byte b[], int off, int len) {
+    public void write(byte b[], int off, int len) {
+        if (!threadSafe) {
+            implWrite(b, off, len);
+            return;
+        }
+        synchronized (this) {
+            implWrite(b, off, len);
+        }
+    }
+
+    private void implWrite(byte b[], int off, int len) {
         if ((off < 0) || (off > b.length) || (len < 0) ||
             ((off + len) - b.length > 0)) {
             throw new IndexOutOfBoundsException();
@@ -163,8 +213,14 @@ public class ByteArrayOutputStream extends OutputStream {
      * @param      out   the output stream to which to write the data.
      * @exception  IOException  if an I/O error occurs.
      */
-    public synchronized void writeTo(OutputStream out) throws IOException {
-        out.write(buf, 0, count);
+    public void writeTo(OutputStream out) throws IOException {
+        if (!threadSafe) {
+            out.write(buf, 0, count);
+            return;
+        }
+        synchronized (this) {
+            out.write(buf, 0, count);
+        }
     }
 
     /**
@@ -175,8 +231,14 @@ public class ByteArrayOutputStream extends OutputStream {
      *
      * @see     java.io.ByteArrayInputStream#count
      */
-    public synchronized void reset() {
-        count = 0;
+    public void reset() {
+        if (!threadSafe) {
+            count = 0;
+            return;
+        }
+        synchronized (this) {
+            count = 0;
+        }
     }
 
     /**
@@ -187,8 +249,12 @@ public class ByteArrayOutputStream extends OutputStream {
      * @return  the current contents of this output stream, as a byte array.
      * @see     java.io.ByteArrayOutputStream#size()
      */
-    public synchronized byte toByteArray()[] {
-        return Arrays.copyOf(buf, count);
+    public byte toByteArray()[] {
+        if (!threadSafe)
+            return Arrays.copyOf(buf, count);
+        synchronized (this) {
+            return Arrays.copyOf(buf, count);
+        }
     }
 
     /**
@@ -198,8 +264,12 @@ public class ByteArrayOutputStream extends OutputStream {
      *          of valid bytes in this output stream.
      * @see     java.io.ByteArrayOutputStream#count
      */
-    public synchronized int size() {
-        return count;
+    public int size() {
+        if (!threadSafe)
+            return count;
+        synchronized (this) {
+            return count;
+        }
     }
 
     /**
@@ -217,8 +287,12 @@ public class ByteArrayOutputStream extends OutputStream {
      * @return String decoded from the buffer's contents.
      * @since  JDK1.1
      */
-    public synchronized String toString() {
-        return new String(buf, 0, count);
+    public String toString() {
+        if (!threadSafe)
+            return new String(buf, 0, count);
+        synchronized (this) {
+            return new String(buf, 0, count);
+        }
     }
 
     /**
@@ -239,10 +313,14 @@ public class ByteArrayOutputStream extends OutputStream {
      *             If the named charset is not supported
      * @since      JDK1.1
      */
-    public synchronized String toString(String charsetName)
+    public String toString(String charsetName)
         throws UnsupportedEncodingException
     {
-        return new String(buf, 0, count, charsetName);
+        if (!threadSafe)
+            return new String(buf, 0, count, charsetName);
+        synchronized (this) {
+            return new String(buf, 0, count, charsetName);
+        }
     }
 
     /**
@@ -268,8 +346,12 @@ public class ByteArrayOutputStream extends OutputStream {
      * @see        java.io.ByteArrayOutputStream#toString()
      */
     @Deprecated
-    public synchronized String toString(int hibyte) {
-        return new String(buf, hibyte, 0, count);
+    public String toString(int hibyte) {
+        if (!threadSafe)
+            return new String(buf, hibyte, 0, count);
+        synchronized (this) {
+            return new String(buf, hibyte, 0, count);
+        }
     }
 
     /**
@@ -220,6 +220,10 @@ public class ObjectInputStream
     /** marker for unshared objects in internal handle table */
     private static final Object unsharedMarker = new Object();
 
+    /** type code of class descriptors held by the stream's dictionary */
+    private static final byte TC_DICTIONARYCLASSDESC =
+        ObjectStreamDictionary.TC_DICTIONARYCLASSDESC;
+
     /** table mapping primitive type names to corresponding class objects */
     private static final HashMap<String, Class<?>> primClasses
         = new HashMap<>(8, 1.0F);
@@ -300,6 +304,8 @@ public class ObjectInputStream
 
     /** wire handle -> obj/exception map */
     private final HandleTable handles;
+    /** shared class descriptors read by index; may be null */
+    private final ObjectStreamDictionary dictionary;
     /** scratch field for passing handle values up/down call stack */
     private int passHandle = NULL_HANDLE;
     /** flag set when at end of field value block with no TC_ENDBLOCKDATA */
@@ -349,13 +355,56 @@ public class ObjectInputStream
      * @see     ObjectOutputStream#ObjectOutputStream(OutputStream)
      */
     public ObjectInputStream(InputStream in) throws IOException {
+        this(in, null);
+    }
+
+    /**
+     * Creates an ObjectInputStream that reads from the specified InputStream
+     * a stream written by an ObjectOutputStream created with an equal class
+     * descriptor dictionary.  A serialization stream header, followed by the
+     * fingerprint of the writer's dictionary if a dictionary is given, is
+     * read from the stream and verified.  This constructor will block until
+     * the corresponding ObjectOutputStream has written and flushed the
+     * header.
+     *
+     * <p>If a security manager is installed, this constructor will check for
+     * the "enableSubclassImplementation" SerializablePermission when invoked
+     * directly or indirectly by the constructor of a subclass which overrides
+     * the ObjectInputStream.readFields or ObjectInputStream.readUnshared
+     * methods.
+     *
+     * @param   in input stream to read from
+     * @param   dictionary the class descriptor dictionary shared with the
+     *          writing stream, or <code>null</code> to read a standard
+     *          stream
+     * @throws  StreamCorruptedException if the stream header is incorrect,
+     *          or the writer's dictionary differs from the given one
+     * @throws  IOException if an I/O error occurs while reading stream header
+     * @throws  SecurityException if untrusted subclass illegally overrides
+     *          security-sensitive methods
+     * @throws  NullPointerException if <code>in</code> is <code>null</code>
+     * @see     ObjectStreamDictionary
+     * @see     ObjectOutputStream#ObjectOutputStream(OutputStream, ObjectStreamDictionary)
+     */
+    public ObjectInputStream(InputStream in,
+                             ObjectStreamDictionary dictionary)
+        throws IOException
+    {
         verifySubclass();
         bin = new BlockDataInputStream(in);
         handles = new HandleTable(10);
         vlist = new ValidationList();
         serialFilter = ObjectInputFilter.Config.getSerialFilter();
+        this.dictionary = dictionary;
         enableOverride = false;
         readStreamHeader();
+        if (dictionary != null) {
+            long fingerprint = bin.readLong();
+            if (fingerprint != dictionary.getFingerprint()) {
+                throw new StreamCorruptedException(String.format(
+                    "class descriptor dictionary mismatch: %016X", fingerprint));
+            }
+        }
         bin.setBlockDataMode(true);
     }
 
@@ -383,6 +432,7 @@ public class ObjectInputStream
         }
         bin = null;
         handles = null;
+        dictionary = null;
         vlist = null;
         serialFilter = ObjectInputFilter.Config.getSerialFilter();
         enableOverride = true;
@@ -1557,6 +1607,7 @@ public class ObjectInputStream
 
                 case TC_CLASSDESC:
                 case TC_PROXYCLASSDESC:
+                case TC_DICTIONARYCLASSDESC:
                     return readClassDesc(unshared);
 
                 case TC_STRING:
@@ -1750,6 +1801,9 @@ public class ObjectInputStream
             case TC_CLASSDESC:
                 descriptor = readNonProxyDesc(unshared);
                 break;
+            case TC_DICTIONARYCLASSDESC:
+                descriptor = readDictionaryDesc(unshared);
+                break;
             default:
                 throw new StreamCorruptedException(
                     String.format("invalid type code: %02X", tc));
@@ -1766,6 +1820,41 @@ public class ObjectInputStream
                     != ObjectInputStream.class.getClassLoader();
     }
 
+    /**
+     * Reads in a reference to a class descriptor held by the stream's
+     * dictionary, and returns the dictionary's local descriptor.  Sets
+     * passHandle to the class descriptor's assigned handle.
+     */
+    private ObjectStreamClass readDictionaryDesc(boolean unshared)
+        throws IOException
+    {
+        if (bin.readByte() != TC_DICTIONARYCLASSDESC) {
+            throw new InternalError();
+        }
+        if (dictionary == null) {
+            throw new StreamCorruptedException(
+                "dictionary class descriptor without dictionary");
+        }
+        int index = bin.readInt();
+        ObjectStreamClass desc = dictionary.get(index);
+        if (desc == null) {
+            throw new StreamCorruptedException(
+                "invalid dictionary index: " + index);
+        }
+        int descHandle = handles.assign(unshared ? unsharedMarker : desc);
+        passHandle = NULL_HANDLE;
+
+        Class<?> cl = desc.forClass();
+        if (isCustomSubclass()) {
+            ReflectUtil.checkPackageAccess(cl);
+        }
+        filterCheck(cl, -1);
+
+        handles.finish(descHandle);
+        passHandle = descHandle;
+        return desc;
+    }
+
     /**
      * Reads in and returns class descriptor for a dynamic proxy class.  Sets
      * passHandle to proxy class descriptor's assigned handle.  If proxy class
@@ -2866,7 +2955,9 @@ public class ObjectInputStream
                             break;
 
                         default:
-                            if (tc >= 0 && (tc < TC_BASE || tc > TC_MAX)) {
+                            if (tc >= 0 && (tc < TC_BASE || tc > TC_MAX) &&
+                                !(tc == TC_DICTIONARYCLASSDESC &&
+                                  dictionary != null)) {
                                 throw new StreamCorruptedException(
                                     String.format("invalid type code: %02X",
                                     tc));
@@ -179,6 +179,8 @@ public class ObjectOutputStream
     private final HandleTable handles;
     /** obj -> replacement obj map */
     private final ReplaceTable subs;
+    /** shared class descriptors written by index; may be null */
+    private final ObjectStreamDictionary dictionary;
     /** stream protocol version */
     private int protocol = PROTOCOL_VERSION_2;
     /** recursion depth */
@@ -238,12 +240,48 @@ public class ObjectOutputStream
      * @see     ObjectInputStream#ObjectInputStream(InputStream)
      */
     public ObjectOutputStream(OutputStream out) throws IOException {
+        this(out, null);
+    }
+
+    /**
+     * Creates an ObjectOutputStream that writes to the specified OutputStream
+     * and writes the classes held by the given dictionary as references to
+     * the dictionary rather than as full class descriptors.  This constructor
+     * writes the serialization stream header to the underlying stream,
+     * followed by the fingerprint of the dictionary, if any.  The stream can
+     * only be read by an ObjectInputStream created with an equal dictionary.
+     *
+     * <p>If a security manager is installed, this constructor will check for
+     * the "enableSubclassImplementation" SerializablePermission when invoked
+     * directly or indirectly by the constructor of a subclass which overrides
+     * the ObjectOutputStream.putFields or ObjectOutputStream.writeUnshared
+     * methods.
+     *
+     * @param   out output stream to write to
+     * @param   dictionary the class descriptor dictionary shared with the
+     *          reading stream, or <code>null</code> to write a standard
+     *          stream
+     * @throws  IOException if an I/O error occurs while writing stream header
+     * @throws  SecurityException if untrusted subclass illegally overrides
+     *          security-sensitive methods
+     * @throws  NullPointerException if <code>out</code> is <code>null</code>
+     * @see     ObjectStreamDictionary
+     * @see     ObjectInputStream#ObjectInputStream(InputStream, ObjectStreamDictionary)
+     */
+    public ObjectOutputStream(OutputStream out,
+                              ObjectStreamDictionary dictionary)
+        throws IOException
+    {
         verifySubclass();
         bout = new BlockDataOutputStream(out);
         handles = new HandleTable(10, (float) 3.00);
         subs = new ReplaceTable(10, (float) 3.00);
+        this.dictionary = dictionary;
         enableOverride = false;
         writeStreamHeader();
+        if (dictionary != null) {
+            bout.writeLong(dictionary.getFingerprint());
+        }
         bout.setBlockDataMode(true);
         if (extendedDebugInfo) {
             debugInfoStack = new DebugTraceInfoStack();
@@ -277,6 +315,7 @@ public class ObjectOutputStream
         bout = null;
         handles = null;
         subs = null;
+        dictionary = null;
         enableOverride = true;
         debugInfoStack = null;
     }
@@ -1131,7 +1170,7 @@ public class ObjectOutputStream
             for (;;) {
                 // REMIND: skip this check for strings/arrays?
                 Class<?> repCl;
-                desc = ObjectStreamClass.lookup(cl, true);
+                desc = lookupDesc(cl);
                 if (!desc.hasWriteReplaceMethod() ||
                     (obj = desc.invokeWriteReplace(obj)) == null ||
                     (repCl = obj.getClass()) == cl)
@@ -1144,7 +1183,7 @@ public class ObjectOutputStream
                 Object rep = replaceObject(obj);
                 if (rep != obj && rep != null) {
                     cl = rep.getClass();
-                    desc = ObjectStreamClass.lookup(cl, true);
+                    desc = lookupDesc(cl);
                 }
                 obj = rep;
             }
@@ -1210,10 +1249,24 @@ public class ObjectOutputStream
      */
     private void writeClass(Class<?> cl, boolean unshared) throws IOException {
         bout.writeByte(TC_CLASS);
-        writeClassDesc(ObjectStreamClass.lookup(cl, true), false);
+        writeClassDesc(lookupDesc(cl), false);
         handles.assign(unshared ? null : cl);
     }
 
+    /**
+     * Returns the descriptor for the given class, from the dictionary if it
+     * holds the class.
+     */
+    private ObjectStreamClass lookupDesc(Class<?> cl) {
+        if (dictionary != null) {
+            ObjectStreamClass desc = dictionary.lookup(cl);
+            if (desc != null) {
+                return desc;
+            }
+        }
+        return ObjectStreamClass.lookup(cl, true);
+    }
+
     /**
      * Writes representation of given class descriptor to stream.
      */
@@ -1221,10 +1274,14 @@ public class ObjectOutputStream
         throws IOException
     {
         int handle;
+        int index;
         if (desc == null) {
             writeNull();
         } else if (!unshared && (handle = handles.lookup(desc)) != -1) {
             writeHandle(handle);
+        } else if (dictionary != null &&
+                   (index = dictionary.indexOf(desc)) != -1) {
+            writeDictionaryDesc(desc, index, unshared);
         } else if (desc.isProxy()) {
             writeProxyDesc(desc, unshared);
         } else {
@@ -1238,6 +1295,19 @@ public class ObjectOutputStream
                    != ObjectOutputStream.class.getClassLoader();
     }
 
+    /**
+     * Writes reference to class descriptor held by the stream's dictionary.
+     * The superclass descriptors are implied by the dictionary entry.
+     */
+    private void writeDictionaryDesc(ObjectStreamClass desc, int index,
+                                     boolean unshared)
+        throws IOException
+    {
+        bout.writeByte(ObjectStreamDictionary.TC_DICTIONARYCLASSDESC);
+        handles.assign(unshared ? null : desc);
+        bout.writeInt(index);
+    }
+
     /**
      * Writes class descriptor representing a dynamic proxy class to stream.
      */
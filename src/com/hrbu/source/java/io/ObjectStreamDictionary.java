@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.io;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fixed list of classes whose descriptors are shared by the object streams
+ * at both ends of a connection, so that they need not be written to each
+ * stream.
+ *
+ * <p>An object stream normally writes the full descriptor of every class
+ * the first time that it writes an instance of it, and the receiving stream
+ * reads, resolves and matches each such descriptor against the local class.
+ * When many short-lived streams carry instances of the same classes, as
+ * when a stream is created for each remote call, this work is repeated for
+ * every stream.  An <code>ObjectOutputStream</code> created with a
+ * dictionary instead writes a class held by the dictionary as its index in
+ * the dictionary, and an <code>ObjectInputStream</code> created with an
+ * equal dictionary maps the index back to the local descriptor, which the
+ * dictionary keeps resolved for the lifetime of the dictionary.  Classes not
+ * held by the dictionary are written in full as usual.
+ *
+ * <p>Both ends of a stream must use dictionaries created from the same
+ * classes, in the same order, and with the same serializable fields.  Each
+ * dictionary has a {@link #getFingerprint fingerprint} computed from the
+ * names, serialVersionUIDs and serializable fields of its classes and their
+ * superclasses; the writing stream records the fingerprint after the
+ * stream header and the reading stream fails with a
+ * <code>StreamCorruptedException</code> if it differs from its own.  Streams
+ * written with a dictionary can only be read by a stream with an equal
+ * dictionary.
+ *
+ * <p>The class descriptor hooks of the streams, such as
+ * {@link ObjectOutputStream#annotateClass annotateClass},
+ * {@link ObjectOutputStream#writeClassDescriptor writeClassDescriptor},
+ * {@link ObjectInputStream#readClassDescriptor readClassDescriptor} and
+ * {@link ObjectInputStream#resolveClass resolveClass}, are not invoked for
+ * classes held by the dictionary.  The stream's serialization filter, if
+ * any, is still applied to them.
+ *
+ * <p>A dictionary holds strong references to its classes, which are
+ * therefore not unloaded while it is reachable.  Dictionaries are immutable
+ * and may be shared by any number of streams and threads.
+ *
+ * @see ObjectOutputStream#ObjectOutputStream(OutputStream, ObjectStreamDictionary)
+ * @see ObjectInputStream#ObjectInputStream(InputStream, ObjectStreamDictionary)
+ */
+public final class ObjectStreamDictionary {
+
+    /**
+     * Type code of a class descriptor held by the stream's dictionary.  The
+     * int following the tag is the index of the descriptor in the
+     * dictionary.  Only written to streams created with a dictionary, so it
+     * lies outside the range of the public type codes in
+     * ObjectStreamConstants.
+     */
+    static final byte TC_DICTIONARYCLASSDESC = (byte)0x7F;
+
+    /** descriptors of the dictionary's classes, in index order */
+    private final ObjectStreamClass[] descs;
+    /** the dictionary's classes, in index order */
+    private final List<Class<?>> classes;
+    /** class -> index map */
+    private final Map<Class<?>,Integer> indices;
+    /** digest of the layout of the dictionary's classes */
+    private final long fingerprint;
+
+    private ObjectStreamDictionary(ObjectStreamClass[] descs,
+                                   Class<?>[] classes,
+                                   Map<Class<?>,Integer> indices)
+    {
+        this.descs = descs;
+        this.classes = Collections.unmodifiableList(Arrays.asList(classes));
+        this.indices = indices;
+        this.fingerprint = computeFingerprint(descs);
+    }
+
+    /**
+     * Creates a dictionary of the given classes, which are assigned indices
+     * in the order given.
+     *
+     * @param   classes the serializable classes to be held by the dictionary
+     * @return  the dictionary
+     * @throws  IllegalArgumentException if a class is not serializable, is a
+     *          dynamic proxy class, or is given more than once
+     * @throws  NullPointerException if <code>classes</code> or any of its
+     *          elements is <code>null</code>
+     */
+    public static ObjectStreamDictionary of(Class<?>... classes) {
+        Class<?>[] cls = classes.clone();
+        ObjectStreamClass[] descs = new ObjectStreamClass[cls.length];
+        Map<Class<?>,Integer> indices = new HashMap<>(cls.length * 2);
+        for (int i = 0; i < cls.length; i++) {
+            Class<?> cl = cls[i];
+            if (cl == null) {
+                throw new NullPointerException();
+            }
+            ObjectStreamClass desc = ObjectStreamClass.lookup(cl);
+            if (desc == null) {
+                throw new IllegalArgumentException(
+                    cl.getName() + " is not serializable");
+            }
+            if (desc.isProxy()) {
+                throw new IllegalArgumentException(
+                    cl.getName() + " is a proxy class");
+            }
+            if (indices.put(cl, i) != null) {
+                throw new IllegalArgumentException(
+                    cl.getName() + " given more than once");
+            }
+            descs[i] = desc;
+        }
+        return new ObjectStreamDictionary(descs, cls, indices);
+    }
+
+    /**
+     * Returns the number of classes held by this dictionary.
+     *
+     * @return  the number of classes
+     */
+    public int size() {
+        return descs.length;
+    }
+
+    /**
+     * Returns the classes held by this dictionary, in index order.
+     *
+     * @return  an unmodifiable list of the classes
+     */
+    public List<Class<?>> classes() {
+        return classes;
+    }
+
+    /**
+     * Returns the fingerprint of this dictionary.  Dictionaries created from
+     * the same classes, in the same order, in virtual machines that agree on
+     * the names, serialVersionUIDs and serializable fields of those classes
+     * and their superclasses, have the same fingerprint.  Peers may exchange
+     * fingerprints to check that they share a dictionary before creating
+     * streams with it.
+     *
+     * @return  the fingerprint
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns a string describing this dictionary.
+     *
+     * @return  a string describing this dictionary
+     */
+    public String toString() {
+        return "ObjectStreamDictionary[size=" + descs.length
+            + ", fingerprint=" + Long.toHexString(fingerprint) + "]";
+    }
+
+    /**
+     * Returns the index of the class described by the given descriptor, or -1
+     * if this dictionary does not hold that class.
+     */
+    int indexOf(ObjectStreamClass desc) {
+        Class<?> cl = desc.forClass();
+        if (cl == null) {
+            return -1;
+        }
+        Integer index = indices.get(cl);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * Returns the local descriptor of the given class if this dictionary
+     * holds it, or null otherwise.
+     */
+    ObjectStreamClass lookup(Class<?> cl) {
+        Integer index = indices.get(cl);
+        return (index != null) ? descs[index] : null;
+    }
+
+    /**
+     * Returns the local descriptor with the given index, or null if the index
+     * is out of range.
+     */
+    ObjectStreamClass get(int index) {
+        return (index >= 0 && index < descs.length) ? descs[index] : null;
+    }
+
+    /**
+     * Computes a digest of the stream layout of the given descriptors: the
+     * name, serialVersionUID, flags and serializable fields of each
+     * descriptor and of its superclass descriptors, in order.
+     */
+    private static long computeFingerprint(ObjectStreamClass[] descs) {
+        try {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            DataOutputStream dout = new DataOutputStream(bout);
+            dout.writeInt(descs.length);
+            for (ObjectStreamClass desc : descs) {
+                for (ObjectStreamClass d = desc; d != null; d = d.getSuperDesc()) {
+                    dout.writeUTF(d.getName());
+                    dout.writeLong(d.getSerialVersionUID());
+                    int flags = 0;
+                    if (d.isExternalizable()) {
+                        flags |= ObjectStreamConstants.SC_EXTERNALIZABLE;
+                    }
+                    if (d.hasWriteObjectData()) {
+                        flags |= ObjectStreamConstants.SC_WRITE_METHOD;
+                    }
+                    if (d.isEnum()) {
+                        flags |= ObjectStreamConstants.SC_ENUM;
+                    }
+                    dout.writeByte(flags);
+                    ObjectStreamField[] fields = d.getFields(false);
+                    dout.writeShort(fields.length);
+                    for (ObjectStreamField f : fields) {
+                        dout.writeUTF(f.getName());
+                        dout.writeUTF(f.getSignature());
+                    }
+                }
+                dout.writeByte(ObjectStreamConstants.TC_ENDBLOCKDATA);
+            }
+            dout.flush();
+
+            MessageDigest md = MessageDigest.getInstance("SHA");
+            byte[] hashBytes = md.digest(bout.toByteArray());
+            long hash = 0;
+            for (int i = Math.min(hashBytes.length, 8) - 1; i >= 0; i--) {
+                hash = (hash << 8) | (hashBytes[i] & 0xFF);
+            }
+            return hash;
+        } catch (IOException ex) {
+            throw new InternalError(ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new SecurityException(ex.getMessage());
+        }
+    }
+}
@@ -25,6 +25,7 @@
 
 package java.lang.management;
 
+import java.nio.DirectBufferPool;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -212,7 +213,12 @@ enum PlatformComponent {
         false, // zero or more instances
         new MXBeanFetcher<BufferPoolMXBean>() {
             public List<BufferPoolMXBean> getMXBeans() {
-                return ManagementFactoryHelper.getBufferPoolMXBeans();
+                List<BufferPoolMXBean> pools =
+                    new ArrayList<>(ManagementFactoryHelper.getBufferPoolMXBeans());
+                for (DirectBufferPool pool : DirectBufferPool.getPools()) {
+                    pools.add(new DirectBufferPoolImpl(pool));
+                }
+                return pools;
             }
         }),
 
@@ -464,5 +470,42 @@ enum PlatformComponent {
         return null;
     }
 
+    /**
+     * The management interface of a {@link DirectBufferPool}.
+     */
+    private static class DirectBufferPoolImpl implements BufferPoolMXBean {
+        private final DirectBufferPool pool;
+
+        DirectBufferPoolImpl(DirectBufferPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public ObjectName getObjectName() {
+            return Util.newObjectName("java.nio:type=BufferPool,name=" +
+                                      ObjectName.quote(pool.getName()));
+        }
+
+        @Override
+        public String getName() {
+            return pool.getName();
+        }
+
+        @Override
+        public long getCount() {
+            return pool.getCount();
+        }
+
+        @Override
+        public long getTotalCapacity() {
+            return pool.getTotalCapacity();
+        }
+
+        @Override
+        public long getMemoryUsed() {
+            return pool.getTotalCapacity();
+        }
+    }
+
     private static final long serialVersionUID = 6992337162326171013L;
 }
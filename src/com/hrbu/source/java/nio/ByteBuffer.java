@@ -114,6 +114,8 @@ package java.nio;
  * primarily for large, long-lived buffers that are subject to the underlying
  * system's native I/O operations.  In general it is best to allocate direct
  * buffers only when they yield a measureable gain in program performance.
+ * Short-lived direct buffers may instead be recycled through a {@link
+ * DirectBufferPool}.
  *
  * <p> A direct byte buffer may also be created by {@link
  * java.nio.channels.FileChannel#map mapping} a region of a file
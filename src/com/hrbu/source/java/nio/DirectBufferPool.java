@@ -0,0 +1,491 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import sun.misc.Cleaner;
+
+
+/**
+ * A pool of direct byte buffers that are recycled rather than left to the
+ * garbage collector.
+ *
+ * <p> Allocating a direct buffer with {@link ByteBuffer#allocateDirect
+ * allocateDirect} reserves native memory that is only freed once the buffer
+ * has been found unreachable by the garbage collector.  When buffers are
+ * allocated at a high rate, reservations can reach the limit on direct
+ * memory before the collector runs, and allocation then stalls while it
+ * forces a collection and waits for memory to be freed.  A buffer pool
+ * avoids this for short-lived buffers: a buffer that is no longer needed is
+ * explicitly {@link #release released} to the pool, which either retains it
+ * for reuse by a later {@link #allocate allocate}, or frees its memory
+ * immediately.
+ *
+ * <p> A pool manages buffers in <i>size classes</i>, the powers of two from
+ * 512 bytes up to the pool's maximum pooled capacity.  A request for a
+ * buffer is served by a buffer of the smallest class that can hold it.
+ * Released buffers are retained, up to the pool's maximum retained memory,
+ * in a small cache local to the releasing thread, so that a thread
+ * repeatedly allocating and releasing buffers does not contend with other
+ * threads for them, and otherwise in a shared cache.  Requests for buffers
+ * larger than the maximum pooled capacity are served by new buffers whose
+ * memory is freed upon release.
+ *
+ * <p> Buffers obtained from a pool must be released at most once, to the
+ * same pool, and must not be used, nor any of their views, after they have
+ * been released.  A buffer that is never released is freed by the garbage
+ * collector as usual.  Whether released buffers are retained or freed, the
+ * effects of using a released buffer are unspecified, and may include
+ * corrupting the contents of other buffers.
+ *
+ * <p> Each pool reports its occupancy, as a {@link
+ * java.lang.management.BufferPoolMXBean BufferPoolMXBean} with the pool's
+ * name among those returned by {@link
+ * java.lang.management.ManagementFactory#getPlatformMXBeans(Class)
+ * getPlatformMXBeans}, until it is {@link #close closed}.  Buffers retained by
+ * the cache of a thread that terminates are freed once the garbage collector
+ * finds the cache unreachable.
+ *
+ * <p> Buffer pools are safe for use by multiple concurrent threads.
+ *
+ * @see ByteBuffer#allocateDirect(int)
+ */
+
+public final class DirectBufferPool implements AutoCloseable {
+
+    // The smallest size class is 1 << MIN_SHIFT bytes
+    private static final int MIN_SHIFT = 9;
+
+    // The largest size class allowed is 1 << MAX_SHIFT bytes
+    private static final int MAX_SHIFT = 30;
+
+    // Defaults for pools created by create(String)
+    private static final int DEFAULT_MAX_POOLED_CAPACITY = 1 << 20;
+    private static final long DEFAULT_MAX_RETAINED_MEMORY = 64L << 20;
+
+    // The number of bytes of each size class that a thread may cache, and
+    // the bounds on the number of buffers this allows for any class
+    private static final int THREAD_CACHE_BYTES = 256 << 10;
+    private static final int MIN_THREAD_CACHED = 1;
+    private static final int MAX_THREAD_CACHED = 16;
+
+    // Open pools, reported as buffer pool MXBeans
+    private static final List<DirectBufferPool> pools =
+        new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final int maxPooledCapacity;
+    private final long maxRetainedMemory;
+
+    // Released buffers shared by all threads, one stack per size class
+    private final ConcurrentLinkedDeque<DirectByteBuffer>[] shared;
+
+    // The capacity of the buffers retained in the shared cache and in thread
+    // caches, bounded by maxRetainedMemory
+    private final AtomicLong retainedCapacity = new AtomicLong();
+
+    // Per-thread caches
+    private final ThreadLocal<ThreadCache> threadCache;
+
+    // Occupancy: all buffers allocated and not yet freed by this pool, and
+    // those of them that are retained in caches
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalCapacity = new LongAdder();
+    private final LongAdder retainedCount = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * A cache of released buffers, used only by its thread, and by the
+     * cleaner that frees its buffers once the cache is unreachable.  Each
+     * size class has a stack of buffers.
+     */
+    private static final class ThreadCache {
+        final DirectByteBuffer[][] stacks;
+        final int[] sizes;
+
+        ThreadCache(int classes) {
+            stacks = new DirectByteBuffer[classes][];
+            sizes = new int[classes];
+            for (int c = 0; c < classes; c++) {
+                int n = THREAD_CACHE_BYTES >>> (MIN_SHIFT + c);
+                n = Math.max(MIN_THREAD_CACHED, Math.min(MAX_THREAD_CACHED, n));
+                stacks[c] = new DirectByteBuffer[n];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private DirectBufferPool(String name, int maxPooledCapacity,
+                             long maxRetainedMemory)
+    {
+        int classes = sizeClass(maxPooledCapacity) + 1;
+        this.name = name;
+        this.maxPooledCapacity = 1 << (MIN_SHIFT + classes - 1);
+        this.maxRetainedMemory = maxRetainedMemory;
+        shared = (ConcurrentLinkedDeque<DirectByteBuffer>[])
+            new ConcurrentLinkedDeque<?>[classes];
+        for (int c = 0; c < classes; c++)
+            shared[c] = new ConcurrentLinkedDeque<>();
+        threadCache = ThreadLocal.withInitial(() -> {
+            ThreadCache tc = new ThreadCache(classes);
+            // free the buffers left in the cache of a terminated thread
+            DirectByteBuffer[][] stacks = tc.stacks;
+            int[] sizes = tc.sizes;
+            Cleaner.create(tc, () -> freeCached(stacks, sizes));
+            return tc;
+        });
+    }
+
+    /**
+     * Creates a new buffer pool with the default maximum pooled capacity of
+     * one megabyte, and the default maximum retained memory of 64 megabytes.
+     *
+     * @param  name
+     *         The name of the pool
+     *
+     * @return  The new buffer pool
+     */
+    public static DirectBufferPool create(String name) {
+        return create(name, DEFAULT_MAX_POOLED_CAPACITY,
+                      DEFAULT_MAX_RETAINED_MEMORY);
+    }
+
+    /**
+     * Creates a new buffer pool.
+     *
+     * @param  name
+     *         The name of the pool
+     *
+     * @param  maxPooledCapacity
+     *         The capacity of the largest buffers that are recycled, rounded
+     *         up to a power of two
+     *
+     * @param  maxRetainedMemory
+     *         The maximum total capacity of the released buffers retained by
+     *         the pool, whether in its shared cache or in the caches of
+     *         threads
+     *
+     * @return  The new buffer pool
+     *
+     * @throws  IllegalArgumentException
+     *          If <tt>maxPooledCapacity</tt> is not positive or is greater than
+     *          2<sup>30</sup>, or if <tt>maxRetainedMemory</tt> is negative
+     */
+    public static DirectBufferPool create(String name, int maxPooledCapacity,
+                                          long maxRetainedMemory)
+    {
+        if (name == null)
+            throw new NullPointerException();
+        if (maxPooledCapacity <= 0 || maxPooledCapacity > (1 << MAX_SHIFT))
+            throw new IllegalArgumentException("Illegal pooled capacity: "
+                                               + maxPooledCapacity);
+        if (maxRetainedMemory < 0)
+            throw new IllegalArgumentException("Negative retained memory: "
+                                               + maxRetainedMemory);
+        DirectBufferPool pool = new DirectBufferPool(name, maxPooledCapacity,
+                                                     maxRetainedMemory);
+        pools.add(pool);
+        return pool;
+    }
+
+    /**
+     * Returns the open buffer pools.  This method is used by the platform
+     * to report buffer pools as {@link java.lang.management.BufferPoolMXBean
+     * BufferPoolMXBean}s.
+     *
+     * @return  A list of the buffer pools that have not been closed
+     */
+    public static List<DirectBufferPool> getPools() {
+        return new ArrayList<>(pools);
+    }
+
+    // Returns the size class of buffers that can hold cap bytes
+    private static int sizeClass(int cap) {
+        if (cap <= (1 << MIN_SHIFT))
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros(cap - 1) - MIN_SHIFT;
+    }
+
+    /**
+     * Allocates a direct byte buffer from this pool.
+     *
+     * <p> The buffer's position will be zero, its limit will be the given
+     * capacity, its mark will be undefined, and its byte order will be
+     * {@link ByteOrder#BIG_ENDIAN BIG_ENDIAN}.  Its actual capacity is that
+     * of its size class, which may be larger than requested.  Unlike a new
+     * buffer, the contents of a recycled buffer are those left by its
+     * previous user.
+     *
+     * @param  capacity
+     *         The required capacity, in bytes
+     *
+     * @return  The byte buffer
+     *
+     * @throws  IllegalArgumentException
+     *          If the <tt>capacity</tt> is a negative integer
+     *
+     * @throws  IllegalStateException
+     *          If this pool has been closed
+     */
+    public ByteBuffer allocate(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative capacity: "
+                                               + capacity);
+        if (closed)
+            throw new IllegalStateException("Buffer pool closed");
+        DirectByteBuffer b;
+        if (capacity > maxPooledCapacity) {
+            b = newBuffer(capacity);
+        } else {
+            int c = sizeClass(capacity);
+            ThreadCache tc = threadCache.get();
+            int n = tc.sizes[c];
+            if (n > 0) {
+                DirectByteBuffer[] stack = tc.stacks[c];
+                b = stack[--n];
+                stack[n] = null;
+                tc.sizes[c] = n;
+                unretain(b);
+            } else if ((b = shared[c].pollFirst()) != null) {
+                unretain(b);
+            } else {
+                b = newBuffer(1 << (MIN_SHIFT + c));
+            }
+            b.clear();
+            b.order(ByteOrder.BIG_ENDIAN);
+        }
+        b.limit(capacity);
+        return b;
+    }
+
+    private DirectByteBuffer newBuffer(int cap) {
+        DirectByteBuffer b = new DirectByteBuffer(cap, this);
+        count.increment();
+        totalCapacity.add(cap);
+        return b;
+    }
+
+    private void unretain(DirectByteBuffer b) {
+        retainedCount.decrement();
+        retainedCapacity.addAndGet(-b.capacity());
+    }
+
+    /**
+     * Releases a buffer that was allocated from this pool.  The buffer is
+     * either retained for reuse, or its memory is freed before this method
+     * returns.  The buffer, and any buffers that are views of it, must not be
+     * used after they have been released.
+     *
+     * @param  buffer
+     *         The buffer to release
+     *
+     * @throws  IllegalArgumentException
+     *          If the buffer was not allocated from this pool, for example
+     *          if it is a view of a pooled buffer
+     */
+    public void release(ByteBuffer buffer) {
+        if (!(buffer instanceof DirectByteBuffer)
+            || ((DirectByteBuffer)buffer).attachment() != this)
+            throw new IllegalArgumentException("Buffer not allocated from "
+                                               + this);
+        DirectByteBuffer b = (DirectByteBuffer)buffer;
+        int cap = b.capacity();
+        if (closed) {
+            free(b);
+            trimThreadCache();
+            return;
+        }
+        if (cap <= maxPooledCapacity && retain(b)) {
+            int c = sizeClass(cap);
+            ThreadCache tc = threadCache.get();
+            int n = tc.sizes[c];
+            DirectByteBuffer[] stack = tc.stacks[c];
+            if (n < stack.length) {
+                stack[n] = b;
+                tc.sizes[c] = n + 1;
+                return;
+            }
+            shared[c].offerFirst(b);
+            if (closed)
+                drain();
+            return;
+        }
+        free(b);
+    }
+
+    // Counts a buffer as retained, unless that would exceed the maximum
+    // retained memory
+    private boolean retain(DirectByteBuffer b) {
+        int cap = b.capacity();
+        long rc;
+        while ((rc = retainedCapacity.get()) + cap <= maxRetainedMemory) {
+            if (retainedCapacity.compareAndSet(rc, rc + cap)) {
+                retainedCount.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Frees the memory of a buffer that is not retained
+    private void free(DirectByteBuffer b) {
+        count.decrement();
+        totalCapacity.add(-b.capacity());
+        b.cleaner().clean();
+    }
+
+    // Frees the buffers in the shared cache and the cache of this thread
+    private void drain() {
+        for (ConcurrentLinkedDeque<DirectByteBuffer> q : shared) {
+            DirectByteBuffer b;
+            while ((b = q.pollFirst()) != null) {
+                unretain(b);
+                free(b);
+            }
+        }
+        trimThreadCache();
+    }
+
+    /**
+     * Frees the buffers retained in the cache of the current thread.  A
+     * thread that has released buffers to this pool, and will allocate no
+     * more buffers from it, may invoke this method to free those buffers
+     * without waiting for the garbage collector.
+     */
+    public void trimThreadCache() {
+        ThreadCache tc = threadCache.get();
+        freeCached(tc.stacks, tc.sizes);
+    }
+
+    // Frees the buffers in the stacks of a thread cache
+    private void freeCached(DirectByteBuffer[][] stacks, int[] sizes) {
+        for (int c = 0; c < stacks.length; c++) {
+            DirectByteBuffer[] stack = stacks[c];
+            for (int n = sizes[c]; n > 0; ) {
+                DirectByteBuffer b = stack[--n];
+                stack[n] = null;
+                unretain(b);
+                free(b);
+            }
+            sizes[c] = 0;
+        }
+    }
+
+    /**
+     * Closes this pool.  The buffers retained in the shared cache, and in the
+     * cache of the current thread, are freed.  Other threads free the
+     * buffers in their caches when they next release a buffer to the pool
+     * or invoke {@link #trimThreadCache}.  Buffers released after the pool
+     * is closed are freed, and the pool is no longer reported as a
+     * {@code BufferPoolMXBean}.  Invoking this method on a pool that is
+     * already closed has no effect other than freeing those caches.
+     */
+    public void close() {
+        closed = true;
+        pools.remove(this);
+        drain();
+    }
+
+    /**
+     * Tells whether or not this pool is closed.
+     *
+     * @return  <tt>true</tt> if, and only if, this pool has been closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the name of this pool.
+     *
+     * @return  The name of this pool
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns an estimate of the number of buffers allocated by this pool
+     * whose memory has not been freed, whether in use or retained.
+     *
+     * @return  An estimate of the number of buffers in this pool
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns an estimate of the total capacity of the buffers allocated by
+     * this pool whose memory has not been freed, whether in use or retained.
+     *
+     * @return  An estimate of the total capacity of the buffers in this pool,
+     *          in bytes
+     */
+    public long getTotalCapacity() {
+        return totalCapacity.sum();
+    }
+
+    /**
+     * Returns an estimate of the number of released buffers retained by this
+     * pool for reuse.
+     *
+     * @return  An estimate of the number of retained buffers
+     */
+    public long getRetainedCount() {
+        return retainedCount.sum();
+    }
+
+    /**
+     * Returns an estimate of the total capacity of the released buffers
+     * retained by this pool for reuse.
+     *
+     * @return  An estimate of the total capacity of the retained buffers, in
+     *          bytes
+     */
+    public long getRetainedCapacity() {
+        return retainedCapacity.get();
+    }
+
+    /**
+     * Returns a string summarizing the state of this pool.
+     *
+     * @return  A summary string
+     */
+    public String toString() {
+        return getClass().getName()
+            + "[name=" + name
+            + " count=" + getCount()
+            + " capacity=" + getTotalCapacity()
+            + " retained=" + getRetainedCount()
+            + (closed ? " closed]" : "]");
+    }
+}
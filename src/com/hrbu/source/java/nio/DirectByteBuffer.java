@@ -115,6 +115,13 @@ class DirectByteBuffer
     // Primary constructor
     //
     DirectByteBuffer(int cap) {                   // package-private
+        this(cap, (Object)null);
+    }
+
+    // Invoked by DirectBufferPool to allocate a buffer owned by the given
+    // pool, which is attached so that only that pool accepts the buffer back
+    //
+    DirectByteBuffer(int cap, Object ob) {        // package-private
 
         super(-1, 0, cap, cap);
         boolean pa = VM.isDirectMemoryPageAligned();
@@ -137,7 +144,7 @@ class DirectByteBuffer
             address = base;
         }
         cleaner = Cleaner.create(this, new Deallocator(base, size, cap));
-        att = null;
+        att = ob;
 
 
 
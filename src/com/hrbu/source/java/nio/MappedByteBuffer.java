@@ -26,7 +26,9 @@
 package java.nio;
 
 import java.io.FileDescriptor;
+import sun.misc.Cleaner;
 import sun.misc.Unsafe;
+import sun.nio.ch.DirectBuffer;
 
 
 /**
@@ -38,7 +40,8 @@ import sun.misc.Unsafe;
  * memory-mapped file regions.
  *
  * <p> A mapped byte buffer and the file mapping that it represents remain
- * valid until the buffer itself is garbage-collected.
+ * valid until the buffer itself is garbage-collected, or until the mapping is
+ * explicitly released by the {@link #unmap unmap} method.
  *
  * <p> The content of a mapped byte buffer can change at any time, for example
  * if the content of the corresponding region of the mapped file is changed by
@@ -54,6 +57,10 @@ import sun.misc.Unsafe;
  * avoid the manipulation of a mapped file by this program, or by a
  * concurrently running program, except to read or write the file's content.
  *
+ * <p> The {@link #load(int,int) load} and {@link #force(int,int) force}
+ * methods may be applied to a range of the buffer, so that an application can
+ * control which parts of the mapped file are held in physical memory.
+ *
  * <p> Mapped byte buffers otherwise behave no differently than ordinary direct
  * byte buffers. </p>
  *
@@ -112,6 +119,28 @@ public abstract class MappedByteBuffer
         return (long)capacity() + mappingOffset;
     }
 
+    // Returns the distance (in bytes) of the byte at the given index from the
+    // page aligned address below it.
+    private long mappingOffset(int index) {
+        int ps = Bits.pageSize();
+        long offset = (address + index) % ps;
+        return (offset >= 0) ? offset : (ps + offset);
+    }
+
+    private long mappingAddress(long mappingOffset, int index) {
+        return address + index - mappingOffset;
+    }
+
+    private long mappingLength(long mappingOffset, int length) {
+        return (long)length + mappingOffset;
+    }
+
+    // Checks that the given range lies within the buffer's limit
+    private void checkRange(int index, int length) {
+        if ((index < 0) || (length < 0) || (length > limit() - index))
+            throw new IndexOutOfBoundsException();
+    }
+
     /**
      * Tells whether or not this buffer's content is resident in physical
      * memory.
@@ -157,8 +186,44 @@ public abstract class MappedByteBuffer
         if ((address == 0) || (capacity() == 0))
             return this;
         long offset = mappingOffset();
-        long length = mappingLength(offset);
-        load0(mappingAddress(offset), length);
+        loadPages(mappingAddress(offset), mappingLength(offset));
+        return this;
+    }
+
+    /**
+     * Loads a range of this buffer's content into physical memory.
+     *
+     * <p> This method makes a best effort to ensure that, when it returns,
+     * the content of the given range of this buffer is resident in physical
+     * memory.  Invoking this method may cause some number of page faults and
+     * I/O operations to occur. </p>
+     *
+     * @param  index
+     *         The index of the first byte in the buffer to be loaded; must be
+     *         non-negative and no larger than <tt>limit()</tt>
+     *
+     * @param  length
+     *         The number of bytes to be loaded; must be non-negative and no
+     *         larger than <tt>limit() - index</tt>
+     *
+     * @return  This buffer
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>index</tt> and <tt>length</tt>
+     *          parameters do not hold
+     */
+    public final MappedByteBuffer load(int index, int length) {
+        checkMapped();
+        checkRange(index, length);
+        if ((address == 0) || (length == 0))
+            return this;
+        long offset = mappingOffset(index);
+        loadPages(mappingAddress(offset, index), mappingLength(offset, length));
+        return this;
+    }
+
+    private void loadPages(long address, long length) {
+        load0(address, length);
 
         // Read a byte from each page to bring it into memory. A checksum
         // is computed as we go along to prevent the compiler from otherwise
@@ -166,7 +231,7 @@ public abstract class MappedByteBuffer
         Unsafe unsafe = Unsafe.getUnsafe();
         int ps = Bits.pageSize();
         int count = Bits.pageCount(length);
-        long a = mappingAddress(offset);
+        long a = address;
         byte x = 0;
         for (int i=0; i<count; i++) {
             x ^= unsafe.getByte(a);
@@ -174,8 +239,6 @@ public abstract class MappedByteBuffer
         }
         if (unused != 0)
             unused = x;
-
-        return this;
     }
 
     /**
@@ -205,6 +268,81 @@ public abstract class MappedByteBuffer
         return this;
     }
 
+    /**
+     * Forces any changes made to a range of this buffer's content to be
+     * written to the storage device containing the mapped file.
+     *
+     * <p> If the file mapped into this buffer resides on a local storage
+     * device then when this method returns it is guaranteed that all changes
+     * made to the given range of the buffer since it was created, or since
+     * this method or the {@link #force() force()} method was last invoked,
+     * will have been written to that device.  Changes outside the range may
+     * also be written.
+     *
+     * <p> If the file does not reside on a local device then no such guarantee
+     * is made.
+     *
+     * <p> If this buffer was not mapped in read/write mode ({@link
+     * java.nio.channels.FileChannel.MapMode#READ_WRITE}) then invoking this
+     * method has no effect. </p>
+     *
+     * @param  index
+     *         The index of the first byte in the buffer to be written back;
+     *         must be non-negative and no larger than <tt>limit()</tt>
+     *
+     * @param  length
+     *         The number of bytes to be written back; must be non-negative
+     *         and no larger than <tt>limit() - index</tt>
+     *
+     * @return  This buffer
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>index</tt> and <tt>length</tt>
+     *          parameters do not hold
+     */
+    public final MappedByteBuffer force(int index, int length) {
+        checkMapped();
+        checkRange(index, length);
+        if ((address != 0) && (length != 0)) {
+            long offset = mappingOffset(index);
+            force0(fd, mappingAddress(offset, index),
+                   mappingLength(offset, length));
+        }
+        return this;
+    }
+
+    /**
+     * Unmaps this buffer, releasing the address space and other operating
+     * system resources held by its mapping without waiting for the buffer to
+     * be garbage-collected.
+     *
+     * <p> This buffer is invalidated before the mapping is released: its
+     * position, limit and capacity are set to zero and its mark is discarded,
+     * so that any subsequent attempt to read or write its content throws an
+     * exception, and the methods of this class have no effect.  Changes made
+     * to the buffer's content are not forced to the storage device, although
+     * the operating system may continue to write them to the file.
+     *
+     * <p> The buffer must not be accessed concurrently by other threads while
+     * it is unmapped, and buffers that are views of this buffer, such as those
+     * created by {@link #slice slice} or {@link #duplicate duplicate}, must
+     * not be used after it is unmapped.  Neither can be detected, and the
+     * effects of such accesses are unspecified; they may include the
+     * abnormal termination of the Java virtual machine.  Invoking this method
+     * on a buffer that has already been unmapped has no effect. </p>
+     *
+     * @throws  UnsupportedOperationException
+     *          If this buffer is a view of a mapped byte buffer rather than
+     *          the buffer created by mapping the file
+     */
+    public final void unmap() {
+        checkMapped();
+        Cleaner cl = ((DirectBuffer)this).cleaner();
+        truncate();
+        if (cl != null)
+            cl.clean();
+    }
+
     private native boolean isLoaded0(long address, long length, int pageCount);
     private native void load0(long address, long length);
     private native void force0(FileDescriptor fd, long address, long length);
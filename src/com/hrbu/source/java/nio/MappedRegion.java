@@ -0,0 +1,940 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import sun.misc.Unsafe;
+
+
+/**
+ * A memory-mapped region of a file that is indexed by <tt>long</tt> values,
+ * and so may be larger than the 2<sup>31</sup>&nbsp;-&nbsp;1 bytes that a
+ * single {@link MappedByteBuffer} can hold.
+ *
+ * <p> A mapped region is created by invoking the {@link #map map} method with
+ * an open {@link FileChannel}.  It provides absolute <i>get</i> and
+ * <i>put</i> methods for bytes and primitive values at any index of the
+ * region, bulk methods that copy bytes between the region and arrays or
+ * buffers, and the {@link #slice slice} method that returns a direct byte
+ * buffer sharing the content of a window of the region of up to
+ * 2<sup>30</sup> bytes.  Unlike a buffer, a region has no position, limit
+ * or mark.
+ *
+ * <p> Each access checks that the bytes accessed lie within the region, with
+ * a single comparison of the index against the region's size.  Within loops
+ * over the region, such checks can typically be hoisted or eliminated by the
+ * just-in-time compiler.
+ *
+ * <p> A region is mapped as a sequence of overlapping mapped byte buffers,
+ * or <i>segments</i>, starting every 2<sup>30</sup> bytes.  Each segment
+ * covers up to 2<sup>31</sup>&nbsp;-&nbsp;1 bytes, so that any primitive
+ * value or window accessed through the region lies within a single segment,
+ * at the cost of reserving address space for about twice the size of the
+ * region.  The segments map the same pages of the file, so changes made
+ * through one are visible through the others, which is why regions cannot
+ * be mapped in {@link FileChannel.MapMode#PRIVATE private} mode.
+ *
+ * <p> The content of a region is subject to the same considerations as that
+ * of a {@link MappedByteBuffer}: it may be changed at any time by other
+ * programs, and parts of it may become inaccessible if the file is
+ * truncated.  The mapping remains valid until the region is garbage-collected
+ * or explicitly {@link #unmap unmapped}.
+ *
+ * <p> The get and put methods of a region may be invoked by multiple
+ * concurrent threads, with the same guarantees as for accesses to a direct
+ * buffer; that is, none beyond those given by the underlying memory.  Its
+ * {@link #order(ByteOrder) byte order} should be set before it is shared.
+ *
+ * @see FileChannel#map
+ */
+
+public final class MappedRegion {
+
+    // Cached unsafe-access object
+    private static final Unsafe unsafe = Bits.unsafe();
+
+    // Cached array base offset
+    private static final long arrayBaseOffset =
+        (long)unsafe.arrayBaseOffset(byte[].class);
+
+    // Cached unaligned-access capability
+    private static final boolean unaligned = Bits.unaligned();
+
+    // Segments start every 1 << STRIDE_SHIFT bytes
+    private static final int STRIDE_SHIFT = 30;
+    private static final long STRIDE = 1L << STRIDE_SHIFT;
+    private static final long STRIDE_MASK = STRIDE - 1;
+
+    /**
+     * The maximum length of a window returned by {@link #slice slice},
+     * 2<sup>30</sup> bytes.
+     */
+    public static final int MAX_SLICE_LENGTH = 1 << STRIDE_SHIFT;
+
+    // The segments, keeping their mappings alive
+    private MappedByteBuffer[] segments;
+
+    // The base addresses of the segments, or null once unmapped
+    private long[] addresses;
+
+    private final long size;
+    private final boolean readOnly;
+
+    private boolean bigEndian = true;
+    private boolean nativeByteOrder
+        = (Bits.byteOrder() == ByteOrder.BIG_ENDIAN);
+
+    private MappedRegion(MappedByteBuffer[] segments, long size,
+                         boolean readOnly)
+    {
+        this.segments = segments;
+        this.size = size;
+        this.readOnly = readOnly;
+        long[] addresses = new long[segments.length];
+        for (int i = 0; i < segments.length; i++)
+            addresses[i] = segments[i].address;
+        this.addresses = addresses;
+    }
+
+    /**
+     * Maps a region of the given channel's file directly into memory.
+     *
+     * <p> The region is mapped as if by invoking the channel's {@link
+     * FileChannel#map map} method for each of its segments, and the
+     * requirements and effects of the mode are the same.  If the region
+     * extends beyond the end of the file in {@link
+     * FileChannel.MapMode#READ_WRITE READ_WRITE} mode, the file is extended.
+     *
+     * @param  channel
+     *         The channel of the file to map
+     *
+     * @param  mode
+     *         One of the constants {@link FileChannel.MapMode#READ_ONLY
+     *         READ_ONLY} or {@link FileChannel.MapMode#READ_WRITE READ_WRITE}
+     *
+     * @param  position
+     *         The position within the file at which the mapped region
+     *         is to start; must be non-negative
+     *
+     * @param  size
+     *         The size of the region to be mapped; must be non-negative
+     *
+     * @return  The mapped region
+     *
+     * @throws  IllegalArgumentException
+     *          If the preconditions on the parameters do not hold
+     *
+     * @throws  UnsupportedOperationException
+     *          If the mode is {@link FileChannel.MapMode#PRIVATE PRIVATE}
+     *
+     * @throws  java.nio.channels.NonReadableChannelException
+     *          If the channel was not opened for reading
+     *
+     * @throws  java.nio.channels.NonWritableChannelException
+     *          If the mode is <tt>READ_WRITE</tt> but the channel was not
+     *          opened for both reading and writing
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     */
+    public static MappedRegion map(FileChannel channel,
+                                   FileChannel.MapMode mode,
+                                   long position, long size)
+        throws IOException
+    {
+        if (mode == null)
+            throw new NullPointerException();
+        if (mode == FileChannel.MapMode.PRIVATE)
+            throw new UnsupportedOperationException("Private mode");
+        if (position < 0L)
+            throw new IllegalArgumentException("Negative position");
+        if (size < 0L)
+            throw new IllegalArgumentException("Negative size");
+        if (position + size < 0)
+            throw new IllegalArgumentException("Position + size overflow");
+        long n = (size == 0L) ? 1L : ((size - 1) >>> STRIDE_SHIFT) + 1;
+        if (n > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Size too large");
+
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int)n];
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                long base = (long)i << STRIDE_SHIFT;
+                long len = Math.min(size - base, Integer.MAX_VALUE);
+                segments[i] = channel.map(mode, position + base, len);
+            }
+        } catch (IOException | RuntimeException | Error x) {
+            unmap(segments);
+            throw x;
+        }
+        return new MappedRegion(segments, size,
+                                mode == FileChannel.MapMode.READ_ONLY);
+    }
+
+    /**
+     * Returns the size of this region.
+     *
+     * @return  The size of this region, in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Tells whether or not this region is read-only.
+     *
+     * @return  <tt>true</tt> if, and only if, this region was mapped in
+     *          {@link FileChannel.MapMode#READ_ONLY READ_ONLY} mode
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Retrieves this region's byte order.
+     *
+     * <p> The byte order is used when reading or writing multibyte values,
+     * and when creating windows of this region.  The order of a newly-created
+     * region is always {@link ByteOrder#BIG_ENDIAN BIG_ENDIAN}. </p>
+     *
+     * @return  This region's byte order
+     */
+    public ByteOrder order() {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * Modifies this region's byte order.
+     *
+     * @param  bo
+     *         The new byte order,
+     *         either {@link ByteOrder#BIG_ENDIAN BIG_ENDIAN}
+     *         or {@link ByteOrder#LITTLE_ENDIAN LITTLE_ENDIAN}
+     *
+     * @return  This region
+     */
+    public MappedRegion order(ByteOrder bo) {
+        bigEndian = (bo == ByteOrder.BIG_ENDIAN);
+        nativeByteOrder =
+            (bigEndian == (Bits.byteOrder() == ByteOrder.BIG_ENDIAN));
+        return this;
+    }
+
+    // -- Index checks --
+
+    // Returns the address of the n bytes starting at the given index
+    private long ix(long i, long n) {
+        long[] a = addresses;
+        if (a == null)
+            throw new IllegalStateException("Region unmapped");
+        if ((i < 0) || (i > size - n))
+            throw new IndexOutOfBoundsException("Index: " + i
+                                                + ", Size: " + size);
+        return a[(int)(i >>> STRIDE_SHIFT)] + (i & STRIDE_MASK);
+    }
+
+    // Returns the address of the n bytes starting at the given index, for
+    // writing
+    private long ixw(long i, long n) {
+        if (readOnly)
+            throw new ReadOnlyBufferException();
+        return ix(i, n);
+    }
+
+    // -- Single values --
+
+    /**
+     * Reads the byte at the given index.
+     *
+     * @param  index
+     *         The index from which the byte will be read
+     *
+     * @return  The byte at the given index
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public byte get(long index) {
+        return unsafe.getByte(ix(index, 1));
+    }
+
+    /**
+     * Writes the given byte into this region at the given index.
+     *
+     * @param  index
+     *         The index at which the byte will be written
+     *
+     * @param  b
+     *         The byte value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size
+     *
+     * @throws  ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion put(long index, byte b) {
+        unsafe.putByte(ixw(index, 1), b);
+        return this;
+    }
+
+    /**
+     * Reads two bytes at the given index, composing them into a short value
+     * according to the current byte order.
+     *
+     * @param  index
+     *         The index from which the bytes will be read
+     *
+     * @return  The short value at the given index
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus one
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public short getShort(long index) {
+        long a = ix(index, 2);
+        if (unaligned) {
+            short x = unsafe.getShort(a);
+            return (nativeByteOrder ? x : Bits.swap(x));
+        }
+        return Bits.getShort(a, bigEndian);
+    }
+
+    /**
+     * Writes two bytes containing the given short value, in the current byte
+     * order, into this region at the given index.
+     *
+     * @param  index
+     *         The index at which the bytes will be written
+     *
+     * @param  value
+     *         The short value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus one
+     *
+     * @throws  ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion putShort(long index, short value) {
+        long a = ixw(index, 2);
+        if (unaligned) {
+            unsafe.putShort(a, (nativeByteOrder ? value : Bits.swap(value)));
+        } else {
+            Bits.putShort(a, value, bigEndian);
+        }
+        return this;
+    }
+
+    /**
+     * Reads four bytes at the given index, composing them into an int value
+     * according to the current byte order.
+     *
+     * @param  index
+     *         The index from which the bytes will be read
+     *
+     * @return  The int value at the given index
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus three
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public int getInt(long index) {
+        long a = ix(index, 4);
+        if (unaligned) {
+            int x = unsafe.getInt(a);
+            return (nativeByteOrder ? x : Bits.swap(x));
+        }
+        return Bits.getInt(a, bigEndian);
+    }
+
+    /**
+     * Writes four bytes containing the given int value, in the current byte
+     * order, into this region at the given index.
+     *
+     * @param  index
+     *         The index at which the bytes will be written
+     *
+     * @param  value
+     *         The int value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus three
+     *
+     * @throws  ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion putInt(long index, int value) {
+        long a = ixw(index, 4);
+        if (unaligned) {
+            unsafe.putInt(a, (nativeByteOrder ? value : Bits.swap(value)));
+        } else {
+            Bits.putInt(a, value, bigEndian);
+        }
+        return this;
+    }
+
+    /**
+     * Reads eight bytes at the given index, composing them into a long value
+     * according to the current byte order.
+     *
+     * @param  index
+     *         The index from which the bytes will be read
+     *
+     * @return  The long value at the given index
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus seven
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public long getLong(long index) {
+        long a = ix(index, 8);
+        if (unaligned) {
+            long x = unsafe.getLong(a);
+            return (nativeByteOrder ? x : Bits.swap(x));
+        }
+        return Bits.getLong(a, bigEndian);
+    }
+
+    /**
+     * Writes eight bytes containing the given long value, in the current byte
+     * order, into this region at the given index.
+     *
+     * @param  index
+     *         The index at which the bytes will be written
+     *
+     * @param  value
+     *         The long value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus seven
+     *
+     * @throws  ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion putLong(long index, long value) {
+        long a = ixw(index, 8);
+        if (unaligned) {
+            unsafe.putLong(a, (nativeByteOrder ? value : Bits.swap(value)));
+        } else {
+            Bits.putLong(a, value, bigEndian);
+        }
+        return this;
+    }
+
+    /**
+     * Reads four bytes at the given index, composing them into a float value
+     * according to the current byte order.
+     *
+     * @param  index
+     *         The index from which the bytes will be read
+     *
+     * @return  The float value at the given index
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus three
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public float getFloat(long index) {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    /**
+     * Writes four bytes containing the given float value, in the current byte
+     * order, into this region at the given index.
+     *
+     * @param  index
+     *         The index at which the bytes will be written
+     *
+     * @param  value
+     *         The float value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus three
+     *
+     * @throws  ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion putFloat(long index, float value) {
+        return putInt(index, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Reads eight bytes at the given index, composing them into a double
+     * value according to the current byte order.
+     *
+     * @param  index
+     *         The index from which the bytes will be read
+     *
+     * @return  The double value at the given index
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus seven
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public double getDouble(long index) {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    /**
+     * Writes eight bytes containing the given double value, in the current
+     * byte order, into this region at the given index.
+     *
+     * @param  index
+     *         The index at which the bytes will be written
+     *
+     * @param  value
+     *         The double value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>index</tt> is negative or not smaller than the
+     *          region's size, minus seven
+     *
+     * @throws  ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion putDouble(long index, double value) {
+        return putLong(index, Double.doubleToRawLongBits(value));
+    }
+
+    // -- Bulk operations --
+
+    /**
+     * Copies bytes from this region into the given array.
+     *
+     * @param  index
+     *         The index in this region of the first byte to be copied
+     *
+     * @param  dst
+     *         The array into which bytes are to be written
+     *
+     * @param  offset
+     *         The offset within the array of the first byte to be written;
+     *         must be non-negative and no larger than <tt>dst.length</tt>
+     *
+     * @param  length
+     *         The number of bytes to be copied; must be non-negative and no
+     *         larger than <tt>dst.length - offset</tt>
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>offset</tt> and <tt>length</tt>
+     *          parameters do not hold, or if <tt>length</tt> bytes starting
+     *          at <tt>index</tt> do not lie within this region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion get(long index, byte[] dst, int offset, int length) {
+        Buffer.checkBounds(offset, length, dst.length);
+        ix(index, length);
+        while (length > 0) {
+            int n = (int)Math.min(length, STRIDE - (index & STRIDE_MASK));
+            Bits.copyToArray(ix(index, n), dst, arrayBaseOffset,
+                             offset, n);
+            index += n;
+            offset += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Copies bytes from the given array into this region.
+     *
+     * @param  index
+     *         The index in this region at which the first byte is to be
+     *         written
+     *
+     * @param  src
+     *         The array from which bytes are to be read
+     *
+     * @param  offset
+     *         The offset within the array of the first byte to be read;
+     *         must be non-negative and no larger than <tt>src.length</tt>
+     *
+     * @param  length
+     *         The number of bytes to be copied; must be non-negative and no
+     *         larger than <tt>src.length - offset</tt>
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>offset</tt> and <tt>length</tt>
+     *          parameters do not hold, or if <tt>length</tt> bytes starting
+     *          at <tt>index</tt> do not lie within this region
+     *
+     * @throws  ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion put(long index, byte[] src, int offset, int length) {
+        Buffer.checkBounds(offset, length, src.length);
+        ixw(index, length);
+        while (length > 0) {
+            int n = (int)Math.min(length, STRIDE - (index & STRIDE_MASK));
+            Bits.copyFromArray(src, arrayBaseOffset, offset,
+                               ix(index, n), n);
+            index += n;
+            offset += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Copies bytes from this region into the given buffer.  The bytes
+     * remaining in the buffer are written, and its position is advanced by
+     * their number.
+     *
+     * @param  index
+     *         The index in this region of the first byte to be copied
+     *
+     * @param  dst
+     *         The buffer into which bytes are to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the bytes remaining in the buffer, starting at
+     *          <tt>index</tt>, do not lie within this region
+     *
+     * @throws  ReadOnlyBufferException
+     *          If the buffer is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion get(long index, ByteBuffer dst) {
+        if (dst.isReadOnly())
+            throw new ReadOnlyBufferException();
+        long length = dst.remaining();
+        ix(index, length);
+        while (length > 0) {
+            int n = (int)Math.min(length, STRIDE - (index & STRIDE_MASK));
+            dst.put(window(index, n));
+            index += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Copies bytes from the given buffer into this region.  The bytes
+     * remaining in the buffer are read, and its position is advanced by their
+     * number.
+     *
+     * @param  index
+     *         The index in this region at which the first byte is to be
+     *         written
+     *
+     * @param  src
+     *         The buffer from which bytes are to be read
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the bytes remaining in the buffer, starting at
+     *          <tt>index</tt>, do not lie within this region
+     *
+     * @throws  ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion put(long index, ByteBuffer src) {
+        long length = src.remaining();
+        ixw(index, length);
+        while (length > 0) {
+            int n = (int)Math.min(length, STRIDE - (index & STRIDE_MASK));
+            int lim = src.limit();
+            src.limit(src.position() + n);
+            try {
+                window(index, n).put(src);
+            } finally {
+                src.limit(lim);
+            }
+            index += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Creates a new direct byte buffer whose content is a shared window of
+     * this region.
+     *
+     * <p> The new buffer's content will start at the given index of this
+     * region, and its capacity and limit will be the given length.  Its
+     * position will be zero, its mark will be undefined, and its byte order
+     * will be that of this region.  The buffer will be read-only if, and only
+     * if, this region is read-only.  Changes to this region's content will be
+     * visible in the new buffer, and vice versa.
+     *
+     * <p> The buffer must not be used after this region is {@link #unmap
+     * unmapped}. </p>
+     *
+     * @param  index
+     *         The index in this region of the first byte of the window
+     *
+     * @param  length
+     *         The length of the window; must be non-negative and no larger
+     *         than {@link #MAX_SLICE_LENGTH}
+     *
+     * @return  The new byte buffer
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>length</tt> is negative or larger than
+     *          <tt>MAX_SLICE_LENGTH</tt>, or if <tt>length</tt> bytes
+     *          starting at <tt>index</tt> do not lie within this region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public ByteBuffer slice(long index, int length) {
+        if ((length < 0) || (length > MAX_SLICE_LENGTH))
+            throw new IndexOutOfBoundsException("Length: " + length);
+        ix(index, length);
+        ByteBuffer bb = window(index, length);
+        if (readOnly)
+            bb = bb.asReadOnlyBuffer();
+        return bb.order(order());
+    }
+
+    // Returns a buffer viewing the given range, which must lie within this
+    // region and have a length of no more than STRIDE
+    private ByteBuffer window(long index, int length) {
+        MappedByteBuffer seg = segments[(int)(index >>> STRIDE_SHIFT)];
+        int off = (int)(index & STRIDE_MASK);
+        ByteBuffer bb = seg.duplicate();
+        bb.limit(off + length).position(off);
+        return bb.slice();
+    }
+
+    // -- Mapping operations --
+
+    /**
+     * Loads this region's content into physical memory, as if by invoking
+     * {@link MappedByteBuffer#load() load} on a mapped byte buffer of the
+     * region.
+     *
+     * @return  This region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion load() {
+        return load(0, size);
+    }
+
+    /**
+     * Loads a range of this region's content into physical memory, as if by
+     * invoking {@link MappedByteBuffer#load(int,int) load} on a mapped byte
+     * buffer of the region.
+     *
+     * @param  index
+     *         The index of the first byte to be loaded
+     *
+     * @param  length
+     *         The number of bytes to be loaded
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>length</tt> is negative, or if <tt>length</tt> bytes
+     *          starting at <tt>index</tt> do not lie within this region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion load(long index, long length) {
+        checkRange(index, length);
+        while (length > 0) {
+            int n = (int)Math.min(length, STRIDE - (index & STRIDE_MASK));
+            segment(index).load((int)(index & STRIDE_MASK), n);
+            index += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Forces any changes made to this region's content to be written to the
+     * storage device containing the mapped file, as if by invoking {@link
+     * MappedByteBuffer#force() force} on a mapped byte buffer of the region.
+     *
+     * @return  This region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion force() {
+        return force(0, size);
+    }
+
+    /**
+     * Forces any changes made to a range of this region's content to be
+     * written to the storage device containing the mapped file, as if by
+     * invoking {@link MappedByteBuffer#force(int,int) force} on a mapped
+     * byte buffer of the region.
+     *
+     * @param  index
+     *         The index of the first byte to be written back
+     *
+     * @param  length
+     *         The number of bytes to be written back
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>length</tt> is negative, or if <tt>length</tt> bytes
+     *          starting at <tt>index</tt> do not lie within this region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedRegion force(long index, long length) {
+        checkRange(index, length);
+        while (length > 0) {
+            int n = (int)Math.min(length, STRIDE - (index & STRIDE_MASK));
+            segment(index).force((int)(index & STRIDE_MASK), n);
+            index += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    private void checkRange(long index, long length) {
+        if (length < 0)
+            throw new IndexOutOfBoundsException("Length: " + length);
+        ix(index, length);
+    }
+
+    private MappedByteBuffer segment(long index) {
+        return segments[(int)(index >>> STRIDE_SHIFT)];
+    }
+
+    /**
+     * Unmaps this region, releasing its mappings without waiting for it to
+     * be garbage-collected, as if by invoking {@link MappedByteBuffer#unmap
+     * unmap} on each of its segments.
+     *
+     * <p> Once this region has been unmapped, any attempt to access its
+     * content throws {@link IllegalStateException}.  This region must not be
+     * accessed concurrently by other threads while it is unmapped, and
+     * windows created by {@link #slice slice} must not be used after it is
+     * unmapped; the effects of such accesses are unspecified, and may include
+     * the abnormal termination of the Java virtual machine.  Invoking this
+     * method on a region that has already been unmapped has no effect. </p>
+     */
+    public void unmap() {
+        MappedByteBuffer[] segs = segments;
+        if (segs == null)
+            return;
+        addresses = null;
+        segments = null;
+        unmap(segs);
+    }
+
+    private static void unmap(MappedByteBuffer[] segments) {
+        for (MappedByteBuffer seg : segments) {
+            if (seg != null)
+                seg.unmap();
+        }
+    }
+
+    /**
+     * Returns a string summarizing the state of this region.
+     *
+     * @return  A summary string
+     */
+    public String toString() {
+        return getClass().getName()
+            + "[size=" + size
+            + " segments=" + ((segments == null) ? 0 : segments.length)
+            + (readOnly ? " readOnly" : "")
+            + ((addresses == null) ? " unmapped]" : "]");
+    }
+}
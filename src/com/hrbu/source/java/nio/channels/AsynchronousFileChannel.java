@@ -30,8 +30,12 @@ import java.nio.file.attribute.FileAttribute;
 import java.nio.file.spi.*;
 import java.nio.ByteBuffer;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Collections;
@@ -710,6 +714,180 @@ public abstract class AsynchronousFileChannel
      */
     public abstract Future<Integer> read(ByteBuffer dst, long position);
 
+    /**
+     * Reads sequences of bytes from this channel into the given buffers,
+     * each starting at its own file position, as a single batch.
+     *
+     * <p> This method initiates one positional read for each pair of buffer
+     * and position, as if by invoking {@link
+     * #read(ByteBuffer,long,Object,CompletionHandler)}, and completes the
+     * given handler once when every read in the batch has completed. The
+     * result is the total number of bytes read into all of the buffers;
+     * callers that need per-buffer counts should examine the position of
+     * each buffer. A buffer whose file position, as given in {@code
+     * positions}, is greater than or equal to the file's size at the time
+     * that its read is attempted receives no bytes.
+     *
+     * <p> If any read in the batch fails then the handler's {@link
+     * CompletionHandler#failed failed} method is invoked with the first
+     * exception to be reported, and the exceptions of any other failing reads
+     * are added to it as {@linkplain Throwable#addSuppressed suppressed}
+     * exceptions. The handler is not invoked until all of the reads have
+     * completed, so no buffer is accessed after it is invoked. Where the batch
+     * is empty the handler is invoked by the initiating thread.
+     *
+     * @implSpec
+     * The default implementation initiates the individual reads one after
+     * another and counts their completions, so that the reads execute in the
+     * manner of the channel's thread pool. Implementations are encouraged to
+     * override this method so as to submit the whole batch to the operating
+     * system at once, for example by means of a submission queue, when the
+     * platform supports it.
+     *
+     * @param   <A>
+     *          The type of the attachment
+     * @param   dsts
+     *          The buffers into which bytes are to be transferred
+     * @param   positions
+     *          The file positions at which the transfers are to begin, one for
+     *          each buffer; each must be non-negative
+     * @param   attachment
+     *          The object to attach to the I/O operation; can be {@code null}
+     * @param   handler
+     *          The handler for consuming the result
+     *
+     * @throws  IllegalArgumentException
+     *          If the two arrays differ in length, any position is negative
+     *          or any buffer is read-only
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     */
+    public <A> void read(ByteBuffer[] dsts,
+                         long[] positions,
+                         A attachment,
+                         CompletionHandler<Long,? super A> handler)
+    {
+        if (handler == null)
+            throw new NullPointerException("'handler' is null");
+        FileChannel.checkBatch(dsts, positions);
+        int n = dsts.length;
+        if (n == 0) {
+            handler.completed(0L, attachment);
+            return;
+        }
+        BatchRead<A> batch = new BatchRead<A>(n, attachment, handler);
+        for (int i = 0; i < n; i++) {
+            try {
+                read(dsts[i], positions[i], null, batch);
+            } catch (RuntimeException | Error x) {
+                // nothing in flight yet, so report to the caller directly
+                if (i == 0)
+                    throw x;
+                batch.abandon(x, n - i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads sequences of bytes from this channel into the given buffers,
+     * each starting at its own file position, as a single batch.
+     *
+     * <p> This method initiates the batch in the same manner as the {@link
+     * #read(ByteBuffer[],long[],Object,CompletionHandler)} method and returns
+     * a {@code Future} representing its pending result. The {@code Future}'s
+     * {@link Future#get() get} method returns the total number of bytes read
+     * into all of the buffers. Cancelling the {@code Future} does not cancel
+     * the reads that are in progress.
+     *
+     * @param   dsts
+     *          The buffers into which bytes are to be transferred
+     * @param   positions
+     *          The file positions at which the transfers are to begin, one for
+     *          each buffer; each must be non-negative
+     *
+     * @return  A {@code Future} object representing the pending result
+     *
+     * @throws  IllegalArgumentException
+     *          If the two arrays differ in length, any position is negative
+     *          or any buffer is read-only
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     */
+    public Future<Long> read(ByteBuffer[] dsts, long[] positions) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        read(dsts, positions, result,
+             new CompletionHandler<Long,CompletableFuture<Long>>() {
+                 public void completed(Long n, CompletableFuture<Long> f) {
+                     f.complete(n);
+                 }
+                 public void failed(Throwable exc, CompletableFuture<Long> f) {
+                     f.completeExceptionally(exc);
+                 }
+             });
+        return result;
+    }
+
+    /**
+     * Counts the completions of the reads in a batch and completes the
+     * caller's handler when the last of them has finished.
+     */
+    private static final class BatchRead<A>
+        implements CompletionHandler<Integer,Void>
+    {
+        private final AtomicInteger remaining;
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicReference<Throwable> failure =
+            new AtomicReference<>();
+        private final A attachment;
+        private final CompletionHandler<Long,? super A> handler;
+
+        BatchRead(int count, A attachment,
+                  CompletionHandler<Long,? super A> handler) {
+            this.remaining = new AtomicInteger(count);
+            this.attachment = attachment;
+            this.handler = handler;
+        }
+
+        public void completed(Integer n, Void ignore) {
+            if (n > 0)
+                total.addAndGet(n);
+            countDown(1);
+        }
+
+        public void failed(Throwable exc, Void ignore) {
+            record(exc);
+            countDown(1);
+        }
+
+        /**
+         * Records a failure to initiate a read, accounting for it and for
+         * the reads after it that were never initiated.
+         */
+        void abandon(Throwable exc, int unsubmitted) {
+            record(exc);
+            countDown(unsubmitted);
+        }
+
+        private void record(Throwable exc) {
+            if (!failure.compareAndSet(null, exc)) {
+                Throwable first = failure.get();
+                if (first != exc)
+                    first.addSuppressed(exc);
+            }
+        }
+
+        private void countDown(int count) {
+            if (remaining.addAndGet(-count) != 0)
+                return;
+            Throwable exc = failure.get();
+            if (exc == null)
+                handler.completed(total.get(), attachment);
+            else
+                handler.failed(exc, attachment);
+        }
+    }
+
     /**
      * Writes a sequence of bytes to this channel from the given buffer, starting
      * at the given file position.
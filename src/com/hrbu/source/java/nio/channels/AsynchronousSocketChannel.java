@@ -26,6 +26,7 @@
 package java.nio.channels;
 
 import java.nio.channels.spi.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.Future;
 import java.io.IOException;
@@ -665,6 +666,214 @@ public abstract class AsynchronousSocketChannel
                                    A attachment,
                                    CompletionHandler<Long,? super A> handler);
 
+    /**
+     * Transfers bytes from the given file channel to this channel.
+     *
+     * <p> This method initiates an asynchronous operation that writes up to
+     * {@code count} bytes to this channel, taken from the given file starting
+     * at the given file position. The {@code handler} parameter is a
+     * completion handler that is invoked when the transfer completes (or
+     * fails). The result passed to the completion handler is the number of
+     * bytes transferred, which is less than {@code count} only if the end of
+     * the file was reached first; no bytes are transferred if the given
+     * position is greater than or equal to the file's current size. The
+     * file channel's position is not modified.
+     *
+     * <p> Unlike a {@link #write(ByteBuffer,Object,CompletionHandler) write},
+     * the transfer does not complete until all of the requested bytes have
+     * been written, and a write operation is in progress on this channel
+     * until it does. If the transfer fails then some bytes may already have
+     * been written to this channel.
+     *
+     * @implSpec
+     * The default implementation reads the file, by means of positional
+     * reads, into a succession of direct buffers that it writes to this
+     * channel. The reads are performed by the initiating thread and by the
+     * threads that complete the writes. Implementations are encouraged to
+     * override this method so as to move the bytes from the file system cache
+     * to the socket directly, without copying them, where the operating
+     * system supports it.
+     *
+     * @param   <A>
+     *          The type of the attachment
+     * @param   src
+     *          The file channel from which bytes are to be transferred
+     * @param   position
+     *          The file position at which the transfer is to begin;
+     *          must be non-negative
+     * @param   count
+     *          The maximum number of bytes to be transferred;
+     *          must be non-negative
+     * @param   attachment
+     *          The object to attach to the I/O operation; can be {@code null}
+     * @param   handler
+     *          The handler for consuming the result
+     *
+     * @throws  IllegalArgumentException
+     *          If the preconditions on the parameters do not hold
+     * @throws  WritePendingException
+     *          If a write operation is already in progress on this channel
+     * @throws  NotYetConnectedException
+     *          If this channel is not yet connected
+     * @throws  ShutdownChannelGroupException
+     *          If the channel group has terminated
+     */
+    public <A> void transferFrom(FileChannel src,
+                                 long position,
+                                 long count,
+                                 A attachment,
+                                 CompletionHandler<Long,? super A> handler)
+    {
+        if (src == null || handler == null)
+            throw new NullPointerException();
+        if (position < 0)
+            throw new IllegalArgumentException("Negative position");
+        if (count < 0)
+            throw new IllegalArgumentException("Negative count");
+        new FileTransfer<A>(this, src, position, count, attachment, handler)
+            .start();
+    }
+
+    /**
+     * Transfers bytes from the given file channel to this channel.
+     *
+     * <p> This method initiates the transfer in the same manner as the {@link
+     * #transferFrom(FileChannel,long,long,Object,CompletionHandler)} method,
+     * and returns a {@code Future} representing its pending result. The
+     * {@code Future}'s {@link Future#get() get} method returns the number of
+     * bytes transferred.
+     *
+     * @param   src
+     *          The file channel from which bytes are to be transferred
+     * @param   position
+     *          The file position at which the transfer is to begin;
+     *          must be non-negative
+     * @param   count
+     *          The maximum number of bytes to be transferred;
+     *          must be non-negative
+     *
+     * @return  A {@code Future} object representing the pending result
+     *
+     * @throws  IllegalArgumentException
+     *          If the preconditions on the parameters do not hold
+     * @throws  WritePendingException
+     *          If a write operation is already in progress on this channel
+     * @throws  NotYetConnectedException
+     *          If this channel is not yet connected
+     */
+    public Future<Long> transferFrom(FileChannel src, long position, long count) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        transferFrom(src, position, count, result,
+                     new CompletionHandler<Long,CompletableFuture<Long>>() {
+                         public void completed(Long n, CompletableFuture<Long> f) {
+                             f.complete(n);
+                         }
+                         public void failed(Throwable exc, CompletableFuture<Long> f) {
+                             f.completeExceptionally(exc);
+                         }
+                     });
+        return result;
+    }
+
+    /**
+     * A transfer from a file by the default implementation of {@code
+     * transferFrom}: alternately fills a buffer from the file and writes it
+     * to the channel, continuing from the completion of each write.
+     */
+    private static final class FileTransfer<A>
+        implements CompletionHandler<Integer,Void>
+    {
+        private final AsynchronousSocketChannel channel;
+        private final FileChannel src;
+        private final long position;
+        private final long count;
+        private final A attachment;
+        private final CompletionHandler<Long,? super A> handler;
+        private ByteBuffer buffer;
+        private long transferred;
+
+        FileTransfer(AsynchronousSocketChannel channel, FileChannel src,
+                     long position, long count, A attachment,
+                     CompletionHandler<Long,? super A> handler)
+        {
+            this.channel = channel;
+            this.src = src;
+            this.position = position;
+            this.count = count;
+            this.attachment = attachment;
+            this.handler = handler;
+        }
+
+        /**
+         * Initiates the first write, letting the exceptions that reject the
+         * operation propagate to the caller.
+         */
+        void start() {
+            if (count == 0) {
+                handler.completed(0L, attachment);
+                return;
+            }
+            buffer = TransferBuffers.get(count);
+            IOException exc = null;
+            try {
+                if (fill()) {
+                    channel.write(buffer, null, this);
+                    return;
+                }
+            } catch (IOException x) {
+                exc = x;
+            } catch (RuntimeException | Error x) {
+                TransferBuffers.release(buffer);
+                throw x;
+            }
+            finish(exc);
+        }
+
+        /**
+         * Reads the next bytes of the file into the buffer, returning
+         * {@code false} at the end of the file.
+         */
+        private boolean fill() throws IOException {
+            buffer.clear();
+            long remaining = count - transferred;
+            if (remaining < buffer.limit())
+                buffer.limit((int)remaining);
+            int n = src.read(buffer, position + transferred);
+            if (n <= 0)
+                return false;
+            buffer.flip();
+            return true;
+        }
+
+        public void completed(Integer n, Void ignore) {
+            transferred += n;
+            Throwable exc = null;
+            try {
+                if (buffer.hasRemaining() || (transferred < count && fill())) {
+                    channel.write(buffer, null, this);
+                    return;
+                }
+            } catch (Throwable x) {
+                exc = x;
+            }
+            finish(exc);
+        }
+
+        public void failed(Throwable exc, Void ignore) {
+            finish(exc);
+        }
+
+        private void finish(Throwable exc) {
+            TransferBuffers.release(buffer);
+            buffer = null;
+            if (exc == null) {
+                handler.completed(transferred, attachment);
+            } else {
+                handler.failed(exc, attachment);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
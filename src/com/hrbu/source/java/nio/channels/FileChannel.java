@@ -732,6 +732,94 @@ public abstract class FileChannel
      */
     public abstract int read(ByteBuffer dst, long position) throws IOException;
 
+    /**
+     * Reads sequences of bytes from this channel into the given buffers,
+     * each starting at its own file position.
+     *
+     * <p> The buffer at index <i>i</i> of <tt>dsts</tt> is filled from the
+     * file position at index <i>i</i> of <tt>positions</tt>, as if by
+     * invoking the {@link #read(ByteBuffer,long)} method once for that pair.
+     * The number of bytes transferred into each buffer may therefore be less
+     * than its remaining space, and no bytes are transferred into a buffer
+     * whose file position, as given in <tt>positions</tt>, is greater than or
+     * equal to the file's current size.
+     * Callers that need per-buffer counts should examine the position of
+     * each buffer upon return.  This method does not modify this channel's
+     * position.  </p>
+     *
+     * <p> Both arrays are checked before any bytes are read, so an invalid
+     * argument leaves every buffer unchanged.  If an I/O error occurs part
+     * way through the batch then the buffers that precede the failing one
+     * retain the bytes already transferred into them.  </p>
+     *
+     * @implSpec
+     * The default implementation invokes {@link #read(ByteBuffer,long)} for
+     * each buffer in turn.  Implementations are encouraged to override this
+     * method so as to submit the whole batch to the operating system at once,
+     * for example by means of a vectored or queued positional read, when the
+     * platform supports it.
+     *
+     * @param  dsts
+     *         The buffers into which bytes are to be transferred
+     *
+     * @param  positions
+     *         The file positions at which the transfers are to begin, one
+     *         for each buffer; each must be non-negative
+     *
+     * @return  The total number of bytes read into all of the buffers,
+     *          possibly zero
+     *
+     * @throws  IllegalArgumentException
+     *          If the two arrays differ in length, any position is
+     *          negative or any buffer is read-only
+     *
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the read operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the read operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     */
+    public long read(ByteBuffer[] dsts, long[] positions) throws IOException {
+        checkBatch(dsts, positions);
+        long total = 0L;
+        for (int i = 0; i < dsts.length; i++) {
+            int n = read(dsts[i], positions[i]);
+            if (n > 0)
+                total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Checks the arguments of a batched positional read, shared with
+     * {@link AsynchronousFileChannel}.
+     */
+    static void checkBatch(ByteBuffer[] dsts, long[] positions) {
+        if (dsts.length != positions.length)
+            throw new IllegalArgumentException("Buffer and position counts differ");
+        for (int i = 0; i < dsts.length; i++) {
+            if (dsts[i] == null)
+                throw new NullPointerException();
+            if (dsts[i].isReadOnly())
+                throw new IllegalArgumentException("Read-only buffer");
+            if (positions[i] < 0)
+                throw new IllegalArgumentException("Negative position");
+        }
+    }
+
     /**
      * Writes a sequence of bytes to this channel from the given buffer,
      * starting at the given file position.
@@ -875,7 +963,11 @@ public abstract class FileChannel
      * expensive than reading or writing a few tens of kilobytes of data via
      * the usual {@link #read read} and {@link #write write} methods.  From the
      * standpoint of performance it is generally only worth mapping relatively
-     * large files into memory.  </p>
+     * large files into memory.
+     *
+     * <p> Regions larger than {@link java.lang.Integer#MAX_VALUE} bytes may be
+     * mapped as a {@link java.nio.MappedRegion MappedRegion}, which is indexed
+     * by <tt>long</tt> values.  </p>
      *
      * @param  mode
      *         One of the constants {@link MapMode#READ_ONLY READ_ONLY}, {@link
@@ -911,6 +1003,7 @@ public abstract class FileChannel
      *
      * @see java.nio.channels.FileChannel.MapMode
      * @see java.nio.MappedByteBuffer
+     * @see java.nio.MappedRegion
      */
     public abstract MappedByteBuffer map(MapMode mode,
                                          long position, long size)
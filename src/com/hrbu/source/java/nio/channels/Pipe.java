@@ -26,6 +26,7 @@
 package java.nio.channels;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.spi.*;
 
 
@@ -83,6 +84,99 @@ public abstract class Pipe {
             return SelectionKey.OP_READ;
         }
 
+        /**
+         * Transfers bytes from this pipe to the given writable byte channel.
+         *
+         * <p> An attempt is made to read up to <tt>count</tt> bytes from this
+         * channel and write them to the target channel, in the manner of
+         * {@link #read(ByteBuffer) read}.  Fewer than the requested number of
+         * bytes are transferred if the pipe's sink is closed and the pipe is
+         * drained first, or if this channel is in non-blocking mode and fewer
+         * than <tt>count</tt> bytes are immediately available in the pipe.
+         * Every byte that is read from the pipe is written to the target
+         * channel before this method returns.  </p>
+         *
+         * <p> Together with {@link SinkChannel#transferFrom
+         * SinkChannel.transferFrom} this allows bytes to be moved from a file
+         * to another channel, such as a socket channel, through a pipe.  </p>
+         *
+         * @implSpec
+         * The default implementation reads from this channel into a direct
+         * buffer that it writes to the target channel.  Implementations are
+         * encouraged to override this method so as to move the bytes directly
+         * between the pipe and the target, without copying them, where the
+         * operating system supports it.
+         *
+         * @param  count
+         *         The maximum number of bytes to be transferred;
+         *         must be non-negative
+         *
+         * @param  target
+         *         The target channel
+         *
+         * @return  The number of bytes, possibly zero,
+         *          that were actually transferred
+         *
+         * @throws  IllegalArgumentException
+         *         If <tt>count</tt> is negative
+         *
+         * @throws  IllegalBlockingModeException
+         *         If the target channel is a selectable channel in
+         *         non-blocking mode, which cannot guarantee that every byte
+         *         taken from the pipe is written
+         *
+         * @throws  NonWritableChannelException
+         *          If the target channel was not opened for writing
+         *
+         * @throws  ClosedChannelException
+         *          If either this channel or the target channel is closed
+         *
+         * @throws  AsynchronousCloseException
+         *          If another thread closes either channel
+         *          while the transfer is in progress
+         *
+         * @throws  ClosedByInterruptException
+         *          If another thread interrupts the current thread while the
+         *          transfer is in progress, thereby closing both channels and
+         *          setting the current thread's interrupt status
+         *
+         * @throws  IOException
+         *          If some other I/O error occurs
+         */
+        public long transferTo(long count, WritableByteChannel target)
+            throws IOException
+        {
+            if (target == null)
+                throw new NullPointerException();
+            if (count < 0)
+                throw new IllegalArgumentException("Negative count");
+            if ((target instanceof SelectableChannel)
+                && !((SelectableChannel)target).isBlocking())
+                throw new IllegalBlockingModeException();
+            if (count == 0)
+                return 0;
+            ByteBuffer bb = TransferBuffers.get(count);
+            long transferred = 0;
+            try {
+                while (transferred < count) {
+                    bb.clear();
+                    long remaining = count - transferred;
+                    if (remaining < bb.limit())
+                        bb.limit((int)remaining);
+                    int n = read(bb);
+                    if (n <= 0)
+                        break;
+                    bb.flip();
+                    while (bb.hasRemaining())
+                        target.write(bb);
+                    transferred += n;
+                }
+            } finally {
+                TransferBuffers.release(bb);
+            }
+            return transferred;
+        }
+
     }
 
     /**
@@ -117,6 +211,67 @@ public abstract class Pipe {
             return SelectionKey.OP_WRITE;
         }
 
+        /**
+         * Transfers bytes into this pipe from the given file channel.
+         *
+         * <p> An attempt is made to read up to <tt>count</tt> bytes from the
+         * given file, starting at the given file position, and write them to
+         * this pipe, in the manner of {@link
+         * FileChannel#transferTo(long,long,WritableByteChannel)
+         * FileChannel.transferTo}.  Fewer than the requested number of bytes
+         * are transferred if the file ends first, or if this channel is in
+         * non-blocking mode and the pipe cannot take any more bytes without
+         * blocking.  The file channel's position is not modified.  </p>
+         *
+         * @implSpec
+         * The default implementation invokes the file channel's {@link
+         * FileChannel#transferTo transferTo} method with this channel as its
+         * target.  Implementations are encouraged to override this method so
+         * as to move the bytes from the file system cache into the pipe
+         * directly, without copying them, where the operating system supports
+         * it.
+         *
+         * @param  src
+         *         The file channel from which bytes are to be transferred
+         *
+         * @param  position
+         *         The position within the file at which the transfer is to
+         *         begin; must be non-negative
+         *
+         * @param  count
+         *         The maximum number of bytes to be transferred;
+         *         must be non-negative
+         *
+         * @return  The number of bytes, possibly zero,
+         *          that were actually transferred
+         *
+         * @throws  IllegalArgumentException
+         *         If the preconditions on the parameters do not hold
+         *
+         * @throws  NonReadableChannelException
+         *          If the file channel was not opened for reading
+         *
+         * @throws  ClosedChannelException
+         *          If either this channel or the file channel is closed
+         *
+         * @throws  AsynchronousCloseException
+         *          If another thread closes either channel
+         *          while the transfer is in progress
+         *
+         * @throws  ClosedByInterruptException
+         *          If another thread interrupts the current thread while the
+         *          transfer is in progress, thereby closing both channels and
+         *          setting the current thread's interrupt status
+         *
+         * @throws  IOException
+         *          If some other I/O error occurs
+         */
+        public long transferFrom(FileChannel src, long position, long count)
+            throws IOException
+        {
+            return src.transferTo(position, count, this);
+        }
+
     }
 
     /**
@@ -28,7 +28,10 @@ package java.nio.channels;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.channels.spi.SelectorProvider;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 
 /**
@@ -141,6 +144,12 @@ import java.util.Set;
  * channels to become ready, and if so for how long, is the only essential
  * difference between the three selection methods. </p>
  *
+ * <p> The {@link #select(Consumer)}, {@link #select(Consumer,long)}, and
+ * {@link #selectNow(Consumer)} methods perform a selection operation that
+ * passes each selected key to an action rather than adding it to the
+ * selected-key set, so that a selection loop need not iterate over and clear
+ * that set. </p>
+ *
  *
  * <h2>Concurrency</h2>
  *
@@ -349,6 +358,187 @@ public abstract class Selector implements Closeable {
      */
     public abstract int select() throws IOException;
 
+    /**
+     * Selects and performs an action on the keys whose corresponding channels
+     * are ready for I/O operations.
+     *
+     * <p> This method performs a blocking <a href="#selop">selection
+     * operation</a>.  It wakes up from querying the operating system only when
+     * at least one channel is selected, this selector's {@link #wakeup wakeup}
+     * method is invoked, the current thread is interrupted, or the given
+     * timeout period expires, whichever comes first.
+     *
+     * <p> The specified <i>action</i>'s {@link Consumer#accept(Object) accept}
+     * method is invoked with the key for each channel that is ready to perform
+     * an operation identified by its key's interest set.  The {@code accept}
+     * method may be invoked more than once for the same key but with the
+     * ready-operation set containing a subset of the operations for which the
+     * channel is ready (as described above).  The {@code accept} method is
+     * invoked while synchronized on the selector and its selected-key set.
+     * Great care must be taken to avoid deadlocking with other threads that
+     * also synchronize on these objects.  Selection operations are not
+     * reentrant in general and consequently the <i>action</i> should take
+     * great care not to attempt a selection operation on the same selector.
+     * The behavior when attempting a reentrant selection operation is
+     * implementation specific and therefore not specified.  If the
+     * <i>action</i> closes the selector then {@code ClosedSelectorException}
+     * is thrown when the action completes.  The <i>action</i> is not
+     * prohibited from closing channels registered with the selector, nor
+     * prohibited from cancelling keys or changing a key's interest set.  If a
+     * channel is selected but its key is cancelled or its interest set
+     * changed before the <i>action</i> is performed on the key then it is
+     * implementation specific as to whether the <i>action</i> is invoked (it
+     * may be invoked with an {@link SelectionKey#isValid() invalid} key).
+     * Exceptions thrown by the action are relayed to the caller.
+     *
+     * <p> This method does not offer real-time guarantees: It schedules the
+     * timeout as if by invoking the {@link Object#wait(long)} method.
+     *
+     * @implSpec The default implementation removes all keys from the
+     * selected-key set, invokes {@link #select(long) select(long)} with the
+     * given timeout and then performs the action for each key added to the
+     * selected-key set.  The default implementation does not detect the
+     * action performing a reentrant selection operation.  The selected-key
+     * set may or may not be empty on completion of the default
+     * implementation.  Implementations are encouraged to override this method
+     * so as to pass the keys to the action as they are selected, without
+     * recording them in the selected-key set.
+     *
+     * @param  action   The action to perform
+     *
+     * @param  timeout  If positive, block for up to {@code timeout}
+     *                  milliseconds, more or less, while waiting for a
+     *                  channel to become ready; if zero, block indefinitely;
+     *                  must not be negative
+     *
+     * @return  The number of unique keys consumed, possibly zero
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @throws  ClosedSelectorException
+     *          If this selector is closed or is closed by the action
+     *
+     * @throws  IllegalArgumentException
+     *          If the value of the timeout argument is negative
+     */
+    public int select(Consumer<SelectionKey> action, long timeout)
+        throws IOException
+    {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Negative timeout");
+        return doSelect(Objects.requireNonNull(action), timeout);
+    }
+
+    /**
+     * Selects and performs an action on the keys whose corresponding channels
+     * are ready for I/O operations.
+     *
+     * <p> This method performs a blocking <a href="#selop">selection
+     * operation</a>.  It wakes up from querying the operating system only when
+     * at least one channel is selected, this selector's {@link #wakeup wakeup}
+     * method is invoked, or the current thread is interrupted, whichever comes
+     * first.
+     *
+     * <p> This method is equivalent to invoking the 2-arg
+     * {@link #select(Consumer, long) select} method with a timeout of {@code 0}
+     * to block indefinitely.  </p>
+     *
+     * @implSpec The default implementation invokes the 2-arg {@code select}
+     * method with a timeout of {@code 0}.
+     *
+     * @param  action   The action to perform
+     *
+     * @return  The number of unique keys consumed, possibly zero
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @throws  ClosedSelectorException
+     *          If this selector is closed or is closed by the action
+     */
+    public int select(Consumer<SelectionKey> action) throws IOException {
+        return select(action, 0);
+    }
+
+    /**
+     * Selects and performs an action on the keys whose corresponding channels
+     * are ready for I/O operations.
+     *
+     * <p> This method performs a non-blocking <a href="#selop">selection
+     * operation</a>.
+     *
+     * <p> Invoking this method clears the effect of any previous invocations
+     * of the {@link #wakeup wakeup} method.  </p>
+     *
+     * @implSpec The default implementation removes all keys from the
+     * selected-key set, invokes {@link #selectNow() selectNow()} and then
+     * performs the action for each key added to the selected-key set.  The
+     * default implementation does not detect the action performing a
+     * reentrant selection operation.  The selected-key set may or may not be
+     * empty on completion of the default implementation.
+     *
+     * @param  action   The action to perform
+     *
+     * @return  The number of unique keys consumed, possibly zero
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @throws  ClosedSelectorException
+     *          If this selector is closed or is closed by the action
+     */
+    public int selectNow(Consumer<SelectionKey> action) throws IOException {
+        return doSelect(Objects.requireNonNull(action), -1);
+    }
+
+    // Array reused by the default select(Consumer) and selectNow(Consumer) to
+    // hold the selected keys, accessed while synchronized on this selector
+    private SelectionKey[] keysToConsume;
+
+    /**
+     * Default implementation of select(Consumer) and selectNow(Consumer).
+     */
+    private int doSelect(Consumer<SelectionKey> action, long timeout)
+        throws IOException
+    {
+        synchronized (this) {
+            Set<SelectionKey> selectedKeys = selectedKeys();
+            synchronized (selectedKeys) {
+                selectedKeys.clear();
+                int numKeySelected;
+                if (timeout < 0) {
+                    numKeySelected = selectNow();
+                } else {
+                    numKeySelected = select(timeout);
+                }
+
+                // copy selected-key set as action may remove keys, reusing
+                // the array of the previous selection operation unless a
+                // reentrant one is using it
+                SelectionKey[] keys = keysToConsume;
+                keysToConsume = null;
+                keys = selectedKeys.toArray(
+                    (keys != null) ? keys : new SelectionKey[0]);
+                int n = selectedKeys.size();
+                selectedKeys.clear();
+
+                // invoke action for each selected key
+                try {
+                    for (int i = 0; i < n; i++) {
+                        action.accept(keys[i]);
+                        if (!isOpen())
+                            throw new ClosedSelectorException();
+                    }
+                } finally {
+                    Arrays.fill(keys, 0, n, null);
+                    keysToConsume = keys;
+                }
+                return numKeySelected;
+            }
+        }
+    }
+
     /**
      * Causes the first selection operation that has not yet returned to return
      * immediately.
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.channels;
+
+import java.nio.ByteBuffer;
+import java.nio.DirectBufferPool;
+
+/**
+ * The direct buffers through which the default implementations of the
+ * channel-to-channel transfer methods move bytes when the underlying
+ * provider cannot transfer them directly.
+ */
+
+final class TransferBuffers {
+
+    /**
+     * The largest buffer used for a single step of a transfer.
+     */
+    static final int MAX_BUFFER_SIZE = 64 * 1024;
+
+    private static final DirectBufferPool POOL =
+        DirectBufferPool.create("channel-transfer", MAX_BUFFER_SIZE,
+                                16 * MAX_BUFFER_SIZE);
+
+    private TransferBuffers() { }
+
+    /**
+     * Returns a buffer for transferring up to the given, positive, number of
+     * bytes, with its limit set to the smaller of that count and the
+     * maximum buffer size.
+     */
+    static ByteBuffer get(long count) {
+        return POOL.allocate((int)Math.min(count, MAX_BUFFER_SIZE));
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #get} to the pool.
+     */
+    static void release(ByteBuffer bb) {
+        POOL.release(bb);
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.file;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A file-based lines spliterator, leveraging a shared file channel and
+ * memory-mapping to split the file at line boundaries.
+ *
+ * <p> A spliterator covers the bytes of the file in the range [index, fence).
+ * It is split by memory-mapping a window of the file around the mid-point of
+ * the range and scanning outward from the mid-point for a line separator;
+ * the left spliterator ends with that separator, and the right spliterator
+ * starts at the following line. Only the window is mapped, so there is no
+ * limit on the size of the file. This requires that the charset encodes
+ * {@code '\n'} and {@code '\r'} as single bytes that never occur inside the
+ * encoding of any other character, as is the case for the
+ * {@link #SUPPORTED_CHARSET_NAMES supported charsets}.
+ *
+ * <p> Lines of a spliterator that is traversed are read with positional
+ * reads of the shared channel, so spliterators may be traversed concurrently
+ * by different threads, each one decoding with its own reader. A spliterator
+ * cannot be split once it has been traversed.
+ *
+ * <p> Closing the stream closes the shared file channel, after which further
+ * traversal fails with an {@code UncheckedIOException}.
+ */
+final class FileChannelLinesSpliterator implements Spliterator<String> {
+
+    static final Set<String> SUPPORTED_CHARSET_NAMES;
+    static {
+        SUPPORTED_CHARSET_NAMES = new HashSet<>();
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.UTF_8.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.ISO_8859_1.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.US_ASCII.name());
+    }
+
+    // initial size of the window mapped to find a line boundary when splitting
+    private static final int SPLIT_WINDOW = 64 * 1024;
+
+    // size of the character buffer of the reader used when traversing
+    private static final int READER_BUFFER_SIZE = 8192;
+
+    // ranges smaller than this are not split
+    private static final long MIN_SPLIT_SIZE = 8 * 1024;
+
+    private final FileChannel fc;
+    private final Charset cs;
+    private long index;
+    private final long fence;
+
+    // Non-null when traversing
+    private BufferedReader reader;
+
+    FileChannelLinesSpliterator(FileChannel fc, Charset cs, long index, long fence) {
+        this.fc = fc;
+        this.cs = cs;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        String line = readLine();
+        if (line != null) {
+            action.accept(line);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        String line;
+        while ((line = readLine()) != null) {
+            action.accept(line);
+        }
+    }
+
+    private BufferedReader getBufferedReader() {
+        /**
+         * A readable byte channel that reads bytes from an underlying
+         * file channel over a specified range, using positional reads so
+         * that the channel's position is neither used nor changed.
+         */
+        ReadableByteChannel rrbc = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                long bytesToRead = fence - index;
+                if (bytesToRead == 0)
+                    return -1;
+
+                int bytesRead;
+                if (bytesToRead < dst.remaining()) {
+                    // The number of bytes to read is less than remaining
+                    // bytes in the buffer
+                    // Snapshot the limit, reduce it, read, then restore
+                    int oldLimit = dst.limit();
+                    dst.limit((int)(dst.position() + bytesToRead));
+                    bytesRead = fc.read(dst, index);
+                    dst.limit(oldLimit);
+                } else {
+                    bytesRead = fc.read(dst, index);
+                }
+                if (bytesRead == -1) {
+                    // the file was truncated
+                    index = fence;
+                    return bytesRead;
+                }
+
+                index += bytesRead;
+                return bytesRead;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return fc.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                fc.close();
+            }
+        };
+        // The reader is confined to the thread traversing this spliterator
+        return new BufferedReader(Channels.newReader(rrbc, cs.newDecoder(), -1),
+                                  READER_BUFFER_SIZE, false);
+    }
+
+    private String readLine() {
+        if (reader == null) {
+            reader = getBufferedReader();
+        }
+
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        // Cannot split after partial traverse
+        if (reader != null)
+            return null;
+
+        final long hi = fence, lo = index;
+        if (hi - lo < MIN_SPLIT_SIZE)
+            return null;
+
+        long mid;
+        try {
+            mid = splitPoint(lo, hi);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // The left spliterator will have the line-separator at the end
+        return (mid > lo && mid < hi)
+               ? new FileChannelLinesSpliterator(fc, cs, lo, index = mid)
+               : null;
+    }
+
+    /**
+     * Returns the start of the line nearest the mid-point of the range
+     * [lo, hi), or -1 if the range is a single line. Maps a window centered
+     * on the mid-point, doubling its size until a line separator is found
+     * or it covers the whole range.
+     */
+    private long splitPoint(long lo, long hi) throws IOException {
+        final long m = (lo + hi) >>> 1;
+        for (long half = SPLIT_WINDOW / 2; ; half <<= 1) {
+            long start = Math.max(lo, m - half);
+            long end = Math.min(hi, m + half);
+            // Map one more byte, if any, to see the '\n' of a "\r\n"
+            // straddling the end of the window
+            MappedByteBuffer b = fc.map(FileChannel.MapMode.READ_ONLY,
+                                        start, Math.min(hi, end + 1) - start);
+            int mid = (int)(m - start);
+            int limit = (int)(end - start);
+
+            // Check if line separator hits the mid point
+            int c = b.get(mid);
+            if (c == '\n') {
+                return start + mid + 1;
+            } else if (c == '\r') {
+                // Check if a line separator of "\r\n"
+                if (mid + 1 < b.limit() && b.get(mid + 1) == '\n')
+                    return start + mid + 2;
+                return start + mid + 1;
+            }
+
+            // Scan to the left and right of the mid point
+            int midL = mid - 1;
+            int midR = mid + 1;
+            while (midL >= 0 || midR < limit) {
+                // Sample to the left
+                if (midL >= 0) {
+                    c = b.get(midL--);
+                    if (c == '\n' || c == '\r') {
+                        // If c is "\r" then no need to check for "\r\n"
+                        // since the subsequent value was previously checked
+                        return start + midL + 2;
+                    }
+                }
+
+                // Sample to the right
+                if (midR < limit) {
+                    c = b.get(midR++);
+                    if (c == '\n' || c == '\r') {
+                        // Check if line-separator is "\r\n"
+                        if (c == '\r' && midR < b.limit() && b.get(midR) == '\n')
+                            midR++;
+                        return start + midR;
+                    }
+                }
+            }
+
+            if (start == lo && end == hi)
+                return -1;
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        // Use the number of bytes as an estimate.
+        // We could divide by a constant that is the average number of
+        // characters per-line, but that constant will be factored out.
+        return fence - index;
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return -1;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+}
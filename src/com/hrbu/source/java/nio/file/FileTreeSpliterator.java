@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileTreeWalker.Event;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the nodes of a file tree, in the depth-first order in
+ * which a {@link FileTreeWalker} visits them, that splits the tree so that
+ * subtrees can be walked concurrently.
+ *
+ * <p> A spliterator covers a walker, which may be partly walked, followed by
+ * a queue of <i>roots</i>: files, each to be visited as an entry of the
+ * directory above it, whose subtrees remain to be walked. It is split by
+ * handing over the walker to a new spliterator, which therefore covers a
+ * prefix of the nodes, and replacing it by the entries that the walker has
+ * yet to visit in the directory nearest its starting file, which become
+ * roots at the head of the queue. A spliterator without a walker is split by
+ * handing over the first half of its roots, or, if it has only one root, by
+ * starting a walker on the root and splitting that. Directories are
+ * therefore listed by the thread that splits or walks them, and the
+ * attributes of each file are read by the thread that visits it, using the
+ * attributes cached by the directory listing where the provider supports it.
+ * As the number of nodes in a subtree is not known until it is walked, the
+ * size estimate starts at {@code Long.MAX_VALUE} and is halved on each split,
+ * as by {@link java.util.Spliterators.AbstractSpliterator}, so that parallel
+ * streams split a walk into a number of tasks proportional to their
+ * parallelism rather than into a task for each file.
+ *
+ * <p> The walkers of all spliterators split from the same walk are closed
+ * when the walk is closed; traversing a spliterator of a closed walk throws
+ * {@code IllegalStateException}. As with the iterator of a sequential walk,
+ * an I/O error in visiting a file or reading a directory is thrown as an
+ * {@code UncheckedIOException} from the traversal that encounters it.
+ */
+final class FileTreeSpliterator implements Spliterator<Event>, Closeable {
+
+    /**
+     * The state shared by the spliterators of a walk.
+     */
+    private static final class Walk implements Closeable {
+        private final List<FileVisitOption> options;
+        private final int maxDepth;
+        private final Set<FileTreeWalker> walkers = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        Walk(int maxDepth, FileVisitOption... options) {
+            this.options = Arrays.asList(options);
+            this.maxDepth = maxDepth;
+        }
+
+        FileTreeWalker newWalker(int depth, List<FileTreeWalker.Ancestor> ancestors) {
+            FileTreeWalker walker =
+                new FileTreeWalker(options, maxDepth - depth, ancestors);
+            walkers.add(walker);
+            if (closed) {
+                // raced with close
+                release(walker);
+                throw new IllegalStateException();
+            }
+            return walker;
+        }
+
+        void release(FileTreeWalker walker) {
+            walkers.remove(walker);
+            walker.close();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            for (FileTreeWalker walker : walkers) {
+                release(walker);
+            }
+        }
+    }
+
+    /**
+     * A file whose subtree remains to be walked.
+     */
+    private static final class Root {
+        final Path file;
+        final int depth;
+        final List<FileTreeWalker.Ancestor> ancestors;
+
+        Root(Path file, int depth, List<FileTreeWalker.Ancestor> ancestors) {
+            this.file = file;
+            this.depth = depth;
+            this.ancestors = ancestors;
+        }
+    }
+
+    private static final int CHARACTERISTICS =
+        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+
+    private final Walk walk;
+    // walker covering the nodes before the roots, or null
+    private FileTreeWalker walker;
+    // depth of the starting file of the walker within the walk
+    private int walkerDepth;
+    // event returned by the walker but not yet consumed, or null
+    private Event head;
+    // roots to be walked after the walker
+    private final ArrayDeque<Root> roots;
+    // size estimate, halved on each split
+    private long est;
+
+    private FileTreeSpliterator(Walk walk, FileTreeWalker walker,
+                                int walkerDepth, Event head,
+                                ArrayDeque<Root> roots, long est) {
+        this.walk = walk;
+        this.walker = walker;
+        this.walkerDepth = walkerDepth;
+        this.head = head;
+        this.roots = roots;
+        this.est = est;
+    }
+
+    /**
+     * Creates a spliterator to walk the file tree starting at the given file.
+     *
+     * @throws  IllegalArgumentException
+     *          if {@code maxDepth} is negative
+     * @throws  IOException
+     *          if an I/O errors occurs opening the starting file
+     * @throws  SecurityException
+     *          if the security manager denies access to the starting file
+     * @throws  NullPointerException
+     *          if {@code start} or {@code options} is {@code null} or
+     *          the options array contains a {@code null} element
+     */
+    static FileTreeSpliterator walk(Path start, int maxDepth,
+                                    FileVisitOption... options)
+        throws IOException
+    {
+        Walk walk = new Walk(maxDepth, options);
+        FileTreeWalker walker = walk.newWalker(0,
+            Collections.<FileTreeWalker.Ancestor>emptyList());
+        Event ev;
+        try {
+            ev = walker.walk(start);
+        } catch (Error | RuntimeException e) {
+            walk.close();
+            throw e;
+        }
+        assert ev.type() == FileTreeWalker.EventType.ENTRY ||
+               ev.type() == FileTreeWalker.EventType.START_DIRECTORY;
+
+        // IOException if there a problem accessing the starting file
+        IOException ioe = ev.ioeException();
+        if (ioe != null) {
+            walk.close();
+            throw ioe;
+        }
+        return new FileTreeSpliterator(walk, walker, 0, ev, new ArrayDeque<>(),
+                                       Long.MAX_VALUE);
+    }
+
+    /**
+     * Starts a walker on the next root, leaving its first event, if any, as
+     * the head event.
+     */
+    private void startNextRoot() {
+        Root root = roots.poll();
+        walker = walk.newWalker(root.depth, root.ancestors);
+        walkerDepth = root.depth;
+        head = walker.walkEntry(root.file);
+    }
+
+    /**
+     * Returns the next event that is not an END_DIRECTORY event, or null
+     * when the spliterator is exhausted.
+     */
+    private Event nextEvent() {
+        for (;;) {
+            Event ev;
+            if (head != null) {
+                ev = head;
+                head = null;
+            } else if (walker != null) {
+                ev = walker.next();
+                if (ev == null) {
+                    walk.release(walker);
+                    walker = null;
+                    continue;
+                }
+            } else if (!roots.isEmpty()) {
+                startNextRoot();
+                continue;
+            } else {
+                return null;
+            }
+
+            IOException ioe = ev.ioeException();
+            if (ioe != null)
+                throw new UncheckedIOException(ioe);
+
+            // END_DIRECTORY events are ignored
+            if (ev.type() != FileTreeWalker.EventType.END_DIRECTORY)
+                return ev;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Event> action) {
+        if (action == null)
+            throw new NullPointerException();
+        if (walk.closed)
+            throw new IllegalStateException();
+        Event ev = nextEvent();
+        if (ev == null)
+            return false;
+        action.accept(ev);
+        return true;
+    }
+
+    @Override
+    public Spliterator<Event> trySplit() {
+        if (walk.closed)
+            return null;
+
+        if (walker == null) {
+            int n = roots.size();
+            if (n >= 2) {
+                ArrayDeque<Root> prefix = new ArrayDeque<>(n / 2);
+                for (int i = 0; i < n / 2; i++) {
+                    prefix.add(roots.poll());
+                }
+                return new FileTreeSpliterator(walk, null, 0, null, prefix,
+                                               est >>>= 1);
+            }
+            if (n == 0)
+                return null;
+            startNextRoot();
+        }
+
+        // hand over the walker and take the entries it has yet to visit
+        // nearest its starting file, or failing that, keep the roots
+        FileTreeWalker.Split split = walker.split();
+        if (split == null && roots.isEmpty())
+            return null;
+        FileTreeSpliterator prefix = new FileTreeSpliterator(
+            walk, walker, walkerDepth, head, new ArrayDeque<>(), est >>>= 1);
+        if (split != null) {
+            int depth = walkerDepth + split.depth();
+            List<Path> entries = split.entries();
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                roots.addFirst(new Root(entries.get(i), depth, split.ancestors()));
+            }
+        }
+        walker = null;
+        head = null;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return est;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    /**
+     * Closes the walk, and with it the walkers of every spliterator split
+     * from it.
+     */
+    @Override
+    public void close() {
+        walk.close();
+    }
+}
@@ -29,8 +29,11 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import sun.nio.fs.BasicFileAttributesHolder;
 
 /**
@@ -58,9 +61,64 @@ class FileTreeWalker implements Closeable {
     private final boolean followLinks;
     private final LinkOption[] linkOptions;
     private final int maxDepth;
+    private final List<Ancestor> ancestors;
     private final ArrayDeque<DirectoryNode> stack = new ArrayDeque<>();
     private boolean closed;
 
+    /**
+     * A directory above the starting file of the walk, walked by another
+     * walker, that is checked for cycles as if it were on the stack.
+     */
+    static final class Ancestor {
+        private final Path dir;
+        private final Object key;
+
+        Ancestor(Path dir, Object key) {
+            this.dir = dir;
+            this.key = key;
+        }
+    }
+
+    /**
+     * The entries that remain to be visited in a directory on the stack,
+     * handed over by {@link #split} to be walked by other walkers.
+     */
+    static final class Split {
+        private final List<Path> entries;
+        private final int depth;
+        private final List<Ancestor> ancestors;
+
+        private Split(List<Path> entries, int depth, List<Ancestor> ancestors) {
+            this.entries = entries;
+            this.depth = depth;
+            this.ancestors = ancestors;
+        }
+
+        /**
+         * Returns the entries, in the order in which they would have been
+         * visited.
+         */
+        List<Path> entries() {
+            return entries;
+        }
+
+        /**
+         * Returns the depth of the entries, relative to the starting file of
+         * the walker that was split.
+         */
+        int depth() {
+            return depth;
+        }
+
+        /**
+         * Returns the directories above the entries, to be passed to the
+         * walkers of the entries.
+         */
+        List<Ancestor> ancestors() {
+            return ancestors;
+        }
+    }
+
     /**
      * The element on the walking stack corresponding to a directory node.
      */
@@ -70,6 +128,7 @@ class FileTreeWalker implements Closeable {
         private final DirectoryStream<Path> stream;
         private final Iterator<Path> iterator;
         private boolean skipped;
+        private IOException ioe;
 
         DirectoryNode(Path dir, Object key, DirectoryStream<Path> stream) {
             this.dir = dir;
@@ -101,6 +160,14 @@ class FileTreeWalker implements Closeable {
         boolean skipped() {
             return skipped;
         }
+
+        void fail(IOException ioe) {
+            this.ioe = ioe;
+        }
+
+        IOException exception() {
+            return ioe;
+        }
     }
 
     /**
@@ -175,6 +242,16 @@ class FileTreeWalker implements Closeable {
      *          array contains a {@code null} element
      */
     FileTreeWalker(Collection<FileVisitOption> options, int maxDepth) {
+        this(options, maxDepth, Collections.<Ancestor>emptyList());
+    }
+
+    /**
+     * Creates a {@code FileTreeWalker} for a subtree of a walk, with the
+     * given directories above the subtree.
+     */
+    FileTreeWalker(Collection<FileVisitOption> options, int maxDepth,
+                   List<Ancestor> ancestors)
+    {
         boolean fl = false;
         for (FileVisitOption option: options) {
             // will throw NPE if options contains null
@@ -191,6 +268,7 @@ class FileTreeWalker implements Closeable {
         this.linkOptions = (fl) ? new LinkOption[0] :
             new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
         this.maxDepth = maxDepth;
+        this.ancestors = ancestors;
     }
 
     /**
@@ -254,6 +332,23 @@ class FileTreeWalker implements Closeable {
                 }
             }
         }
+        for (Ancestor ancestor: ancestors) {
+            if (key != null && ancestor.key != null) {
+                if (key.equals(ancestor.key)) {
+                    // cycle detected
+                    return true;
+                }
+            } else {
+                try {
+                    if (Files.isSameFile(dir, ancestor.dir)) {
+                        // cycle detected
+                        return true;
+                    }
+                } catch (IOException | SecurityException x) {
+                    // ignore
+                }
+            }
+        }
         return false;
     }
 
@@ -326,6 +421,60 @@ class FileTreeWalker implements Closeable {
         return ev;
     }
 
+    /**
+     * Start walking from the given file, visiting it as an entry of the
+     * directory above it, as handed over by {@link #split}. Returns {@code
+     * null} if the security manager denies access to the file.
+     */
+    Event walkEntry(Path file) {
+        if (closed)
+            throw new IllegalStateException("Closed");
+
+        return visit(file,
+                     true,   // ignoreSecurityException
+                     true);  // canUseCached
+    }
+
+    /**
+     * Hands over the entries that remain to be visited in the directory
+     * nearest the bottom of the stack that has any, so that they can be
+     * walked by other walkers. The directories below it are left without
+     * remaining entries. The entries are read, in the order in which they
+     * would have been visited, and the directory is marked as skipped so that
+     * this walker will produce no more events for them; if reading them fails
+     * then the entries read so far are handed over and the I/O exception is
+     * reported with the directory's END_DIRECTORY event. Returns {@code null}
+     * if no directory on the stack has remaining entries.
+     */
+    Split split() {
+        List<Ancestor> path = new ArrayList<>(ancestors);
+        int depth = 0;
+        Iterator<DirectoryNode> nodes = stack.descendingIterator();
+        while (nodes.hasNext()) {
+            DirectoryNode node = nodes.next();
+            depth++;
+            path.add(new Ancestor(node.directory(), node.key()));
+            if (node.skipped())
+                continue;
+
+            List<Path> entries = new ArrayList<>();
+            Iterator<Path> iterator = node.iterator();
+            try {
+                while (iterator.hasNext()) {
+                    entries.add(iterator.next());
+                }
+            } catch (DirectoryIteratorException x) {
+                node.fail(x.getCause());
+            }
+            node.skip();
+            if (!entries.isEmpty()) {
+                return new Split(entries, depth,
+                                 Collections.unmodifiableList(path));
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns the next Event or {@code null} if there are no more events or
      * the walker is closed.
@@ -355,6 +504,8 @@ class FileTreeWalker implements Closeable {
 
             // no next entry so close and pop directory, creating corresponding event
             if (entry == null) {
+                if (ioe == null)
+                    ioe = top.exception();
                 try {
                     top.stream().close();
                 } catch (IOException e) {
@@ -3534,6 +3534,16 @@ public final class Files {
      * <p> When a security manager is installed and it denies access to a file
      * (or directory), then it is ignored and not included in the stream.
      *
+     * <p> The returned stream is {@link Spliterator#ORDERED ordered}, in the
+     * depth-first order described above, and can be split: when it is made
+     * {@link Stream#parallel parallel}, the entries that remain to be visited
+     * in a directory are handed over to other threads, so that the subtrees
+     * below them are walked concurrently. Directories are listed, and file
+     * attributes are read, by the threads that walk them. Where the
+     * encounter order does not matter, making the stream {@link
+     * Stream#unordered unordered} allows parallel operations to avoid
+     * restoring it.
+     *
      * <p> The returned stream encapsulates one or more {@link DirectoryStream}s.
      * If timely disposal of file system resources is required, the
      * {@code try}-with-resources construct should be used to ensure that the
@@ -3571,13 +3581,14 @@ public final class Files {
                                     FileVisitOption... options)
         throws IOException
     {
-        FileTreeIterator iterator = new FileTreeIterator(start, maxDepth, options);
+        FileTreeSpliterator spliterator =
+            FileTreeSpliterator.walk(start, maxDepth, options);
         try {
-            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT), false)
-                                .onClose(iterator::close)
+            return StreamSupport.stream(spliterator, false)
+                                .onClose(spliterator::close)
                                 .map(entry -> entry.file());
         } catch (Error|RuntimeException e) {
-            iterator.close();
+            spliterator.close();
             throw e;
         }
     }
@@ -3639,7 +3650,10 @@ public final class Files {
      * the {@code BiPredicate} returns true. Compare to calling {@link
      * java.util.stream.Stream#filter filter} on the {@code Stream}
      * returned by {@code walk} method, this method may be more efficient by
-     * avoiding redundant retrieval of the {@code BasicFileAttributes}.
+     * avoiding redundant retrieval of the {@code BasicFileAttributes}. As
+     * with the {@code walk} method, the returned stream may be made {@link
+     * Stream#parallel parallel} to search subtrees concurrently, in which case
+     * the {@code BiPredicate} may be invoked concurrently by several threads.
      *
      * <p> The returned stream encapsulates one or more {@link DirectoryStream}s.
      * If timely disposal of file system resources is required, the
@@ -3684,14 +3698,15 @@ public final class Files {
                                     FileVisitOption... options)
         throws IOException
     {
-        FileTreeIterator iterator = new FileTreeIterator(start, maxDepth, options);
+        FileTreeSpliterator spliterator =
+            FileTreeSpliterator.walk(start, maxDepth, options);
         try {
-            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT), false)
-                                .onClose(iterator::close)
+            return StreamSupport.stream(spliterator, false)
+                                .onClose(spliterator::close)
                                 .filter(entry -> matcher.test(entry.file(), entry.attributes()))
                                 .map(entry -> entry.file());
         } catch (Error|RuntimeException e) {
-            iterator.close();
+            spliterator.close();
             throw e;
         }
     }
@@ -3714,12 +3729,25 @@ public final class Files {
      * place. In case an {@code IOException} is thrown when closing the file,
      * it is also wrapped as an {@code UncheckedIOException}.
      *
-     * <p> The returned stream encapsulates a {@link Reader}.  If timely
-     * disposal of file system resources is required, the try-with-resources
-     * construct should be used to ensure that the stream's
-     * {@link Stream#close close} method is invoked after the stream operations
-     * are completed.
-     *
+     * <p> The returned stream contains a reference to an open file. The file
+     * is closed by closing the stream. If timely disposal of file system
+     * resources is required, the try-with-resources construct should be used
+     * to ensure that the stream's {@link Stream#close close} method is invoked
+     * after the stream operations are completed.
+     *
+     * @implNote
+     * This implementation supports good parallel stream performance for the
+     * standard charsets {@link StandardCharsets#UTF_8 UTF-8},
+     * {@link StandardCharsets#US_ASCII US-ASCII} and
+     * {@link StandardCharsets#ISO_8859_1 ISO-8859-1}, for regular files of the
+     * default file system. Such line-optimal charsets have the property that the
+     * encoded bytes of a line feed ('\n') or a carriage return ('\r') are
+     * efficiently identifiable from other encoded characters when randomly
+     * accessing the bytes of the file. The stream is then split at byte
+     * offsets, realigned to line boundaries by scanning a memory-mapped region
+     * of the file, so that lines of different parts of the file can be read
+     * and decoded in parallel. For other charsets, file systems and kinds of
+     * file, the stream encapsulates a {@link Reader} and splits poorly.
      *
      * @param   path
      *          the path to the file
@@ -3741,7 +3769,53 @@ public final class Files {
      * @since   1.8
      */
     public static Stream<String> lines(Path path, Charset cs) throws IOException {
-        BufferedReader br = Files.newBufferedReader(path, cs);
+        // Use the good splitting spliterator if:
+        // 1) the path is associated with the default file system; and
+        // 2) the character set is supported
+        if (path.getFileSystem() == FileSystems.getDefault() &&
+            FileChannelLinesSpliterator.SUPPORTED_CHARSET_NAMES.contains(cs.name())) {
+            FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+            Stream<String> lines = createFileChannelLinesStream(fc, path, cs);
+            if (lines != null) {
+                return lines;
+            }
+            fc.close();
+        }
+        return createBufferedReaderLinesStream(Files.newBufferedReader(path, cs));
+    }
+
+    private static Stream<String> createFileChannelLinesStream(FileChannel fc,
+                                                               Path path,
+                                                               Charset cs)
+        throws IOException
+    {
+        try {
+            // Obtaining the size from the FileChannel is much faster
+            // than obtaining using path.toFile().length()
+            long length = fc.size();
+            // Only a regular file of known size can be mapped and split.
+            // FileChannel.size() returns zero for FIFOs and for special
+            // files such as those under /proc, which still have lines to
+            // read, so those are read sequentially instead.
+            if (length > 0 && isRegularFile(path)) {
+                Spliterator<String> s = new FileChannelLinesSpliterator(fc, cs, 0, length);
+                return StreamSupport.stream(s, false)
+                                    .onClose(asUncheckedRunnable(fc));
+            }
+            return null;
+        } catch (Error|RuntimeException|IOException e) {
+            try {
+                fc.close();
+            } catch (IOException ex) {
+                try {
+                    e.addSuppressed(ex);
+                } catch (Throwable ignore) {}
+            }
+            throw e;
+        }
+    }
+
+    private static Stream<String> createBufferedReaderLinesStream(BufferedReader br) {
         try {
             return br.lines().onClose(asUncheckedRunnable(br));
         } catch (Error|RuntimeException e) {
@@ -0,0 +1,1593 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.LongBuffer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A compressed set of nonnegative {@code int} bit indices, intended for
+ * sparse or clustered sets over a large index space where a
+ * {@link BitSet} would have to allocate one bit for every index up to
+ * the largest one set.
+ *
+ * <p>The index space is partitioned into chunks of 2<sup>16</sup>
+ * indices keyed by the high 16 bits of each index. Only chunks that
+ * contain at least one set bit are stored, and each is held in the most
+ * compact of three <em>containers</em>:
+ * <ul>
+ * <li>an <em>array</em> container, a sorted {@code char} array of the
+ * low 16 bits, used when the chunk has at most 4096 set bits;
+ * <li>a <em>bitmap</em> container, a fixed 1024-word {@code long}
+ * array, used when the chunk has more than 4096 set bits;
+ * <li>a <em>run</em> container, a list of {@code [start, length]} runs,
+ * chosen by {@link #runOptimize()} when it is smaller than either of
+ * the above.
+ * </ul>
+ * The logical operations {@link #and}, {@link #or}, {@link #xor} and
+ * {@link #andNot} only visit chunks present in one of the operands,
+ * and combine two containers either by merging their sorted values or,
+ * for dense chunks, word by word.
+ *
+ * <p>A {@code CompressedBitSet} can be written to a {@link ByteBuffer}
+ * with {@link #serialize} and read back either by copying, with
+ * {@link #deserialize}, or without copying, with {@link #map}. A mapped
+ * set reads its containers directly from the buffer, which may be a
+ * {@link java.nio.MappedByteBuffer}, so queries such as {@link #get},
+ * {@link #rank} or the logical operations can run over an on-disk
+ * index without first loading it onto the heap.
+ *
+ * <p>Unless otherwise noted, passing a null parameter to any of the
+ * methods in a {@code CompressedBitSet} will result in a
+ * {@code NullPointerException}.
+ *
+ * <p>A {@code CompressedBitSet} is not safe for multithreaded use
+ * without external synchronization.
+ *
+ * @see BitSet
+ */
+public class CompressedBitSet implements Cloneable {
+    /*
+     * Set bits are stored as a sorted array of 16-bit chunk keys
+     * (keys[0..size)) with a parallel array of containers. A container
+     * is never empty; operations that empty a container remove it.
+     *
+     * Array containers hold at most ARRAY_MAX values and bitmap
+     * containers always hold more, so that every chunk is kept in the
+     * smaller of the two representations. Run containers are only
+     * created by runOptimize and by mapping a serialized set; mutating
+     * one turns it back into an array or bitmap container.
+     *
+     * Containers read from a mapped buffer keep a CharBuffer or
+     * LongBuffer view of the serialized bytes instead of a heap array,
+     * and copy it onto the heap the first time they are mutated. The
+     * buffer views are never written to, so containers created by
+     * copy() may share them.
+     */
+
+    /**
+     * The maximum number of values held in an array container.
+     */
+    private static final int ARRAY_MAX = 4096;
+
+    /**
+     * The number of words in a bitmap container.
+     */
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    /**
+     * Container type tags used in the serialized form.
+     */
+    private static final int ARRAY  = 0;
+    private static final int BITMAP = 1;
+    private static final int RUN    = 2;
+
+    /**
+     * Identifies the serialized form written by {@link #serialize}.
+     */
+    private static final int SERIAL_COOKIE = 0x43425331;
+
+    /**
+     * Size of the serialized header, and of each per-container
+     * descriptor following it.
+     */
+    private static final int HEADER_BYTES = 8;
+    private static final int DESCRIPTOR_BYTES = 12;
+
+    /**
+     * The high 16 bits of the indices held by each container, in
+     * ascending order.
+     */
+    private char[] keys;
+
+    /**
+     * The containers, parallel to {@code keys}.
+     */
+    private Container[] containers;
+
+    /**
+     * The number of containers in use.
+     */
+    private int size;
+
+    /**
+     * Creates a new, empty compressed bit set.
+     */
+    public CompressedBitSet() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    private CompressedBitSet(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    /**
+     * Returns a new compressed bit set containing all the bits set in
+     * the given bit set.
+     *
+     * @param set a bit set
+     * @return a {@code CompressedBitSet} containing the bits set in
+     *         {@code set}
+     */
+    public static CompressedBitSet valueOf(BitSet set) {
+        CompressedBitSet result = new CompressedBitSet();
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+            result.set(i);
+            if (i == Integer.MAX_VALUE)
+                break;
+        }
+        return result;
+    }
+
+    private static void checkIndex(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+    }
+
+    /**
+     * Returns the position of {@code key} in {@code keys[0..size)}, or
+     * {@code -(insertion point) - 1} if it is not present.
+     */
+    private int indexOfKey(int key) {
+        // Fast path for the common case of appending in order
+        if (size > 0 && keys[size - 1] == key)
+            return size - 1;
+        int lo = 0, hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int k = keys[mid];
+            if (k < key)
+                lo = mid + 1;
+            else if (k > key)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
+    private void insertContainer(int pos, int key, Container c) {
+        if (size == keys.length) {
+            int newCapacity = size < 64 ? size * 2 : size + (size >> 1);
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(containers, pos, containers, pos + 1, size - pos);
+        keys[pos] = (char) key;
+        containers[pos] = c;
+        size++;
+    }
+
+    private void removeContainer(int pos) {
+        System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+        System.arraycopy(containers, pos + 1, containers, pos, size - pos - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * Sets the bit at the specified index to {@code true}.
+     *
+     * @param  bitIndex a bit index
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void set(int bitIndex) {
+        checkIndex(bitIndex);
+        int hb = bitIndex >>> 16;
+        int i = indexOfKey(hb);
+        if (i >= 0)
+            containers[i] = containers[i].add(bitIndex & 0xFFFF);
+        else
+            insertContainer(-i - 1, hb, new ArrayContainer(bitIndex & 0xFFFF));
+    }
+
+    /**
+     * Sets the bit at the specified index to the specified value.
+     *
+     * @param  bitIndex a bit index
+     * @param  value a boolean value to set
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void set(int bitIndex, boolean value) {
+        if (value)
+            set(bitIndex);
+        else
+            clear(bitIndex);
+    }
+
+    /**
+     * Sets the bit specified by the index to {@code false}.
+     *
+     * @param  bitIndex the index of the bit to be cleared
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void clear(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOfKey(bitIndex >>> 16);
+        if (i >= 0) {
+            Container c = containers[i].remove(bitIndex & 0xFFFF);
+            if (c.cardinality() == 0)
+                removeContainer(i);
+            else
+                containers[i] = c;
+        }
+    }
+
+    /**
+     * Sets all of the bits in this set to {@code false}.
+     */
+    public void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the value of the bit with the specified index.
+     *
+     * @param  bitIndex the bit index
+     * @return the value of the bit with the specified index
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public boolean get(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOfKey(bitIndex >>> 16);
+        return i >= 0 && containers[i].contains(bitIndex & 0xFFFF);
+    }
+
+    /**
+     * Returns the index of the first bit that is set to {@code true}
+     * that occurs on or after the specified starting index. If no such
+     * bit exists then {@code -1} is returned.
+     *
+     * @param  fromIndex the index to start checking from (inclusive)
+     * @return the index of the next set bit, or {@code -1} if there
+     *         is no such bit
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public int nextSetBit(int fromIndex) {
+        checkIndex(fromIndex);
+        int hb = fromIndex >>> 16;
+        int i = indexOfKey(hb);
+        if (i >= 0) {
+            int v = containers[i].nextValue(fromIndex & 0xFFFF);
+            if (v >= 0)
+                return (hb << 16) | v;
+            i++;
+        } else {
+            i = -i - 1;
+        }
+        return (i < size) ? (keys[i] << 16) | containers[i].nextValue(0) : -1;
+    }
+
+    /**
+     * Returns the "logical size" of this set: the index of the highest
+     * set bit plus one. Returns zero if the set contains no set bits.
+     *
+     * @return the logical size of this set
+     */
+    public int length() {
+        if (size == 0)
+            return 0;
+        Container c = containers[size - 1];
+        return ((keys[size - 1] << 16) | c.select(c.cardinality() - 1)) + 1;
+    }
+
+    /**
+     * Returns true if this set contains no bits that are set
+     * to {@code true}.
+     *
+     * @return boolean indicating whether this set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} in this set.
+     *
+     * @return the number of bits set to {@code true} in this set
+     */
+    public int cardinality() {
+        int sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += containers[i].cardinality();
+        return sum;
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} at indices less
+     * than or equal to the specified index.
+     *
+     * @param  bitIndex the bit index
+     * @return the number of set bits in {@code [0, bitIndex]}
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public int rank(int bitIndex) {
+        checkIndex(bitIndex);
+        int hb = bitIndex >>> 16;
+        int r = 0;
+        for (int i = 0; i < size; i++) {
+            int k = keys[i];
+            if (k < hb)
+                r += containers[i].cardinality();
+            else {
+                if (k == hb)
+                    r += containers[i].rank(bitIndex & 0xFFFF);
+                break;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the index of the {@code j}-th bit set to {@code true},
+     * counting from zero, so that {@code select(rank(i) - 1) == i} for
+     * every set bit {@code i}.
+     *
+     * @param  j the number of set bits to skip
+     * @return the index of the {@code j}-th set bit
+     * @throws IndexOutOfBoundsException if {@code j} is negative or not
+     *         less than {@link #cardinality()}
+     */
+    public int select(int j) {
+        if (j < 0)
+            throw new IndexOutOfBoundsException("j < 0: " + j);
+        int remaining = j;
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            int card = c.cardinality();
+            if (remaining < card)
+                return (keys[i] << 16) | c.select(remaining);
+            remaining -= card;
+        }
+        throw new IndexOutOfBoundsException("j >= cardinality(): " + j);
+    }
+
+    /**
+     * Performs a logical <b>AND</b> of this target bit set with the
+     * argument bit set. This bit set is modified so that each bit in it
+     * has the value {@code true} if and only if it both initially had
+     * the value {@code true} and the corresponding bit in the bit set
+     * argument also had the value {@code true}.
+     *
+     * @param set a bit set
+     */
+    public void and(CompressedBitSet set) {
+        if (this == set)
+            return;
+        int n = 0;
+        for (int i = 0, j = 0; i < size && j < set.size; ) {
+            int ki = keys[i], kj = set.keys[j];
+            if (ki < kj)
+                i++;
+            else if (ki > kj)
+                j++;
+            else {
+                Container c = Container.and(containers[i], set.containers[j]);
+                if (c != null) {
+                    keys[n] = keys[i];
+                    containers[n++] = c;
+                }
+                i++;
+                j++;
+            }
+        }
+        Arrays.fill(containers, n, size, null);
+        size = n;
+    }
+
+    /**
+     * Performs a logical <b>OR</b> of this bit set with the bit set
+     * argument. This bit set is modified so that a bit in it has the
+     * value {@code true} if and only if it either already had the
+     * value {@code true} or the corresponding bit in the bit set
+     * argument has the value {@code true}.
+     *
+     * @param set a bit set
+     */
+    public void or(CompressedBitSet set) {
+        if (this == set)
+            return;
+        merge(set, true);
+    }
+
+    /**
+     * Performs a logical <b>XOR</b> of this bit set with the bit set
+     * argument. This bit set is modified so that a bit in it has the
+     * value {@code true} if and only if one of the following
+     * statements holds:
+     * <ul>
+     * <li>The bit initially has the value {@code true}, and the
+     *     corresponding bit in the argument has the value {@code false}.
+     * <li>The bit initially has the value {@code false}, and the
+     *     corresponding bit in the argument has the value {@code true}.
+     * </ul>
+     *
+     * @param  set a bit set
+     */
+    public void xor(CompressedBitSet set) {
+        if (this == set) {
+            clear();
+            return;
+        }
+        merge(set, false);
+    }
+
+    /**
+     * Clears all of the bits in this set whose corresponding bit is
+     * set in the specified set.
+     *
+     * @param  set the set with which to mask this set
+     */
+    public void andNot(CompressedBitSet set) {
+        if (this == set) {
+            clear();
+            return;
+        }
+        int n = 0;
+        int i = 0;
+        for (int j = 0; i < size && j < set.size; ) {
+            int ki = keys[i], kj = set.keys[j];
+            if (ki < kj) {
+                keys[n] = keys[i];
+                containers[n++] = containers[i++];
+            } else if (ki > kj)
+                j++;
+            else {
+                Container c = Container.andNot(containers[i], set.containers[j]);
+                if (c != null) {
+                    keys[n] = keys[i];
+                    containers[n++] = c;
+                }
+                i++;
+                j++;
+            }
+        }
+        for (; i < size; i++) {
+            keys[n] = keys[i];
+            containers[n++] = containers[i];
+        }
+        Arrays.fill(containers, n, size, null);
+        size = n;
+    }
+
+    /**
+     * Shared body of or and xor, which both take the union of the keys.
+     */
+    private void merge(CompressedBitSet set, boolean or) {
+        int capacity = Math.max(4, size + set.size);
+        char[] k = new char[capacity];
+        Container[] cs = new Container[capacity];
+        int n = 0, i = 0, j = 0;
+        while (i < size && j < set.size) {
+            int ki = keys[i], kj = set.keys[j];
+            if (ki < kj) {
+                k[n] = keys[i];
+                cs[n++] = containers[i++];
+            } else if (ki > kj) {
+                k[n] = set.keys[j];
+                cs[n++] = set.containers[j++].copy();
+            } else {
+                Container c = or ?
+                    Container.or(containers[i], set.containers[j]) :
+                    Container.xor(containers[i], set.containers[j]);
+                if (c != null) {
+                    k[n] = keys[i];
+                    cs[n++] = c;
+                }
+                i++;
+                j++;
+            }
+        }
+        for (; i < size; i++) {
+            k[n] = keys[i];
+            cs[n++] = containers[i];
+        }
+        for (; j < set.size; j++) {
+            k[n] = set.keys[j];
+            cs[n++] = set.containers[j].copy();
+        }
+        keys = k;
+        containers = cs;
+        size = n;
+    }
+
+    /**
+     * Converts each container to a run container if that is its most
+     * compact form, and converts run containers that are no longer the
+     * most compact form back. This is worthwhile before serializing a
+     * set whose bits form long runs of consecutive indices.
+     *
+     * @return {@code true} if any container changed representation
+     */
+    public boolean runOptimize() {
+        boolean changed = false;
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            Container o = c.optimize();
+            if (o != c) {
+                containers[i] = o;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns a stream of indices for which this set contains a bit
+     * in the set state. The indices are returned in order, from lowest
+     * to highest. The size of the stream is the number of bits in the
+     * set state, equal to the value returned by the
+     * {@link #cardinality()} method.
+     *
+     * <p>The bit set must remain constant during the execution of the
+     * terminal stream operation.  Otherwise, the result of the terminal
+     * stream operation is undefined.
+     *
+     * @return a stream of integers representing set indices
+     */
+    public IntStream stream() {
+        class CompressedBitSetIterator implements PrimitiveIterator.OfInt {
+            int index;     // container holding next
+            int next = -1;
+
+            CompressedBitSetIterator() {
+                advance(0);
+            }
+
+            private void advance(int from) {
+                for (; index < size; index++, from = 0) {
+                    int v = from <= 0xFFFF ? containers[index].nextValue(from) : -1;
+                    if (v >= 0) {
+                        next = (keys[index] << 16) | v;
+                        return;
+                    }
+                }
+                next = -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next != -1) {
+                    int ret = next;
+                    advance((ret & 0xFFFF) + 1);
+                    return ret;
+                } else {
+                    throw new NoSuchElementException();
+                }
+            }
+        }
+
+        return StreamSupport.intStream(
+                () -> Spliterators.spliterator(
+                        new CompressedBitSetIterator(), cardinality(),
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED),
+                Spliterator.SIZED | Spliterator.SUBSIZED |
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED,
+                false);
+    }
+
+    // Serialization to and from byte buffers
+
+    /*
+     * The serialized form is little-endian:
+     *
+     *   int   SERIAL_COOKIE
+     *   int   number of containers n
+     *   n descriptors of DESCRIPTOR_BYTES each:
+     *     char  key
+     *     char  container type (ARRAY, BITMAP or RUN)
+     *     int   cardinality
+     *     int   offset of the container data from the start of the form
+     *   container data:
+     *     ARRAY:  cardinality chars, ascending
+     *     BITMAP: BITMAP_WORDS longs
+     *     RUN:    char number of runs r, then r pairs of chars
+     *             (start, length - 1)
+     *
+     * The descriptors allow map() to locate every container without
+     * reading any container data.
+     */
+
+    /**
+     * Returns the number of bytes that {@link #serialize} will write.
+     *
+     * @return the size in bytes of the serialized form of this set
+     */
+    public int serializedSize() {
+        int bytes = HEADER_BYTES + DESCRIPTOR_BYTES * size;
+        for (int i = 0; i < size; i++)
+            bytes += containers[i].serializedSize();
+        return bytes;
+    }
+
+    /**
+     * Writes this set to the given buffer, starting at its current
+     * position. On return the buffer's position is advanced by
+     * {@link #serializedSize()} bytes. The byte order of the buffer is
+     * ignored; the serialized form is always little-endian.
+     *
+     * @param  buffer the buffer to write to
+     * @throws BufferOverflowException if the buffer has fewer than
+     *         {@code serializedSize()} bytes remaining
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only
+     */
+    public void serialize(ByteBuffer buffer) {
+        if (buffer.remaining() < serializedSize())
+            throw new BufferOverflowException();
+        ByteBuffer out = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(SERIAL_COOKIE);
+        out.putInt(size);
+        int offset = HEADER_BYTES + DESCRIPTOR_BYTES * size;
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            out.putChar(keys[i]);
+            out.putChar((char) c.type());
+            out.putInt(c.cardinality());
+            out.putInt(offset);
+            offset += c.serializedSize();
+        }
+        for (int i = 0; i < size; i++)
+            containers[i].writeTo(out);
+        buffer.position(buffer.position() + out.position());
+    }
+
+    /**
+     * Reads a set written by {@link #serialize} from the given buffer,
+     * starting at its current position, copying its contents onto the
+     * heap. On return the buffer's position is advanced past the
+     * serialized form.
+     *
+     * @param  buffer the buffer to read from
+     * @return the set read from the buffer
+     * @throws IllegalArgumentException if the buffer does not contain
+     *         a serialized {@code CompressedBitSet}
+     * @throws BufferUnderflowException if the serialized form is truncated
+     */
+    public static CompressedBitSet deserialize(ByteBuffer buffer) {
+        CompressedBitSet set = map(buffer);
+        for (int i = 0; i < set.size; i++)
+            set.containers[i].materialize();
+        return set;
+    }
+
+    /**
+     * Returns a set backed by the serialized form at the current
+     * position of the given buffer, without copying its contents. This
+     * is typically used with a {@link java.nio.MappedByteBuffer} so
+     * that a large set can be queried directly from a file. On return
+     * the buffer's position is advanced past the serialized form.
+     *
+     * <p>The returned set reads its containers from the buffer, and the
+     * buffer must not be modified while the set is in use. The set may
+     * itself be modified; each container that is modified is first
+     * copied onto the heap, and the buffer is never written to.
+     *
+     * @param  buffer the buffer to read from
+     * @return a set backed by the buffer
+     * @throws IllegalArgumentException if the buffer does not contain
+     *         a serialized {@code CompressedBitSet}
+     * @throws BufferUnderflowException if the serialized form is truncated
+     */
+    public static CompressedBitSet map(ByteBuffer buffer) {
+        ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_BYTES)
+            throw new BufferUnderflowException();
+        if (in.getInt(0) != SERIAL_COOKIE)
+            throw new IllegalArgumentException("Not a serialized CompressedBitSet");
+        int n = in.getInt(4);
+        if (n < 0 || n > (1 << 15))
+            throw new IllegalArgumentException("Bad container count: " + n);
+        if (in.remaining() < HEADER_BYTES + DESCRIPTOR_BYTES * n)
+            throw new BufferUnderflowException();
+        char[] keys = new char[Math.max(4, n)];
+        Container[] containers = new Container[keys.length];
+        int end = HEADER_BYTES + DESCRIPTOR_BYTES * n;
+        for (int i = 0; i < n; i++) {
+            int d = HEADER_BYTES + DESCRIPTOR_BYTES * i;
+            char key = in.getChar(d);
+            int type = in.getChar(d + 2);
+            int card = in.getInt(d + 4);
+            int offset = in.getInt(d + 8);
+            if ((i > 0 && key <= keys[i - 1]) || key > 0x7FFF ||
+                card <= 0 || card > (1 << 16) || offset < end)
+                throw new IllegalArgumentException("Corrupt descriptor " + i);
+            Container c;
+            int length;
+            switch (type) {
+            case ARRAY:
+                length = card << 1;
+                c = new ArrayContainer(view(in, offset, length).asCharBuffer(), card);
+                break;
+            case BITMAP:
+                length = BITMAP_WORDS << 3;
+                c = new BitmapContainer(view(in, offset, length).asLongBuffer(), card);
+                break;
+            case RUN:
+                if (in.limit() - offset < 2)
+                    throw new BufferUnderflowException();
+                length = 2 + (in.getChar(offset) << 2);
+                CharBuffer runs = view(in, offset + 2, length - 2).asCharBuffer();
+                c = new RunContainer(runs, in.getChar(offset));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown container type " + type);
+            }
+            keys[i] = key;
+            containers[i] = c;
+            end = offset + length;
+        }
+        buffer.position(buffer.position() + end);
+        return new CompressedBitSet(keys, containers, n);
+    }
+
+    /**
+     * Returns a little-endian view of the given region of a buffer.
+     */
+    private static ByteBuffer view(ByteBuffer in, int offset, int length) {
+        if (offset > in.limit() - length)
+            throw new BufferUnderflowException();
+        ByteBuffer b = in.duplicate();
+        b.limit(offset + length);
+        b.position(offset);
+        return b.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Object methods
+
+    /**
+     * Cloning this {@code CompressedBitSet} produces a new set that is
+     * equal to it. Containers of a mapped set remain backed by the same
+     * buffer until either set modifies them.
+     *
+     * @return a clone of this bit set
+     */
+    public Object clone() {
+        try {
+            CompressedBitSet result = (CompressedBitSet) super.clone();
+            result.keys = keys.clone();
+            result.containers = new Container[containers.length];
+            for (int i = 0; i < size; i++)
+                result.containers[i] = containers[i].copy();
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares this object against the specified object. The result
+     * is {@code true} if and only if the argument is not {@code null}
+     * and is a {@code CompressedBitSet} object that has exactly the same
+     * set of bits set to {@code true} as this set, regardless of how
+     * either set's containers are represented.
+     *
+     * @param  obj the object to compare with
+     * @return {@code true} if the objects are the same;
+     *         {@code false} otherwise
+     */
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof CompressedBitSet))
+            return false;
+        CompressedBitSet set = (CompressedBitSet) obj;
+        if (size != set.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != set.keys[i] ||
+                !Container.sameValues(containers[i], set.containers[i]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this bit set. The hash code
+     * depends only on which bits are set.
+     *
+     * @return the hash code value for this bit set
+     */
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            h = 31 * h + keys[i];
+            for (int v = c.nextValue(0); v >= 0;
+                 v = v < 0xFFFF ? c.nextValue(v + 1) : -1)
+                h = 31 * h + v;
+        }
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this bit set, in the same
+     * format as {@link BitSet#toString()}.
+     *
+     * @return a string representation of this bit set
+     */
+    public String toString() {
+        StringBuilder b = new StringBuilder("{");
+        String sep = "";
+        for (PrimitiveIterator.OfInt it = stream().iterator(); it.hasNext(); ) {
+            b.append(sep).append(it.nextInt());
+            sep = ", ";
+        }
+        return b.append('}').toString();
+    }
+
+    // Containers
+
+    /**
+     * The set bits of one 2<sup>16</sup> chunk, as values in
+     * {@code [0, 0xFFFF]}. Mutators return the container that should
+     * replace the receiver, which may be the receiver itself.
+     */
+    private static abstract class Container {
+        /** Returns the number of values, always positive when stored. */
+        abstract int cardinality();
+
+        abstract boolean contains(int x);
+
+        abstract Container add(int x);
+
+        /** May return an empty container, which the caller discards. */
+        abstract Container remove(int x);
+
+        /** Returns the number of values less than or equal to x. */
+        abstract int rank(int x);
+
+        /** Returns the j-th smallest value, for j < cardinality(). */
+        abstract int select(int j);
+
+        /**
+         * Returns the smallest value >= from, or -1 if there is none.
+         * The argument must not exceed 0xFFFF.
+         */
+        abstract int nextValue(int from);
+
+        /**
+         * Returns the values in ascending order, in an array of at
+         * least cardinality() elements that the caller must not modify.
+         */
+        abstract char[] values();
+
+        /** Sets the bits for all values in a BITMAP_WORDS array. */
+        abstract void orInto(long[] words);
+
+        /** Returns a copy that can be mutated independently. */
+        abstract Container copy();
+
+        /** Copies any buffer-backed contents onto the heap. */
+        abstract void materialize();
+
+        abstract int type();
+
+        abstract int serializedSize();
+
+        /** Writes the serialized container data, little-endian. */
+        abstract void writeTo(ByteBuffer out);
+
+        /** Returns the number of runs of consecutive values. */
+        int runCount() {
+            char[] v = values();
+            int n = cardinality();
+            int runs = 0;
+            for (int i = 0; i < n; i++) {
+                if (i == 0 || v[i] != v[i - 1] + 1)
+                    runs++;
+            }
+            return runs;
+        }
+
+        long[] toWords() {
+            long[] words = new long[BITMAP_WORDS];
+            orInto(words);
+            return words;
+        }
+
+        Container toArrayContainer() {
+            return new ArrayContainer(values(), cardinality());
+        }
+
+        Container toBitmapContainer() {
+            return new BitmapContainer(toWords(), cardinality());
+        }
+
+        /** Returns the most compact representation of these values. */
+        Container optimize() {
+            int card = cardinality();
+            int runs = runCount();
+            int runBytes = 2 + (runs << 2);
+            int otherBytes = card <= ARRAY_MAX ? card << 1 : BITMAP_WORDS << 3;
+            if (type() == RUN) {
+                if (runBytes <= otherBytes)
+                    return this;
+                return card <= ARRAY_MAX ? toArrayContainer() : toBitmapContainer();
+            }
+            return runBytes < otherBytes ? RunContainer.of(values(), card, runs) : this;
+        }
+
+        /**
+         * Returns an array or bitmap container holding the first n
+         * elements of v, or null if n is zero.
+         */
+        static Container of(char[] v, int n) {
+            if (n == 0)
+                return null;
+            if (n <= ARRAY_MAX)
+                return new ArrayContainer(v, n);
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < n; i++)
+                words[v[i] >>> 6] |= 1L << v[i];
+            return new BitmapContainer(words, n);
+        }
+
+        /**
+         * Returns an array or bitmap container holding the given bits,
+         * or null if none are set. The words array is not copied.
+         */
+        static Container of(long[] words) {
+            int card = 0;
+            for (long w : words)
+                card += Long.bitCount(w);
+            if (card == 0)
+                return null;
+            if (card > ARRAY_MAX)
+                return new BitmapContainer(words, card);
+            char[] v = new char[card];
+            int n = 0;
+            for (int u = 0; u < BITMAP_WORDS; u++) {
+                for (long w = words[u]; w != 0; w &= w - 1)
+                    v[n++] = (char) ((u << 6) + Long.numberOfTrailingZeros(w));
+            }
+            return new ArrayContainer(v, card);
+        }
+
+        /*
+         * The binary operations below return a new container, or null
+         * if the result is empty, and never modify their arguments.
+         * Sparse operands are combined by merging sorted values and
+         * dense ones word by word.
+         */
+
+        static Container and(Container a, Container b) {
+            if (a.cardinality() > b.cardinality()) {
+                Container t = a; a = b; b = t;
+            }
+            int na = a.cardinality();
+            if (na <= ARRAY_MAX) {
+                char[] va = a.values();
+                char[] out = new char[na];
+                int n = 0;
+                for (int i = 0; i < na; i++) {
+                    if (b.contains(va[i]))
+                        out[n++] = va[i];
+                }
+                return of(out, n);
+            }
+            long[] words = a.toWords();
+            long[] other = b.toWords();
+            for (int i = 0; i < BITMAP_WORDS; i++)
+                words[i] &= other[i];
+            return of(words);
+        }
+
+        static Container or(Container a, Container b) {
+            int na = a.cardinality(), nb = b.cardinality();
+            if (na + nb <= ARRAY_MAX) {
+                char[] va = a.values(), vb = b.values();
+                char[] out = new char[na + nb];
+                int n = 0, i = 0, j = 0;
+                while (i < na && j < nb) {
+                    char x = va[i], y = vb[j];
+                    if (x < y) {
+                        out[n++] = x; i++;
+                    } else if (x > y) {
+                        out[n++] = y; j++;
+                    } else {
+                        out[n++] = x; i++; j++;
+                    }
+                }
+                while (i < na)
+                    out[n++] = va[i++];
+                while (j < nb)
+                    out[n++] = vb[j++];
+                return of(out, n);
+            }
+            long[] words = a.toWords();
+            b.orInto(words);
+            return of(words);
+        }
+
+        static Container xor(Container a, Container b) {
+            int na = a.cardinality(), nb = b.cardinality();
+            if (na + nb <= ARRAY_MAX) {
+                char[] va = a.values(), vb = b.values();
+                char[] out = new char[na + nb];
+                int n = 0, i = 0, j = 0;
+                while (i < na && j < nb) {
+                    char x = va[i], y = vb[j];
+                    if (x < y) {
+                        out[n++] = x; i++;
+                    } else if (x > y) {
+                        out[n++] = y; j++;
+                    } else {
+                        i++; j++;
+                    }
+                }
+                while (i < na)
+                    out[n++] = va[i++];
+                while (j < nb)
+                    out[n++] = vb[j++];
+                return of(out, n);
+            }
+            long[] words = a.toWords();
+            long[] other = b.toWords();
+            for (int i = 0; i < BITMAP_WORDS; i++)
+                words[i] ^= other[i];
+            return of(words);
+        }
+
+        static Container andNot(Container a, Container b) {
+            int na = a.cardinality();
+            if (na <= ARRAY_MAX) {
+                char[] va = a.values();
+                char[] out = new char[na];
+                int n = 0;
+                for (int i = 0; i < na; i++) {
+                    if (!b.contains(va[i]))
+                        out[n++] = va[i];
+                }
+                return of(out, n);
+            }
+            long[] words = a.toWords();
+            long[] other = b.toWords();
+            for (int i = 0; i < BITMAP_WORDS; i++)
+                words[i] &= ~other[i];
+            return of(words);
+        }
+
+        static boolean sameValues(Container a, Container b) {
+            int n = a.cardinality();
+            if (n != b.cardinality())
+                return false;
+            if (n > ARRAY_MAX)
+                return Arrays.equals(a.toWords(), b.toWords());
+            char[] va = a.values(), vb = b.values();
+            for (int i = 0; i < n; i++) {
+                if (va[i] != vb[i])
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sets bits [from, to) in a bitmap container's words.
+     */
+    private static void setRange(long[] words, int from, int to) {
+        int startWord = from >>> 6;
+        int endWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (startWord == endWord) {
+            words[startWord] |= firstMask & lastMask;
+        } else {
+            words[startWord] |= firstMask;
+            for (int i = startWord + 1; i < endWord; i++)
+                words[i] = -1L;
+            words[endWord] |= lastMask;
+        }
+    }
+
+    /**
+     * A sorted array of at most ARRAY_MAX values.
+     */
+    private static final class ArrayContainer extends Container {
+        private char[] content;    // null while backed by mapped
+        private CharBuffer mapped;
+        private int card;
+
+        ArrayContainer(int x) {
+            content = new char[4];
+            content[0] = (char) x;
+            card = 1;
+        }
+
+        ArrayContainer(char[] content, int card) {
+            this.content = content;
+            this.card = card;
+        }
+
+        ArrayContainer(CharBuffer mapped, int card) {
+            this.mapped = mapped;
+            this.card = card;
+        }
+
+        private char at(int i) {
+            char[] a = content;
+            return (a != null) ? a[i] : mapped.get(i);
+        }
+
+        private int find(int x) {
+            int lo = 0, hi = card - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int v = at(mid);
+                if (v < x)
+                    lo = mid + 1;
+                else if (v > x)
+                    hi = mid - 1;
+                else
+                    return mid;
+            }
+            return -(lo + 1);
+        }
+
+        private void ensureHeap(int minCapacity) {
+            if (content == null) {
+                content = new char[Math.max(minCapacity, card)];
+                mapped.duplicate().get(content, 0, card);
+                mapped = null;
+            } else if (content.length < minCapacity) {
+                int newCapacity = Math.min(ARRAY_MAX,
+                        Math.max(minCapacity, card < 64 ? card * 2 : card + (card >> 1)));
+                content = Arrays.copyOf(content, newCapacity);
+            }
+        }
+
+        int cardinality() { return card; }
+
+        boolean contains(int x) {
+            return find(x) >= 0;
+        }
+
+        Container add(int x) {
+            int i = find(x);
+            if (i >= 0)
+                return this;
+            if (card >= ARRAY_MAX)
+                return toBitmapContainer().add(x);
+            ensureHeap(card + 1);
+            i = -i - 1;
+            System.arraycopy(content, i, content, i + 1, card - i);
+            content[i] = (char) x;
+            card++;
+            return this;
+        }
+
+        Container remove(int x) {
+            int i = find(x);
+            if (i < 0)
+                return this;
+            ensureHeap(card);
+            System.arraycopy(content, i + 1, content, i, card - i - 1);
+            card--;
+            return this;
+        }
+
+        int rank(int x) {
+            int i = find(x);
+            return (i >= 0) ? i + 1 : -i - 1;
+        }
+
+        int select(int j) {
+            return at(j);
+        }
+
+        int nextValue(int from) {
+            int i = find(from);
+            if (i < 0)
+                i = -i - 1;
+            return (i < card) ? at(i) : -1;
+        }
+
+        char[] values() {
+            if (content != null)
+                return content;
+            char[] v = new char[card];
+            mapped.duplicate().get(v, 0, card);
+            return v;
+        }
+
+        void orInto(long[] words) {
+            for (int i = 0; i < card; i++) {
+                int v = at(i);
+                words[v >>> 6] |= 1L << v;
+            }
+        }
+
+        Container copy() {
+            return (content != null) ?
+                new ArrayContainer(Arrays.copyOf(content, card), card) :
+                new ArrayContainer(mapped, card);
+        }
+
+        void materialize() {
+            ensureHeap(card);
+        }
+
+        Container toArrayContainer() {
+            return this;
+        }
+
+        int type() { return ARRAY; }
+
+        int serializedSize() { return card << 1; }
+
+        void writeTo(ByteBuffer out) {
+            for (int i = 0; i < card; i++)
+                out.putChar(at(i));
+        }
+    }
+
+    /**
+     * A bitmap of BITMAP_WORDS words holding more than ARRAY_MAX values.
+     */
+    private static final class BitmapContainer extends Container {
+        private long[] words;      // null while backed by mapped
+        private LongBuffer mapped;
+        private int card;
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        BitmapContainer(LongBuffer mapped, int card) {
+            this.mapped = mapped;
+            this.card = card;
+        }
+
+        private long word(int i) {
+            long[] w = words;
+            return (w != null) ? w[i] : mapped.get(i);
+        }
+
+        private void ensureHeap() {
+            if (words == null) {
+                words = new long[BITMAP_WORDS];
+                mapped.duplicate().get(words);
+                mapped = null;
+            }
+        }
+
+        int cardinality() { return card; }
+
+        boolean contains(int x) {
+            return (word(x >>> 6) & (1L << x)) != 0;
+        }
+
+        Container add(int x) {
+            if (contains(x))
+                return this;
+            ensureHeap();
+            words[x >>> 6] |= 1L << x;
+            card++;
+            return this;
+        }
+
+        Container remove(int x) {
+            if (!contains(x))
+                return this;
+            ensureHeap();
+            words[x >>> 6] &= ~(1L << x);
+            if (--card <= ARRAY_MAX)
+                return toArrayContainer();
+            return this;
+        }
+
+        int rank(int x) {
+            int u = x >>> 6;
+            int r = 0;
+            for (int i = 0; i < u; i++)
+                r += Long.bitCount(word(i));
+            return r + Long.bitCount(word(u) << (63 - (x & 63)));
+        }
+
+        int select(int j) {
+            for (int u = 0; ; u++) {
+                long w = word(u);
+                int c = Long.bitCount(w);
+                if (j < c) {
+                    for (; j > 0; j--)
+                        w &= w - 1;
+                    return (u << 6) + Long.numberOfTrailingZeros(w);
+                }
+                j -= c;
+            }
+        }
+
+        int nextValue(int from) {
+            int u = from >>> 6;
+            long w = word(u) & (-1L << from);
+            while (true) {
+                if (w != 0)
+                    return (u << 6) + Long.numberOfTrailingZeros(w);
+                if (++u == BITMAP_WORDS)
+                    return -1;
+                w = word(u);
+            }
+        }
+
+        char[] values() {
+            char[] v = new char[card];
+            int n = 0;
+            for (int u = 0; u < BITMAP_WORDS; u++) {
+                for (long w = word(u); w != 0; w &= w - 1)
+                    v[n++] = (char) ((u << 6) + Long.numberOfTrailingZeros(w));
+            }
+            return v;
+        }
+
+        void orInto(long[] dst) {
+            for (int i = 0; i < BITMAP_WORDS; i++)
+                dst[i] |= word(i);
+        }
+
+        long[] toWords() {
+            if (words != null)
+                return words.clone();
+            long[] w = new long[BITMAP_WORDS];
+            mapped.duplicate().get(w);
+            return w;
+        }
+
+        int runCount() {
+            int runs = 0;
+            long carry = 0L;    // top bit of the previous word
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long w = word(i);
+                runs += Long.bitCount(w & ~((w << 1) | carry));
+                carry = w >>> 63;
+            }
+            return runs;
+        }
+
+        Container copy() {
+            return (words != null) ?
+                new BitmapContainer(words.clone(), card) :
+                new BitmapContainer(mapped, card);
+        }
+
+        void materialize() {
+            ensureHeap();
+        }
+
+        Container toBitmapContainer() {
+            return this;
+        }
+
+        int type() { return BITMAP; }
+
+        int serializedSize() { return BITMAP_WORDS << 3; }
+
+        void writeTo(ByteBuffer out) {
+            for (int i = 0; i < BITMAP_WORDS; i++)
+                out.putLong(word(i));
+        }
+    }
+
+    /**
+     * Runs of consecutive values, stored as (start, length - 1) pairs.
+     * Run containers are immutable; mutators return an array or bitmap
+     * container.
+     */
+    private static final class RunContainer extends Container {
+        private char[] runs;       // null while backed by mapped
+        private CharBuffer mapped;
+        private final int nruns;
+        private final int card;
+
+        RunContainer(char[] runs, int nruns) {
+            this.runs = runs;
+            this.nruns = nruns;
+            this.card = computeCardinality();
+        }
+
+        RunContainer(CharBuffer mapped, int nruns) {
+            this.mapped = mapped;
+            this.nruns = nruns;
+            this.card = computeCardinality();
+        }
+
+        static RunContainer of(char[] v, int n, int nruns) {
+            char[] runs = new char[nruns << 1];
+            int r = 0;
+            for (int i = 0; i < n; ) {
+                int start = v[i];
+                int end = start;
+                while (++i < n && v[i] == end + 1)
+                    end++;
+                runs[r++] = (char) start;
+                runs[r++] = (char) (end - start);
+            }
+            return new RunContainer(runs, nruns);
+        }
+
+        private char at(int i) {
+            char[] a = runs;
+            return (a != null) ? a[i] : mapped.get(i);
+        }
+
+        private int start(int r) {
+            return at(r << 1);
+        }
+
+        private int last(int r) {
+            return at(r << 1) + at((r << 1) + 1);
+        }
+
+        private int computeCardinality() {
+            int c = 0;
+            for (int r = 0; r < nruns; r++)
+                c += at((r << 1) + 1) + 1;
+            return c;
+        }
+
+        /** Returns the last run starting at or before x, or -1. */
+        private int floorRun(int x) {
+            int lo = 0, hi = nruns - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (start(mid) <= x)
+                    lo = mid + 1;
+                else
+                    hi = mid - 1;
+            }
+            return hi;
+        }
+
+        int cardinality() { return card; }
+
+        boolean contains(int x) {
+            int r = floorRun(x);
+            return r >= 0 && x <= last(r);
+        }
+
+        Container add(int x) {
+            if (contains(x))
+                return this;
+            Container c = card < ARRAY_MAX ? toArrayContainer() : toBitmapContainer();
+            return c.add(x);
+        }
+
+        Container remove(int x) {
+            if (!contains(x))
+                return this;
+            Container c = card <= ARRAY_MAX ? toArrayContainer() : toBitmapContainer();
+            return c.remove(x);
+        }
+
+        int rank(int x) {
+            int rank = 0;
+            for (int r = 0; r < nruns; r++) {
+                int s = start(r);
+                if (x < s)
+                    break;
+                int e = last(r);
+                if (x <= e)
+                    return rank + x - s + 1;
+                rank += e - s + 1;
+            }
+            return rank;
+        }
+
+        int select(int j) {
+            for (int r = 0; ; r++) {
+                int len = at((r << 1) + 1) + 1;
+                if (j < len)
+                    return start(r) + j;
+                j -= len;
+            }
+        }
+
+        int nextValue(int from) {
+            int r = floorRun(from);
+            if (r >= 0 && from <= last(r))
+                return from;
+            return (++r < nruns) ? start(r) : -1;
+        }
+
+        char[] values() {
+            char[] v = new char[card];
+            int n = 0;
+            for (int r = 0; r < nruns; r++) {
+                for (int x = start(r), e = last(r); x <= e; x++)
+                    v[n++] = (char) x;
+            }
+            return v;
+        }
+
+        void orInto(long[] words) {
+            for (int r = 0; r < nruns; r++)
+                setRange(words, start(r), last(r) + 1);
+        }
+
+        int runCount() {
+            return nruns;
+        }
+
+        Container copy() {
+            // Immutable, so may be shared
+            return this;
+        }
+
+        void materialize() {
+            if (runs == null) {
+                char[] a = new char[nruns << 1];
+                mapped.duplicate().get(a);
+                runs = a;
+                mapped = null;
+            }
+        }
+
+        int type() { return RUN; }
+
+        int serializedSize() { return 2 + (nruns << 2); }
+
+        void writeTo(ByteBuffer out) {
+            out.putChar((char) nruns);
+            for (int i = 0; i < nruns << 1; i++)
+                out.putChar(at(i));
+        }
+    }
+}
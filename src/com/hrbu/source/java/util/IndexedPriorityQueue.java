@@ -0,0 +1,605 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+import java.util.function.Consumer;
+
+/**
+ * An unbounded priority {@linkplain Queue queue} based on a
+ * <em>d</em>-ary heap, whose elements can be located in constant time
+ * through the {@link Handle} returned when they are inserted. The
+ * elements are ordered according to their {@linkplain Comparable
+ * natural ordering}, or by a {@link Comparator} provided at queue
+ * construction time. This queue does not permit {@code null} elements.
+ *
+ * <p>Unlike {@link PriorityQueue}, whose {@code remove(Object)} must
+ * first search the heap for the element, this queue supports removing
+ * an element, or restoring the heap order after its priority has
+ * changed (for example a <em>decrease-key</em> step of Dijkstra's
+ * algorithm), in logarithmic time given its handle:
+ *
+ * <pre> {@code
+ * IndexedPriorityQueue<Node> q = new IndexedPriorityQueue<>(byDistance);
+ * IndexedPriorityQueue.Handle<Node> h = q.insert(node);
+ * ...
+ * node.distance = shorter;
+ * q.update(h);
+ * }</pre>
+ *
+ * <p>The heap <em>arity</em>, the number of children of each node, may
+ * be chosen at construction time. A binary heap performs the fewest
+ * comparisons; a 4-ary heap is shallower, and since the children of a
+ * node are adjacent in the backing array it touches fewer cache lines
+ * per sift, which usually pays off for large queues with cheap
+ * comparisons. For primitive {@code long} priorities, see
+ * {@link LongPriorityQueue}.
+ *
+ * <p>The <em>head</em> of this queue is the <em>least</em> element
+ * with respect to the specified ordering. If multiple elements are
+ * tied for least value, the head is one of those elements -- ties are
+ * broken arbitrarily.
+ *
+ * <p>This class and its iterator implement all of the
+ * <em>optional</em> methods of the {@link Collection} and {@link
+ * Iterator} interfaces. The iterator does not traverse the elements
+ * in any particular order.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * Multiple threads should not access an {@code IndexedPriorityQueue}
+ * instance concurrently if any of the threads modifies the queue.
+ *
+ * <p>Implementation note: this implementation provides O(log(n)) time
+ * for {@code offer}, {@code insert}, {@code poll}, {@code remove()},
+ * {@code remove(Handle)} and {@code update}; linear time for the
+ * {@code remove(Object)} and {@code contains(Object)} methods; and
+ * constant time for the retrieval methods ({@code peek},
+ * {@code element}, and {@code size}).
+ *
+ * @param <E> the type of elements held in this collection
+ * @see PriorityQueue
+ * @see LongPriorityQueue
+ */
+public class IndexedPriorityQueue<E> extends AbstractQueue<E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 11;
+
+    /**
+     * The maximum arity; larger heaps gain nothing from extra width.
+     */
+    private static final int MAX_ARITY = 16;
+
+    /**
+     * A reference to an element in an {@code IndexedPriorityQueue},
+     * returned by {@link IndexedPriorityQueue#insert}. A handle remains
+     * valid until its element is removed from the queue.
+     *
+     * @param <E> the type of the element
+     */
+    public static final class Handle<E> {
+        E element;
+        /** Position in the heap array, or -1 once removed. */
+        int index;
+
+        Handle(E element, int index) {
+            this.element = element;
+            this.index = index;
+        }
+
+        /**
+         * Returns the element this handle refers to.
+         *
+         * @return the element
+         */
+        public E element() {
+            return element;
+        }
+
+        /**
+         * Returns {@code true} if the element is still in the queue it
+         * was inserted into.
+         *
+         * @return {@code true} if the element has not been removed
+         */
+        public boolean isQueued() {
+            return index >= 0;
+        }
+    }
+
+    /**
+     * Priority queue represented as a balanced d-ary heap of handles,
+     * with d == 1 << shift: the children of queue[n] are
+     * queue[(n << shift) + 1] through queue[(n << shift) + d], and each
+     * handle's index field holds its own position. For each node n in
+     * the heap and each descendant m of n, n <= m.
+     */
+    private Handle<E>[] queue;
+
+    /**
+     * The number of elements in the priority queue.
+     */
+    private int size;
+
+    /**
+     * log2 of the heap arity.
+     */
+    private final int shift;
+
+    /**
+     * The comparator, or null if priority queue uses elements'
+     * natural ordering.
+     */
+    private final Comparator<? super E> comparator;
+
+    /**
+     * The number of times this priority queue has been
+     * <i>structurally modified</i>.  See AbstractList for gory details.
+     */
+    private transient int modCount;
+
+    /**
+     * Creates a binary {@code IndexedPriorityQueue} that orders its
+     * elements according to their {@linkplain Comparable natural
+     * ordering}.
+     */
+    public IndexedPriorityQueue() {
+        this(2, null);
+    }
+
+    /**
+     * Creates a binary {@code IndexedPriorityQueue} whose elements are
+     * ordered according to the specified comparator.
+     *
+     * @param  comparator the comparator that will be used to order this
+     *         priority queue.  If {@code null}, the {@linkplain Comparable
+     *         natural ordering} of the elements will be used.
+     */
+    public IndexedPriorityQueue(Comparator<? super E> comparator) {
+        this(2, comparator);
+    }
+
+    /**
+     * Creates an {@code IndexedPriorityQueue} with the given heap arity
+     * whose elements are ordered according to the specified comparator.
+     *
+     * @param  arity the number of children of each heap node: 2, 4, 8
+     *         or 16
+     * @param  comparator the comparator that will be used to order this
+     *         priority queue.  If {@code null}, the {@linkplain Comparable
+     *         natural ordering} of the elements will be used.
+     * @throws IllegalArgumentException if {@code arity} is not a power
+     *         of two between 2 and 16
+     */
+    @SuppressWarnings("unchecked")
+    public IndexedPriorityQueue(int arity, Comparator<? super E> comparator) {
+        if (arity < 2 || arity > MAX_ARITY || (arity & (arity - 1)) != 0)
+            throw new IllegalArgumentException("arity: " + arity);
+        this.shift = Integer.numberOfTrailingZeros(arity);
+        this.comparator = comparator;
+        this.queue = (Handle<E>[]) new Handle<?>[DEFAULT_INITIAL_CAPACITY];
+    }
+
+    private void grow() {
+        int oldCapacity = queue.length;
+        // Double size if small; else grow by 50%
+        int newCapacity = oldCapacity + ((oldCapacity < 64) ?
+                                         (oldCapacity + 2) :
+                                         (oldCapacity >> 1));
+        if (newCapacity - (Integer.MAX_VALUE - 8) > 0) {
+            if (oldCapacity == Integer.MAX_VALUE - 8)
+                throw new OutOfMemoryError();
+            newCapacity = Integer.MAX_VALUE - 8;
+        }
+        queue = Arrays.copyOf(queue, newCapacity);
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     *
+     * @return {@code true} (as specified by {@link Queue#offer})
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        insert(e);
+        return true;
+    }
+
+    /**
+     * Inserts the specified element into this priority queue and
+     * returns a handle through which it can later be updated or
+     * removed.
+     *
+     * @param  e the element to insert
+     * @return a handle for the inserted element
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public Handle<E> insert(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        int i = size;
+        if (i >= queue.length)
+            grow();
+        Handle<E> h = new Handle<>(e, i);
+        if (i == 0) {
+            // Check comparability the way PriorityQueue does
+            compare(e, e);
+            queue[0] = h;
+        } else
+            siftUp(i, h);
+        // Publish only once no comparison can throw
+        size = i + 1;
+        modCount++;
+        return h;
+    }
+
+    /**
+     * Restores the heap order after the priority of the handle's
+     * element has changed, in either direction.
+     *
+     * @param  h a handle returned by this queue
+     * @throws IllegalArgumentException if the handle's element is not
+     *         in this queue
+     */
+    public void update(Handle<E> h) {
+        int i = indexOf(h);
+        modCount++;
+        if (i > 0 && compare(h.element, queue[(i - 1) >>> shift].element) < 0)
+            siftUp(i, h);
+        else
+            siftDown(i, h);
+    }
+
+    /**
+     * Replaces the handle's element with the specified element and
+     * restores the heap order. This is the way to change the priority
+     * of immutable elements.
+     *
+     * @param  h a handle returned by this queue
+     * @param  e the new element
+     * @return the element previously referred to by the handle
+     * @throws IllegalArgumentException if the handle's element is not
+     *         in this queue
+     * @throws NullPointerException if the specified element is null
+     */
+    public E replace(Handle<E> h, E e) {
+        if (e == null)
+            throw new NullPointerException();
+        indexOf(h);
+        E old = h.element;
+        h.element = e;
+        update(h);
+        return old;
+    }
+
+    /**
+     * Removes the handle's element from this queue, if it is present.
+     *
+     * @param  h a handle returned by this queue
+     * @return {@code true} if the element was removed, {@code false} if
+     *         it had already been removed
+     * @throws IllegalArgumentException if the handle belongs to another
+     *         queue
+     */
+    public boolean remove(Handle<E> h) {
+        if (h.index < 0)
+            return false;
+        removeAt(indexOf(h));
+        return true;
+    }
+
+    private int indexOf(Handle<E> h) {
+        int i = h.index;
+        if (i < 0 || i >= size || queue[i] != h)
+            throw new IllegalArgumentException("Handle not in this queue");
+        return i;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this
+     * queue, if it is present. This requires a linear scan; use
+     * {@link #remove(Handle)} when the handle is available.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        int i = indexOf(o);
+        if (i == -1)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    private int indexOf(Object o) {
+        if (o != null) {
+            for (int i = 0; i < size; i++)
+                if (o.equals(queue[i].element))
+                    return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    public E peek() {
+        return (size == 0) ? null : queue[0].element;
+    }
+
+    /**
+     * Returns the handle of the head of this queue, or {@code null} if
+     * this queue is empty.
+     *
+     * @return the handle of the head of this queue, or {@code null}
+     */
+    public Handle<E> peekHandle() {
+        return (size == 0) ? null : queue[0];
+    }
+
+    public E poll() {
+        if (size == 0)
+            return null;
+        Handle<E> h = queue[0];
+        removeAt(0);
+        return h.element;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all of the elements from this priority queue.
+     * The queue will be empty after this call returns, and all
+     * outstanding handles become invalid.
+     */
+    public void clear() {
+        modCount++;
+        for (int i = 0; i < size; i++) {
+            queue[i].index = -1;
+            queue[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the comparator used to order the elements in this
+     * queue, or {@code null} if this queue is sorted according to
+     * the {@linkplain Comparable natural ordering} of its elements.
+     *
+     * @return the comparator used to order this queue, or
+     *         {@code null} if this queue is sorted according to the
+     *         natural ordering of its elements
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns the heap arity chosen at construction.
+     *
+     * @return the number of children of each heap node
+     */
+    public int arity() {
+        return 1 << shift;
+    }
+
+    public void forEach(Consumer<? super E> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int expectedModCount = modCount;
+        for (int i = 0; i < size && modCount == expectedModCount; i++)
+            action.accept(queue[i].element);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue. The iterator
+     * does not return the elements in any particular order.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    private final class Itr implements Iterator<E> {
+        /**
+         * Index (into queue array) of element to be returned by
+         * subsequent call to next.
+         */
+        private int cursor;
+
+        /**
+         * Handle returned by the most recent call to next, or null if
+         * it has been removed.
+         */
+        private Handle<E> lastRet;
+
+        /**
+         * Whether lastRet was drawn from the forgetMeNot list rather
+         * than from position cursor - 1.
+         */
+        private boolean lastRetForgotten;
+
+        /**
+         * Handles moved from the unvisited portion of the heap into the
+         * visited portion by removals, as in PriorityQueue.Itr.
+         */
+        private ArrayDeque<Handle<E>> forgetMeNot;
+
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return cursor < size ||
+                (forgetMeNot != null && !forgetMeNot.isEmpty());
+        }
+
+        public E next() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (cursor < size) {
+                lastRetForgotten = false;
+                return (lastRet = queue[cursor++]).element;
+            }
+            if (forgetMeNot != null) {
+                lastRetForgotten = true;
+                lastRet = forgetMeNot.poll();
+                if (lastRet != null)
+                    return lastRet.element;
+            }
+            throw new NoSuchElementException();
+        }
+
+        public void remove() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (lastRet == null)
+                throw new IllegalStateException();
+            Handle<E> moved = removeAt(lastRet.index);
+            if (!lastRetForgotten) {
+                if (moved == null)
+                    cursor--;
+                else {
+                    if (forgetMeNot == null)
+                        forgetMeNot = new ArrayDeque<>();
+                    forgetMeNot.add(moved);
+                }
+            }
+            lastRet = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Removes the ith element from queue.
+     *
+     * Normally this method leaves the elements at up to i-1,
+     * inclusive, untouched.  Under these circumstances, it returns
+     * null.  Occasionally, in order to maintain the heap invariant,
+     * it must swap a later element of the list with one earlier than
+     * i.  Under these circumstances, this method returns the handle
+     * that was previously at the end of the list and is now at some
+     * position before i. This fact is used by iterator.remove so as to
+     * avoid missing traversing elements.
+     */
+    private Handle<E> removeAt(int i) {
+        modCount++;
+        Handle<E> removed = queue[i];
+        removed.index = -1;
+        int s = --size;
+        if (s == i) // removed last element
+            queue[i] = null;
+        else {
+            Handle<E> moved = queue[s];
+            queue[s] = null;
+            siftDown(i, moved);
+            if (queue[i] == moved) {
+                siftUp(i, moved);
+                if (queue[i] != moved)
+                    return moved;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return (comparator == null) ?
+            ((Comparable<? super E>) a).compareTo(b) :
+            comparator.compare(a, b);
+    }
+
+    /**
+     * Inserts handle x at position k, maintaining heap invariant by
+     * promoting x up the tree until it is greater than or equal to
+     * its parent, or is the root. The final position is found before
+     * any handle is moved, so that a comparison that throws leaves
+     * the heap unchanged.
+     */
+    private void siftUp(int k, Handle<E> x) {
+        Handle<E>[] q = queue;
+        E e = x.element;
+        int top = k;
+        while (top > 0) {
+            int parent = (top - 1) >>> shift;
+            if (compare(e, q[parent].element) >= 0)
+                break;
+            top = parent;
+        }
+        while (k > top) {
+            int parent = (k - 1) >>> shift;
+            Handle<E> p = q[parent];
+            q[k] = p;
+            p.index = k;
+            k = parent;
+        }
+        q[k] = x;
+        x.index = k;
+    }
+
+    /**
+     * Inserts handle x at position k, maintaining heap invariant by
+     * demoting x down the tree repeatedly until it is less than or
+     * equal to its children or is a leaf.
+     */
+    private void siftDown(int k, Handle<E> x) {
+        Handle<E>[] q = queue;
+        int n = size;
+        int d = 1 << shift;
+        int lastParent = (n - 2) >> shift;
+        E e = x.element;
+        while (k <= lastParent) {
+            int child = (k << shift) + 1;
+            // Find the least of the up to d children
+            Handle<E> c = q[child];
+            int end = (n - child > d) ? child + d : n;
+            for (int j = child + 1; j < end; j++) {
+                if (compare(q[j].element, c.element) < 0)
+                    c = q[child = j];
+            }
+            if (compare(e, c.element) <= 0)
+                break;
+            q[k] = c;
+            c.index = k;
+            k = child;
+        }
+        q[k] = x;
+        x.index = k;
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+/**
+ * An unbounded min-priority queue of elements with primitive
+ * {@code long} priorities, based on a <em>d</em>-ary heap. Each
+ * element is located through the {@link Handle} returned when it is
+ * inserted, so that its priority can be changed, or the element
+ * removed, in logarithmic time.
+ *
+ * <p>This is the specialization of {@link IndexedPriorityQueue} for
+ * schedulers and shortest-path searches whose priorities are times or
+ * distances. Priorities are kept in a {@code long} array parallel to
+ * the heap, so sifting compares adjacent array slots directly,
+ * without {@code Comparator} calls, boxing, or dereferencing the
+ * elements. The default arity is 4, whose children share a cache line.
+ *
+ * <p>The <em>head</em> of this queue is an element with the
+ * <em>least</em> priority; ties are broken arbitrarily. The same
+ * element may be inserted more than once, and {@code null} elements
+ * are permitted.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * Multiple threads should not access a {@code LongPriorityQueue}
+ * instance concurrently if any of the threads modifies the queue.
+ *
+ * <p>Implementation note: this implementation provides O(log(n)) time
+ * for {@code insert}, {@code poll}, {@code remove} and {@code update},
+ * and constant time for {@code peek}, {@code peekPriority} and
+ * {@code size}.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see IndexedPriorityQueue
+ */
+public class LongPriorityQueue<E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private static final int DEFAULT_ARITY = 4;
+
+    /**
+     * A reference to an element in a {@code LongPriorityQueue},
+     * returned by {@link LongPriorityQueue#insert}. A handle remains
+     * valid until its element is removed from the queue.
+     *
+     * @param <E> the type of the element
+     */
+    public static final class Handle<E> {
+        final E element;
+        long priority;
+        /** Position in the heap arrays, or -1 once removed. */
+        int index;
+
+        Handle(E element, long priority, int index) {
+            this.element = element;
+            this.priority = priority;
+            this.index = index;
+        }
+
+        /**
+         * Returns the element this handle refers to.
+         *
+         * @return the element
+         */
+        public E element() {
+            return element;
+        }
+
+        /**
+         * Returns the current priority of the element, or its last
+         * priority if it has been removed.
+         *
+         * @return the priority
+         */
+        public long priority() {
+            return priority;
+        }
+
+        /**
+         * Returns {@code true} if the element is still in the queue it
+         * was inserted into.
+         *
+         * @return {@code true} if the element has not been removed
+         */
+        public boolean isQueued() {
+            return index >= 0;
+        }
+    }
+
+    /**
+     * The heap, as parallel arrays of priorities and handles, with
+     * d == 1 << shift children per node: the children of slot n are
+     * slots (n << shift) + 1 through (n << shift) + d. For each node n
+     * and each descendant m of n, priorities[n] <= priorities[m].
+     */
+    private long[] priorities;
+    private Handle<E>[] handles;
+
+    /**
+     * The number of elements in the priority queue.
+     */
+    private int size;
+
+    /**
+     * log2 of the heap arity.
+     */
+    private final int shift;
+
+    /**
+     * Creates an empty queue with the default arity of 4.
+     */
+    public LongPriorityQueue() {
+        this(DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates an empty queue with the given heap arity.
+     *
+     * @param  arity the number of children of each heap node: 2, 4, 8
+     *         or 16
+     * @throws IllegalArgumentException if {@code arity} is not a power
+     *         of two between 2 and 16
+     */
+    @SuppressWarnings("unchecked")
+    public LongPriorityQueue(int arity) {
+        if (arity < 2 || arity > 16 || (arity & (arity - 1)) != 0)
+            throw new IllegalArgumentException("arity: " + arity);
+        this.shift = Integer.numberOfTrailingZeros(arity);
+        this.priorities = new long[DEFAULT_INITIAL_CAPACITY];
+        this.handles = (Handle<E>[]) new Handle<?>[DEFAULT_INITIAL_CAPACITY];
+    }
+
+    private void grow() {
+        int oldCapacity = handles.length;
+        int newCapacity = oldCapacity + ((oldCapacity < 64) ?
+                                         oldCapacity :
+                                         (oldCapacity >> 1));
+        if (newCapacity - (Integer.MAX_VALUE - 8) > 0) {
+            if (oldCapacity == Integer.MAX_VALUE - 8)
+                throw new OutOfMemoryError();
+            newCapacity = Integer.MAX_VALUE - 8;
+        }
+        priorities = Arrays.copyOf(priorities, newCapacity);
+        handles = Arrays.copyOf(handles, newCapacity);
+    }
+
+    /**
+     * Inserts an element with the given priority.
+     *
+     * @param  e the element, which may be null
+     * @param  priority the priority; lower values are polled first
+     * @return a handle for the inserted element
+     */
+    public Handle<E> insert(E e, long priority) {
+        int i = size;
+        if (i >= handles.length)
+            grow();
+        size = i + 1;
+        Handle<E> h = new Handle<>(e, priority, i);
+        siftUp(i, priority, h);
+        return h;
+    }
+
+    /**
+     * Changes the priority of the handle's element, in either
+     * direction, and restores the heap order.
+     *
+     * @param  h a handle returned by this queue
+     * @param  priority the new priority
+     * @throws IllegalArgumentException if the handle's element is not
+     *         in this queue
+     */
+    public void update(Handle<E> h, long priority) {
+        int i = indexOf(h);
+        h.priority = priority;
+        if (i > 0 && priority < priorities[(i - 1) >>> shift])
+            siftUp(i, priority, h);
+        else
+            siftDown(i, priority, h);
+    }
+
+    /**
+     * Lowers the priority of the handle's element if the given
+     * priority is less than its current one, as in the relaxation step
+     * of Dijkstra's algorithm.
+     *
+     * @param  h a handle returned by this queue
+     * @param  priority the candidate priority
+     * @return {@code true} if the priority was lowered
+     * @throws IllegalArgumentException if the handle's element is not
+     *         in this queue
+     */
+    public boolean decreasePriority(Handle<E> h, long priority) {
+        int i = indexOf(h);
+        if (priority >= priorities[i])
+            return false;
+        h.priority = priority;
+        siftUp(i, priority, h);
+        return true;
+    }
+
+    /**
+     * Removes the handle's element from this queue, if it is present.
+     *
+     * @param  h a handle returned by this queue
+     * @return {@code true} if the element was removed, {@code false} if
+     *         it had already been removed
+     * @throws IllegalArgumentException if the handle belongs to another
+     *         queue
+     */
+    public boolean remove(Handle<E> h) {
+        if (h.index < 0)
+            return false;
+        removeAt(indexOf(h));
+        return true;
+    }
+
+    private int indexOf(Handle<E> h) {
+        int i = h.index;
+        if (i < 0 || i >= size || handles[i] != h)
+            throw new IllegalArgumentException("Handle not in this queue");
+        return i;
+    }
+
+    /**
+     * Returns the element with the least priority, or {@code null} if
+     * this queue is empty.
+     *
+     * @return the head of this queue, or {@code null}
+     */
+    public E peek() {
+        return (size == 0) ? null : handles[0].element;
+    }
+
+    /**
+     * Returns the handle of the element with the least priority, or
+     * {@code null} if this queue is empty.
+     *
+     * @return the handle of the head of this queue, or {@code null}
+     */
+    public Handle<E> peekHandle() {
+        return (size == 0) ? null : handles[0];
+    }
+
+    /**
+     * Returns the least priority in this queue.
+     *
+     * @return the priority of the head of this queue
+     * @throws NoSuchElementException if this queue is empty
+     */
+    public long peekPriority() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return priorities[0];
+    }
+
+    /**
+     * Removes and returns the element with the least priority, or
+     * returns {@code null} if this queue is empty.
+     *
+     * @return the head of this queue, or {@code null}
+     */
+    public E poll() {
+        Handle<E> h = pollHandle();
+        return (h == null) ? null : h.element;
+    }
+
+    /**
+     * Removes the element with the least priority and returns its
+     * handle, from which both the element and its priority can be
+     * read, or returns {@code null} if this queue is empty.
+     *
+     * @return the handle of the former head of this queue, or
+     *         {@code null}
+     */
+    public Handle<E> pollHandle() {
+        if (size == 0)
+            return null;
+        Handle<E> h = handles[0];
+        removeAt(0);
+        return h;
+    }
+
+    /**
+     * Returns the number of elements in this queue.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains no elements.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all of the elements from this queue. All outstanding
+     * handles become invalid.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            handles[i].index = -1;
+            handles[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the heap arity chosen at construction.
+     *
+     * @return the number of children of each heap node
+     */
+    public int arity() {
+        return 1 << shift;
+    }
+
+    private void removeAt(int i) {
+        handles[i].index = -1;
+        int s = --size;
+        Handle<E> moved = handles[s];
+        long p = priorities[s];
+        handles[s] = null;
+        if (s != i) {
+            siftDown(i, p, moved);
+            if (handles[i] == moved)
+                siftUp(i, p, moved);
+        }
+    }
+
+    /**
+     * Inserts handle x with priority p at slot k, promoting it up the
+     * tree until its parent's priority is not greater.
+     */
+    private void siftUp(int k, long p, Handle<E> x) {
+        long[] pr = priorities;
+        Handle<E>[] hs = handles;
+        while (k > 0) {
+            int parent = (k - 1) >>> shift;
+            long pp = pr[parent];
+            if (p >= pp)
+                break;
+            Handle<E> ph = hs[parent];
+            pr[k] = pp;
+            hs[k] = ph;
+            ph.index = k;
+            k = parent;
+        }
+        pr[k] = p;
+        hs[k] = x;
+        x.index = k;
+    }
+
+    /**
+     * Inserts handle x with priority p at slot k, demoting it down the
+     * tree until no child has a lower priority.
+     */
+    private void siftDown(int k, long p, Handle<E> x) {
+        long[] pr = priorities;
+        Handle<E>[] hs = handles;
+        int n = size;
+        int d = 1 << shift;
+        int lastParent = (n - 2) >> shift;
+        while (k <= lastParent) {
+            int child = (k << shift) + 1;
+            // Find the least of the up to d children
+            long cp = pr[child];
+            int end = (n - child > d) ? child + d : n;
+            for (int j = child + 1; j < end; j++) {
+                long jp = pr[j];
+                if (jp < cp) {
+                    cp = jp;
+                    child = j;
+                }
+            }
+            if (p <= cp)
+                break;
+            Handle<E> ch = hs[child];
+            pr[k] = cp;
+            hs[k] = ch;
+            ch.index = k;
+            k = child;
+        }
+        pr[k] = p;
+        hs[k] = x;
+        x.index = k;
+    }
+}
@@ -34,6 +34,7 @@
 
 package java.util.concurrent;
 import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
@@ -72,6 +73,13 @@ import sun.misc.SharedSecrets;
  * {@code add}) are not supported. These methods throw
  * {@code UnsupportedOperationException}.
  *
+ * <p>Since every mutative operation copies the whole array, a burst
+ * of updates is best applied with {@link #mutate}, which performs any
+ * number of modifications with a single copy. Lists that are both
+ * large and frequently updated may instead use {@link
+ * CopyOnWriteTrieList}, whose updates copy only a small part of the
+ * list.
+ *
  * <p>All elements are permitted, including {@code null}.
  *
  * <p>Memory consistency effects: As with other concurrent
@@ -950,6 +958,38 @@ public class CopyOnWriteArrayList<E>
         }
     }
 
+    /**
+     * Atomically applies the given action to a mutable copy of this
+     * list, and then replaces the contents of this list with the
+     * resulting elements. Any number of modifications made by the
+     * action thus cost a single copy of the underlying array, rather
+     * than one copy each. Other mutative operations on this list are
+     * blocked while the action runs, and readers and iterators
+     * continue to see the previous contents until the action
+     * completes. If the action throws an exception, this list is left
+     * unchanged.
+     *
+     * <p>The action should not retain the list it is given, nor modify
+     * this list directly, as such modifications are overwritten by
+     * the result of the action.
+     *
+     * @param action the action to apply to a mutable copy of this list
+     * @throws NullPointerException if the specified action is null
+     */
+    public void mutate(Consumer<? super List<E>> action) {
+        if (action == null) throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            @SuppressWarnings("unchecked")
+            List<E> list = new ArrayList<E>(Arrays.asList((E[])getArray()));
+            action.accept(list);
+            setArray(list.toArray());
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Saves this list to a stream (that is, serializes it).
      *
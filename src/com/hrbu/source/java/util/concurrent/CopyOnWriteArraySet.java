@@ -38,6 +38,7 @@ import java.util.Collection;
 import java.util.Set;
 import java.util.AbstractSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.function.Predicate;
@@ -56,6 +57,8 @@ import java.util.function.Consumer;
  *      are expensive since they usually entail copying the entire underlying
  *      array.
  *  <li>Iterators do not support the mutative {@code remove} operation.
+ *  <li>Bursts of updates are best applied together using {@link #mutate},
+ *      which copies the array only once.
  *  <li>Traversal via iterators is fast and cannot encounter
  *      interference from other threads. Iterators rely on
  *      unchanging snapshots of the array at the time the iterators were
@@ -404,6 +407,31 @@ public class CopyOnWriteArraySet<E> extends AbstractSet<E>
         al.forEach(action);
     }
 
+    /**
+     * Atomically applies the given action to a mutable copy of this
+     * set, and then replaces the contents of this set with the
+     * resulting elements, as with {@link CopyOnWriteArrayList#mutate}.
+     * Any number of modifications made by the action thus cost a
+     * single copy of the set, and each addition is checked against a
+     * hash table rather than by a linear scan of the set. The copy
+     * given to the action is a {@link LinkedHashSet} preserving the
+     * order of this set, so elements must have {@code hashCode}
+     * methods consistent with {@code equals}. If the action throws an
+     * exception, this set is left unchanged.
+     *
+     * @param action the action to apply to a mutable copy of this set
+     * @throws NullPointerException if the specified action is null
+     */
+    public void mutate(Consumer<? super Set<E>> action) {
+        if (action == null) throw new NullPointerException();
+        al.mutate(list -> {
+            Set<E> set = new LinkedHashSet<E>(list);
+            action.accept(set);
+            list.clear();
+            list.addAll(set);
+        });
+    }
+
     /**
      * Returns a {@link Spliterator} over the elements in this set in the order
      * in which these elements were added.
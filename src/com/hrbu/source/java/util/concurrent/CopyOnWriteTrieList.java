@@ -0,0 +1,962 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.concurrent;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import sun.misc.SharedSecrets;
+
+/**
+ * A thread-safe {@link List} with the same snapshot semantics as
+ * {@link CopyOnWriteArrayList}, but whose snapshots share structure
+ * with each other, so that common updates copy only a small part of
+ * the list rather than all of it.
+ *
+ * <p>Each snapshot of the list is an immutable <em>persistent
+ * vector</em>: a trie with 32-way branching whose leaves hold the
+ * elements, plus a separate "tail" leaf holding the last (up to 32)
+ * elements. Positional access descends at most log<sub>32</sub>(n)
+ * levels, which is effectively constant for any list that fits in
+ * memory. Operations {@code add(e)} (appending), {@code set}, and
+ * removal of the last element copy only the tail or the path to the
+ * affected leaf, and so cost O(log n) time and space, while all other
+ * nodes are shared with the previous snapshot. Insertions and
+ * removals at other positions, and bulk operations such as {@code
+ * removeIf} and {@link #mutate}, rebuild the trie in O(n) time, as
+ * for {@code CopyOnWriteArrayList}. Reads and iterators never block:
+ * iterators traverse the snapshot current when they were created,
+ * never throw {@code ConcurrentModificationException}, and do not
+ * support the mutative {@code remove}, {@code set}, or {@code add}
+ * operations.
+ *
+ * <p>This class is preferable to {@code CopyOnWriteArrayList} for
+ * large lists that are updated often, mostly by appending or
+ * replacing elements, such as registries with many entries. For
+ * small lists, {@code CopyOnWriteArrayList} has faster traversal
+ * and lower space overhead.
+ *
+ * <p>Unlike other operations, the views returned by {@link #subList}
+ * are not snapshots: they access this list through its positional
+ * operations, so may reflect concurrent modifications, and do not
+ * detect them.
+ *
+ * <p>All elements are permitted, including {@code null}.
+ *
+ * <p>Memory consistency effects: As with other concurrent
+ * collections, actions in a thread prior to placing an object into a
+ * {@code CopyOnWriteTrieList}
+ * <a href="package-summary.html#MemoryVisibility"><i>happen-before</i></a>
+ * actions subsequent to the access or removal of that element from
+ * the {@code CopyOnWriteTrieList} in another thread.
+ *
+ * @param <E> the type of elements held in this collection
+ */
+public class CopyOnWriteTrieList<E> extends AbstractList<E>
+    implements List<E>, RandomAccess, java.io.Serializable {
+    private static final long serialVersionUID = -4106437162425468318L;
+
+    /*
+     * The trie follows the classic persistent vector design. A
+     * snapshot of size n keeps elements [0, tailOffset) in full
+     * leaves of WIDTH elements reachable from the root, and elements
+     * [tailOffset, n) in the tail, whose length is exactly n -
+     * tailOffset. Interior nodes are arrays of WIDTH children, unused
+     * children being null, and shift is the number of index bits
+     * consumed above the leaves (BITS for a root whose children are
+     * leaves). All arrays reachable from a snapshot are immutable
+     * once published; updates clone the nodes they change. Mutators
+     * serialize on the lock and publish a new snapshot via the
+     * volatile trie field, which readers just read.
+     */
+
+    static final int BITS  = 5;
+    static final int WIDTH = 1 << BITS;
+    static final int MASK  = WIDTH - 1;
+
+    /** The root of snapshots without full leaves; never modified */
+    static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+    static final Trie EMPTY = new Trie(0, BITS, EMPTY_NODE, new Object[0]);
+
+    /** The lock protecting all mutators */
+    final transient ReentrantLock lock = new ReentrantLock();
+
+    /** The current snapshot */
+    private transient volatile Trie trie;
+
+    /**
+     * An immutable persistent vector.
+     */
+    static final class Trie {
+        final int size;
+        final int shift;
+        final Object[] root;
+        final Object[] tail;
+
+        Trie(int size, int shift, Object[] root, Object[] tail) {
+            this.size = size;
+            this.shift = shift;
+            this.root = root;
+            this.tail = tail;
+        }
+
+        /** Returns the index of the first element held in the tail. */
+        int tailOffset() {
+            return (size < WIDTH) ? 0 : ((size - 1) >>> BITS) << BITS;
+        }
+
+        /** Returns the leaf (or tail) holding element i. */
+        Object[] leafFor(int i) {
+            if (i >= tailOffset())
+                return tail;
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= BITS)
+                node = (Object[])node[(i >>> level) & MASK];
+            return node;
+        }
+
+        Object get(int i) {
+            return leafFor(i)[i & MASK];
+        }
+
+        /** Returns a snapshot with element i replaced by x. */
+        Trie set(int i, Object x) {
+            if (i >= tailOffset()) {
+                Object[] t = tail.clone();
+                t[i & MASK] = x;
+                return new Trie(size, shift, root, t);
+            }
+            return new Trie(size, shift, setIn(shift, root, i, x), tail);
+        }
+
+        private static Object[] setIn(int level, Object[] node,
+                                      int i, Object x) {
+            Object[] r = node.clone();
+            if (level == 0)
+                r[i & MASK] = x;
+            else {
+                int k = (i >>> level) & MASK;
+                r[k] = setIn(level - BITS, (Object[])node[k], i, x);
+            }
+            return r;
+        }
+
+        /** Returns a snapshot with x appended. */
+        Trie append(Object x) {
+            int n = size, len = tail.length;
+            if (len < WIDTH) {                  // room in tail
+                Object[] t = Arrays.copyOf(tail, len + 1);
+                t[len] = x;
+                return new Trie(n + 1, shift, root, t);
+            }
+            Object[] r;                         // push full tail into trie
+            int s = shift;
+            if ((n >>> BITS) > (1 << s)) {      // root overflow
+                r = new Object[WIDTH];
+                r[0] = root;
+                r[1] = newPath(s, tail);
+                s += BITS;
+            }
+            else
+                r = pushTail(s, root, n, tail);
+            return new Trie(n + 1, s, r, new Object[] { x });
+        }
+
+        private static Object[] pushTail(int level, Object[] node,
+                                         int n, Object[] leaf) {
+            int k = ((n - 1) >>> level) & MASK;
+            Object[] r = node.clone();
+            if (level == BITS)
+                r[k] = leaf;
+            else {
+                Object[] child = (Object[])node[k];
+                r[k] = (child != null) ?
+                    pushTail(level - BITS, child, n, leaf) :
+                    newPath(level - BITS, leaf);
+            }
+            return r;
+        }
+
+        private static Object[] newPath(int level, Object[] leaf) {
+            if (level == 0)
+                return leaf;
+            Object[] r = new Object[WIDTH];
+            r[0] = newPath(level - BITS, leaf);
+            return r;
+        }
+
+        /** Returns a snapshot without its last element; size > 0. */
+        Trie removeLast() {
+            int n = size, len = tail.length;
+            if (n == 1)
+                return EMPTY;
+            if (len > 1)
+                return new Trie(n - 1, shift, root,
+                                Arrays.copyOf(tail, len - 1));
+            Object[] t = leafFor(n - 2);        // last leaf becomes tail
+            Object[] r = popTail(shift, root, n);
+            int s = shift;
+            if (r == null)
+                r = EMPTY_NODE;
+            if (s > BITS && r[1] == null) {     // collapse root
+                r = (Object[])r[0];
+                s -= BITS;
+            }
+            return new Trie(n - 1, s, r, t);
+        }
+
+        private static Object[] popTail(int level, Object[] node, int n) {
+            int k = ((n - 2) >>> level) & MASK;
+            if (level > BITS) {
+                Object[] child = popTail(level - BITS, (Object[])node[k], n);
+                if (child == null && k == 0)
+                    return null;
+                Object[] r = node.clone();
+                r[k] = child;
+                return r;
+            }
+            else if (k == 0)
+                return null;
+            else {
+                Object[] r = node.clone();
+                r[k] = null;
+                return r;
+            }
+        }
+
+        /** Returns the elements in a new array. */
+        Object[] toArray() {
+            int n = size, off = tailOffset();
+            Object[] a = new Object[n];
+            for (int i = 0; i < off; i += WIDTH)
+                System.arraycopy(leafFor(i), 0, a, i, WIDTH);
+            System.arraycopy(tail, 0, a, off, n - off);
+            return a;
+        }
+
+        /** Builds a snapshot holding the first n elements of a. */
+        static Trie of(Object[] a, int n) {
+            if (n == 0)
+                return EMPTY;
+            int off = (n < WIDTH) ? 0 : ((n - 1) >>> BITS) << BITS;
+            Object[] tail = Arrays.copyOfRange(a, off, n);
+            int m = off >>> BITS;               // number of full leaves
+            if (m == 0)
+                return new Trie(n, BITS, EMPTY_NODE, tail);
+            Object[] nodes = new Object[m];
+            for (int i = 0; i < m; ++i)
+                nodes[i] = Arrays.copyOfRange(a, i << BITS, (i + 1) << BITS);
+            int shift = BITS;
+            while (m > WIDTH) {                 // add levels bottom-up
+                int p = ((m - 1) >>> BITS) + 1;
+                Object[] parents = new Object[p];
+                for (int i = 0; i < p; ++i) {
+                    Object[] node = new Object[WIDTH];
+                    int lo = i << BITS;
+                    System.arraycopy(nodes, lo, node, 0,
+                                     Math.min(WIDTH, m - lo));
+                    parents[i] = node;
+                }
+                nodes = parents;
+                m = p;
+                shift += BITS;
+            }
+            return new Trie(n, shift, Arrays.copyOf(nodes, WIDTH), tail);
+        }
+    }
+
+    /**
+     * Creates an empty list.
+     */
+    public CopyOnWriteTrieList() {
+        trie = EMPTY;
+    }
+
+    /**
+     * Creates a list containing the elements of the specified
+     * collection, in the order they are returned by the collection's
+     * iterator.
+     *
+     * @param c the collection of initially held elements
+     * @throws NullPointerException if the specified collection is null
+     */
+    public CopyOnWriteTrieList(Collection<? extends E> c) {
+        Object[] elements = c.toArray();
+        trie = Trie.of(elements, elements.length);
+    }
+
+    /**
+     * Creates a list holding a copy of the given array.
+     *
+     * @param toCopyIn the array (a copy of this array is used to
+     *        initialize the list)
+     * @throws NullPointerException if the specified array is null
+     */
+    public CopyOnWriteTrieList(E[] toCopyIn) {
+        trie = Trie.of(toCopyIn, toCopyIn.length);
+    }
+
+    private static String outOfBounds(int index, int size) {
+        return "Index: " + index + ", Size: " + size;
+    }
+
+    /**
+     * Tests for equality, coping with nulls.
+     */
+    private static boolean eq(Object o1, Object o2) {
+        return (o1 == null) ? o2 == null : o1.equals(o2);
+    }
+
+    /**
+     * Returns the index of the first occurrence of o in t at or after
+     * the given index, or -1 if none.
+     */
+    private static int indexOf(Object o, Trie t, int index) {
+        for (int n = t.size, i = index; i < n; ) {
+            Object[] leaf = t.leafFor(i);
+            for (int j = i & MASK; j < leaf.length && i < n; ++j, ++i) {
+                if (eq(o, leaf[j]))
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    public int size() {
+        return trie.size;
+    }
+
+    /**
+     * Returns {@code true} if this list contains no elements.
+     *
+     * @return {@code true} if this list contains no elements
+     */
+    public boolean isEmpty() {
+        return trie.size == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Trie t = trie;
+        if (index < 0 || index >= t.size)
+            throw new IndexOutOfBoundsException(outOfBounds(index, t.size));
+        return (E) t.get(index);
+    }
+
+    public boolean contains(Object o) {
+        return indexOf(o, trie, 0) >= 0;
+    }
+
+    public int indexOf(Object o) {
+        return indexOf(o, trie, 0);
+    }
+
+    public int lastIndexOf(Object o) {
+        Trie t = trie;
+        for (int i = t.size - 1; i >= 0; --i) {
+            if (eq(o, t.get(i)))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list
+     * in proper sequence (from first to last element).
+     *
+     * @return an array containing all the elements in this list
+     */
+    public Object[] toArray() {
+        return trie.toArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T a[]) {
+        Object[] elements = trie.toArray();
+        int len = elements.length;
+        if (a.length < len)
+            return (T[]) Arrays.copyOf(elements, len, a.getClass());
+        else {
+            System.arraycopy(elements, 0, a, 0, len);
+            if (a.length > len)
+                a[len] = null;
+            return a;
+        }
+    }
+
+    /**
+     * Replaces the element at the specified position in this list
+     * with the specified element, copying only the path to it.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = trie;
+            if (index < 0 || index >= t.size)
+                throw new IndexOutOfBoundsException(outOfBounds(index, t.size));
+            E oldValue = (E) t.get(index);
+            // As in CopyOnWriteArrayList, write even if unchanged,
+            // to ensure volatile write semantics
+            trie = (oldValue != element) ? t.set(index, element) : t;
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the specified element to the end of this list, copying
+     * only the tail of the list or the path to its last leaf.
+     *
+     * @param e element to be appended to this list
+     * @return {@code true} (as specified by {@link Collection#add})
+     */
+    public boolean add(E e) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            trie = trie.append(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the specified element at the specified position in this
+     * list. Shifts the element currently at that position (if any) and
+     * any subsequent elements to the right (adds one to their indices).
+     * Unless the position is the end of the list, this rebuilds the
+     * list.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public void add(int index, E element) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = trie;
+            int n = t.size;
+            if (index < 0 || index > n)
+                throw new IndexOutOfBoundsException(outOfBounds(index, n));
+            if (index == n)
+                trie = t.append(element);
+            else {
+                Object[] elements = t.toArray();
+                Object[] newElements = new Object[n + 1];
+                System.arraycopy(elements, 0, newElements, 0, index);
+                newElements[index] = element;
+                System.arraycopy(elements, index, newElements, index + 1,
+                                 n - index);
+                trie = Trie.of(newElements, n + 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the element at the specified position in this list.
+     * Shifts any subsequent elements to the left (subtracts one from
+     * their indices). Returns the element that was removed from the
+     * list. Unless the position is the end of the list, this rebuilds
+     * the list.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = trie;
+            int n = t.size;
+            if (index < 0 || index >= n)
+                throw new IndexOutOfBoundsException(outOfBounds(index, n));
+            E oldValue = (E) t.get(index);
+            trie = removeAt(t, index);
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns t without element i. Call only while holding lock. */
+    private static Trie removeAt(Trie t, int index) {
+        int n = t.size;
+        if (index == n - 1)
+            return t.removeLast();
+        Object[] elements = t.toArray();
+        System.arraycopy(elements, index + 1, elements, index,
+                         n - index - 1);
+        return Trie.of(elements, n - 1);
+    }
+
+    /**
+     * Removes the first occurrence of the specified element from this
+     * list, if it is present.
+     *
+     * @param o element to be removed from this list, if present
+     * @return {@code true} if this list contained the specified element
+     */
+    public boolean remove(Object o) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = trie;
+            int index = indexOf(o, t, 0);
+            if (index < 0)
+                return false;
+            trie = removeAt(t, index);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all of the elements from this list.
+     * The list will be empty after this call returns.
+     */
+    public void clear() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            trie = EMPTY;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends all of the elements in the specified collection to the
+     * end of this list, in the order that they are returned by the
+     * specified collection's iterator.
+     *
+     * @param c collection containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        Object[] cs = c.toArray();
+        if (cs.length == 0)
+            return false;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = trie;
+            for (Object e : cs)
+                t = t.append(e);
+            trie = t;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts all of the elements in the specified collection into this
+     * list, starting at the specified position. Unless the position is
+     * the end of the list, this rebuilds the list.
+     *
+     * @param index index at which to insert the first element
+     *        from the specified collection
+     * @param c collection containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean addAll(int index, Collection<? extends E> c) {
+        Object[] cs = c.toArray();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = trie;
+            int n = t.size;
+            if (index < 0 || index > n)
+                throw new IndexOutOfBoundsException(outOfBounds(index, n));
+            if (cs.length == 0)
+                return false;
+            if (index == n) {
+                for (Object e : cs)
+                    t = t.append(e);
+                trie = t;
+            }
+            else {
+                Object[] elements = t.toArray();
+                Object[] newElements = new Object[n + cs.length];
+                System.arraycopy(elements, 0, newElements, 0, index);
+                System.arraycopy(cs, 0, newElements, index, cs.length);
+                System.arraycopy(elements, index, newElements,
+                                 index + cs.length, n - index);
+                trie = Trie.of(newElements, newElements.length);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean removeAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return removeIf(c::contains);
+    }
+
+    public boolean retainAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return removeIf(e -> !c.contains(e));
+    }
+
+    public boolean removeIf(Predicate<? super E> filter) {
+        if (filter == null) throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Object[] elements = trie.toArray();
+            int len = elements.length, newlen = 0;
+            for (int i = 0; i < len; ++i) {
+                @SuppressWarnings("unchecked") E e = (E) elements[i];
+                if (!filter.test(e))
+                    elements[newlen++] = e;
+            }
+            if (newlen == len)
+                return false;
+            trie = Trie.of(elements, newlen);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void replaceAll(UnaryOperator<E> operator) {
+        if (operator == null) throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Object[] elements = trie.toArray();
+            for (int i = 0; i < elements.length; ++i) {
+                @SuppressWarnings("unchecked") E e = (E) elements[i];
+                elements[i] = operator.apply(e);
+            }
+            trie = Trie.of(elements, elements.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sort(Comparator<? super E> c) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Object[] elements = trie.toArray();
+            @SuppressWarnings("unchecked") E[] es = (E[])elements;
+            Arrays.sort(es, c);
+            trie = Trie.of(elements, elements.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Atomically applies the given action to a mutable copy of this
+     * list, and then replaces the contents of this list with the
+     * resulting elements, rebuilding the list once however many
+     * modifications the action makes. Other mutative operations on
+     * this list are blocked while the action runs, and readers and
+     * iterators continue to see the previous contents until the
+     * action completes. If the action throws an exception, this list
+     * is left unchanged.
+     *
+     * <p>The action should not retain the list it is given, nor modify
+     * this list directly, as such modifications are overwritten by
+     * the result of the action.
+     *
+     * @param action the action to apply to a mutable copy of this list
+     * @throws NullPointerException if the specified action is null
+     */
+    public void mutate(Consumer<? super List<E>> action) {
+        if (action == null) throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            @SuppressWarnings("unchecked")
+            List<E> list = new ArrayList<E>(Arrays.asList((E[])trie.toArray()));
+            action.accept(list);
+            Object[] elements = list.toArray();
+            trie = Trie.of(elements, elements.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void forEach(Consumer<? super E> action) {
+        if (action == null) throw new NullPointerException();
+        Trie t = trie;
+        for (int n = t.size, i = 0; i < n; ) {
+            Object[] leaf = t.leafFor(i);
+            for (int j = 0; j < leaf.length && i < n; ++j, ++i) {
+                @SuppressWarnings("unchecked") E e = (E) leaf[j];
+                action.accept(e);
+            }
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements in this list in proper sequence.
+     *
+     * <p>The returned iterator provides a snapshot of the state of the list
+     * when the iterator was constructed. No synchronization is needed while
+     * traversing the iterator. The iterator does <em>NOT</em> support the
+     * {@code remove} method.
+     *
+     * @return an iterator over the elements in this list in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new COWTrieIterator<E>(trie, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned iterator provides a snapshot of the state of the list
+     * when the iterator was constructed. No synchronization is needed while
+     * traversing the iterator. The iterator does <em>NOT</em> support the
+     * {@code remove}, {@code set} or {@code add} methods.
+     */
+    public ListIterator<E> listIterator() {
+        return new COWTrieIterator<E>(trie, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned iterator provides a snapshot of the state of the list
+     * when the iterator was constructed. No synchronization is needed while
+     * traversing the iterator. The iterator does <em>NOT</em> support the
+     * {@code remove}, {@code set} or {@code add} methods.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public ListIterator<E> listIterator(int index) {
+        Trie t = trie;
+        if (index < 0 || index > t.size)
+            throw new IndexOutOfBoundsException("Index: " + index);
+        return new COWTrieIterator<E>(t, index);
+    }
+
+    /**
+     * Returns a {@link Spliterator} over the elements in this list.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#IMMUTABLE},
+     * {@link Spliterator#ORDERED}, {@link Spliterator#SIZED}, and
+     * {@link Spliterator#SUBSIZED}.
+     *
+     * <p>The spliterator provides a snapshot of the state of the list
+     * when the spliterator was constructed. No synchronization is needed while
+     * operating on the spliterator.
+     *
+     * @return a {@code Spliterator} over the elements in this list
+     */
+    public Spliterator<E> spliterator() {
+        Trie t = trie;
+        return Spliterators.spliterator
+            (new COWTrieIterator<E>(t, 0), t.size,
+             Spliterator.IMMUTABLE | Spliterator.ORDERED);
+    }
+
+    static final class COWTrieIterator<E> implements ListIterator<E> {
+        /** Snapshot of the list */
+        private final Trie snapshot;
+        /** Index of element to be returned by subsequent call to next.  */
+        private int cursor;
+        /** The leaf holding element cursor, or null if not yet found */
+        private Object[] leaf;
+
+        COWTrieIterator(Trie snapshot, int initialCursor) {
+            this.snapshot = snapshot;
+            this.cursor = initialCursor;
+        }
+
+        public boolean hasNext() {
+            return cursor < snapshot.size;
+        }
+
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            int i = cursor;
+            if (i >= snapshot.size)
+                throw new NoSuchElementException();
+            Object[] a = leaf;
+            if (a == null || (i & MASK) == 0)
+                leaf = a = snapshot.leafFor(i);
+            cursor = i + 1;
+            if (((i + 1) & MASK) == 0)
+                leaf = null;                    // moving to next leaf
+            return (E) a[i & MASK];
+        }
+
+        @SuppressWarnings("unchecked")
+        public E previous() {
+            if (! hasPrevious())
+                throw new NoSuchElementException();
+            leaf = null;
+            return (E) snapshot.get(--cursor);
+        }
+
+        public int nextIndex() {
+            return cursor;
+        }
+
+        public int previousIndex() {
+            return cursor-1;
+        }
+
+        /**
+         * Not supported. Always throws UnsupportedOperationException.
+         * @throws UnsupportedOperationException always; {@code remove}
+         *         is not supported by this iterator.
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Not supported. Always throws UnsupportedOperationException.
+         * @throws UnsupportedOperationException always; {@code set}
+         *         is not supported by this iterator.
+         */
+        public void set(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Not supported. Always throws UnsupportedOperationException.
+         * @throws UnsupportedOperationException always; {@code add}
+         *         is not supported by this iterator.
+         */
+        public void add(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            while (hasNext())
+                action.accept(next());
+        }
+    }
+
+    /**
+     * Saves this list to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     * @throws java.io.IOException if an I/O error occurs
+     * @serialData The number of elements in the list is emitted
+     *               (int), followed by all of its elements (each an Object)
+     *               in the proper order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+
+        s.defaultWriteObject();
+
+        Object[] elements = trie.toArray();
+        s.writeInt(elements.length);
+        for (Object element : elements)
+            s.writeObject(element);
+    }
+
+    /**
+     * Reconstitutes this list from a stream (that is, deserializes it).
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+
+        s.defaultReadObject();
+
+        // bind to new lock
+        resetLock();
+
+        int len = s.readInt();
+        SharedSecrets.getJavaOISAccess().checkArray(s, Object[].class, len);
+        Object[] elements = new Object[len];
+        for (int i = 0; i < len; i++)
+            elements[i] = s.readObject();
+        trie = Trie.of(elements, len);
+    }
+
+    // Support for resetting lock while deserializing
+    private void resetLock() {
+        UNSAFE.putObjectVolatile(this, lockOffset, new ReentrantLock());
+    }
+    private static final sun.misc.Unsafe UNSAFE;
+    private static final long lockOffset;
+    static {
+        try {
+            UNSAFE = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = CopyOnWriteTrieList.class;
+            lockOffset = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("lock"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -169,6 +169,19 @@ public class CountDownLatch {
             return getState();
         }
 
+        // contention statistics, which are protected in AQS
+        long queuedAcquireCount() {
+            return getQueuedAcquireCount();
+        }
+
+        long parkCount() {
+            return getParkCount();
+        }
+
+        double averageQueueLength() {
+            return getAverageQueueLength();
+        }
+
         protected int tryAcquireShared(int acquires) {
             return (getState() == 0) ? 1 : -1;
         }
@@ -302,6 +315,46 @@ public class CountDownLatch {
         return sync.getCount();
     }
 
+    /**
+     * Returns the number of awaits that could not proceed at once and
+     * had to wait. This method is designed for use in monitoring of
+     * the system state, not for synchronization control. Like the
+     * other contention statistics of this class, it is zero unless the
+     * system property {@code
+     * java.util.concurrent.locks.contentionStatistics} is {@code true}.
+     *
+     * @return the number of awaits that waited
+     */
+    public final long getQueuedAcquireCount() {
+        return sync.queuedAcquireCount();
+    }
+
+    /**
+     * Returns the number of times threads waiting for the count to
+     * reach zero have blocked. Waiting threads that are next in line
+     * spin briefly before blocking, so this may be less than {@link
+     * #getQueuedAcquireCount}. This method is designed for use in
+     * monitoring of the system state, not for synchronization
+     * control.
+     *
+     * @return the number of times waiting threads have blocked
+     */
+    public final long getParkCount() {
+        return sync.parkCount();
+    }
+
+    /**
+     * Returns the average number of threads found waiting, including
+     * itself, by each await that had to wait. This method is designed
+     * for use in monitoring of the system state, not for
+     * synchronization control.
+     *
+     * @return the average queue length, or zero if no thread has waited
+     */
+    public final double getAverageQueueLength() {
+        return sync.averageQueueLength();
+    }
+
     /**
      * Returns a string identifying this latch, as well as its state.
      * The state, in brackets, includes the String {@code "Count ="}
@@ -124,6 +124,12 @@ import java.util.concurrent.locks.ReentrantLock;
  * {@link InterruptedException} if they too were interrupted at about
  * the same time).
  *
+ * <p>Barriers with many parties that are used at high rates may
+ * instead be created using {@link #newCombiningBarrier}, which
+ * counts arrivals in a combining tree, and optionally spins before
+ * blocking. Waiting threads are still blocked and released through
+ * the barrier's lock.
+ *
  * <p>Memory consistency effects: Actions in a thread prior to calling
  * {@code await()}
  * <a href="package-summary.html#MemoryVisibility"><i>happen-before</i></a>
@@ -147,9 +153,20 @@ public class CyclicBarrier {
      * and all the rest are either broken or tripped.
      * There need not be an active generation if there has been a break
      * but no subsequent reset.
+     *
+     * In combining mode, the generation is also read without holding
+     * the lock, so the generation field and broken flag are volatile,
+     * and each generation carries a tag stamped into the combining
+     * tree nodes it arrives at, so that counts left behind by earlier
+     * generations read as zero without needing to be cleared.
      */
     private static class Generation {
-        boolean broken = false;
+        volatile boolean broken = false;
+        /** Tag stamped into combining nodes arrived at in this generation */
+        final int tag;
+        /** Tree position of the last arrival, set when tripped */
+        int lastPosition;
+        Generation(int tag) { this.tag = tag; }
     }
 
     /** The lock for guarding barrier entry */
@@ -161,7 +178,11 @@ public class CyclicBarrier {
     /* The command to run when tripped */
     private final Runnable barrierCommand;
     /** The current generation */
-    private Generation generation = new Generation();
+    private volatile Generation generation = new Generation(0);
+    /** The leaves of the combining tree, or null if not combining */
+    private final Node[] leaves;
+    /** The number of times to spin before blocking in combining mode */
+    private final int spins;
 
     /**
      * Number of parties still waiting. Counts down from parties to 0
@@ -179,7 +200,7 @@ public class CyclicBarrier {
         trip.signalAll();
         // set up next generation
         count = parties;
-        generation = new Generation();
+        generation = new Generation(generation.tag + 1);
     }
 
     /**
@@ -198,6 +219,8 @@ public class CyclicBarrier {
     private int dowait(boolean timed, long nanos)
         throws InterruptedException, BrokenBarrierException,
                TimeoutException {
+        if (leaves != null)
+            return combiningWait(timed, nanos);
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
@@ -262,6 +285,285 @@ public class CyclicBarrier {
         }
     }
 
+    /*
+     * Combining mode.
+     *
+     * Instead of counting arrivals under the lock, a combining barrier
+     * counts them in a static tree of Nodes, each with a capacity of
+     * at most COMBINING_FAN_IN arrivals (leaves) or children
+     * (interior nodes). An arriving thread takes a slot in a leaf
+     * chosen from its thread id, probing further leaves if that one
+     * is already full. The thread filling a node carries the arrival
+     * up to its parent, and the thread filling the root has seen all
+     * parties arrive: it takes the lock, runs the barrier action and
+     * starts the next generation just as in dowait. Other arrivals
+     * spin for a while on the (volatile) generation field and then
+     * block on the trip condition, so the lock is only taken by
+     * threads that actually block, break the barrier, or trip it.
+     *
+     * Each node state packs the tag of the generation that last
+     * arrived at it (high 32 bits) with its arrival count (low 32
+     * bits). Counts with a stale tag read as zero, so neither tripping
+     * nor reset needs to touch the tree. A thread seeing a tag that is
+     * not its own while its generation is still current is looking at
+     * a stale count; otherwise its generation has ended (by a break or
+     * reset) and it rechecks from the start, as in dowait.
+     *
+     * Arrival indices are derived from tree positions: each slot of
+     * each leaf has a distinct position in [0, parties). The last
+     * arrival returns zero and records its position in the
+     * generation, and the thread occupying position parties - 1 takes
+     * over the index the last arrival would otherwise have used.
+     */
+
+    /** The fan-in of combining trees */
+    private static final int COMBINING_FAN_IN = 4;
+
+    /** The number of times to spin before blocking, if spinning */
+    private static final int COMBINING_SPINS =
+        (Runtime.getRuntime().availableProcessors() < 2) ? 0 : 1 << 10;
+
+    /**
+     * A node of the combining tree.
+     */
+    static final class Node {
+        final Node parent;
+        /** Number of arrivals (or children) needed to fill this node */
+        final int capacity;
+        /** Position of the first slot of a leaf */
+        final int base;
+        /** Generation tag (high bits) and count of arrivals (low bits) */
+        volatile long state;
+
+        Node(Node parent, int capacity, int base) {
+            this.parent = parent;
+            this.capacity = capacity;
+            this.base = base;
+        }
+
+        /**
+         * Records an arrival for the given generation,
+         * unless this node is already full.
+         *
+         * @return the previous count, or -1 if full, or -2 if the
+         * generation has ended
+         */
+        int arrive(CyclicBarrier barrier, Generation g) {
+            final int tag = g.tag;
+            for (long s;;) {
+                int c;
+                if ((int)((s = state) >>> 32) == tag)
+                    c = (int)s;
+                else if (barrier.generation != g)
+                    return -2;
+                else
+                    c = 0;                     // stale count
+                if (c >= capacity)
+                    return -1;
+                if (UNSAFE.compareAndSwapLong(this, STATE, s,
+                                              ((long)tag << 32) | (c + 1)))
+                    return c;
+            }
+        }
+
+        /** Returns the arrivals recorded for the given generation. */
+        int countFor(Generation g) {
+            long s = state;
+            return ((int)(s >>> 32) == g.tag) ? (int)s : 0;
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe UNSAFE;
+        private static final long STATE;
+        static {
+            try {
+                UNSAFE = sun.misc.Unsafe.getUnsafe();
+                STATE = UNSAFE.objectFieldOffset
+                    (Node.class.getDeclaredField("state"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /**
+     * Builds a combining tree for the given number of parties,
+     * returning its leaves.
+     */
+    private static Node[] buildTree(int parties) {
+        int n = (parties - 1) / COMBINING_FAN_IN + 1;
+        Node[] leaves = new Node[n];
+        buildTree(null, leaves, 0, n, parties);
+        return leaves;
+    }
+
+    /**
+     * Creates the subtree below parent spanning leaves[lo, hi). Leaf
+     * capacities differ by at most one and sum to parties.
+     */
+    private static void buildTree(Node parent, Node[] leaves,
+                                  int lo, int hi, int parties) {
+        int n = hi - lo;
+        if (n == 1) {
+            int len = leaves.length, q = parties / len, r = parties % len;
+            leaves[lo] = new Node(parent, (lo < r) ? q + 1 : q,
+                                  lo * q + Math.min(lo, r));
+        }
+        else {
+            int span = (n - 1) / COMBINING_FAN_IN + 1; // leaves per child
+            Node node = new Node(parent, (n - 1) / span + 1, 0);
+            for (int i = lo; i < hi; i += span)
+                buildTree(node, leaves, i, Math.min(i + span, hi), parties);
+        }
+    }
+
+    /**
+     * Barrier code for combining mode.
+     */
+    private int combiningWait(boolean timed, long nanos)
+        throws InterruptedException, BrokenBarrierException,
+               TimeoutException {
+        final Node[] leaves = this.leaves;
+        final int n = leaves.length;
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        final int h = (int)(Thread.currentThread().getId() % n);
+        Generation g;
+        Node leaf;
+        int c;
+        restart: for (;;) {
+            g = generation;
+            if (g.broken)
+                throw new BrokenBarrierException();
+            if (Thread.interrupted()) {
+                final ReentrantLock lock = this.lock;
+                lock.lock();
+                try {
+                    if (g == generation)
+                        breakBarrier();
+                } finally {
+                    lock.unlock();
+                }
+                throw new InterruptedException();
+            }
+            for (int i = 0; i < n; ++i) {
+                leaf = leaves[(h + i) % n];
+                if ((c = leaf.arrive(this, g)) >= 0)
+                    break restart;
+                if (c == -2)                // generation ended
+                    continue restart;
+            }
+            awaitNextGeneration(g);         // all slots taken
+        }
+
+        final int position = leaf.base + c;
+        for (Node q = leaf, p;;) {          // propagate filled nodes
+            if (c + 1 < q.capacity)
+                break;
+            if ((p = q.parent) == null)
+                return trip(g, position);
+            if ((c = p.arrive(this, g)) < 0)
+                throw new BrokenBarrierException();
+            q = p;
+        }
+
+        for (int k = spins; k > 0; --k) {  // optionally spin
+            if (generation != g || g.broken)
+                break;
+        }
+        if (generation != g && !g.broken)   // tripped; no need to lock
+            return arrivalIndex(g, position);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            for (;;) {
+                if (g.broken)
+                    throw new BrokenBarrierException();
+
+                if (g != generation)
+                    return arrivalIndex(g, position);
+
+                if (timed && (nanos = deadline - System.nanoTime()) <= 0L) {
+                    breakBarrier();
+                    throw new TimeoutException();
+                }
+
+                try {
+                    if (!timed)
+                        trip.await();
+                    else
+                        trip.awaitNanos(nanos);
+                } catch (InterruptedException ie) {
+                    if (g == generation && ! g.broken) {
+                        breakBarrier();
+                        throw ie;
+                    } else {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Trips the barrier in combining mode after the last arrival,
+     * as done in dowait.
+     */
+    private int trip(Generation g, int position)
+        throws BrokenBarrierException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (g != generation || g.broken)
+                throw new BrokenBarrierException();
+            boolean ranAction = false;
+            try {
+                final Runnable command = barrierCommand;
+                if (command != null)
+                    command.run();
+                ranAction = true;
+                g.lastPosition = position;
+                nextGeneration();
+                return 0;
+            } finally {
+                if (!ranAction)
+                    breakBarrier();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the arrival index reported by await in combining mode
+     * for the given position of a tripped generation. The position
+     * taken by the tripping thread is swapped with the last one, so
+     * that the tripping thread always gets index 0. Reads of
+     * lastPosition follow the volatile read of the new generation.
+     */
+    private int arrivalIndex(Generation g, int position) {
+        return parties - 1 -
+            ((position == parties - 1) ? g.lastPosition : position);
+    }
+
+    /**
+     * Waits, without arriving, until the given generation has been
+     * tripped or broken. Used in combining mode by threads arriving
+     * after all parties of the current generation, which would
+     * otherwise wait for the lock in dowait.
+     */
+    private void awaitNextGeneration(Generation g) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            while (g == generation && !g.broken)
+                trip.awaitUninterruptibly();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Creates a new {@code CyclicBarrier} that will trip when the
      * given number of parties (threads) are waiting upon it, and which
@@ -275,10 +577,54 @@ public class CyclicBarrier {
      * @throws IllegalArgumentException if {@code parties} is less than 1
      */
     public CyclicBarrier(int parties, Runnable barrierAction) {
+        this(parties, barrierAction, false, false);
+    }
+
+    private CyclicBarrier(int parties, Runnable barrierAction,
+                          boolean combining, boolean spin) {
         if (parties <= 0) throw new IllegalArgumentException();
         this.parties = parties;
         this.count = parties;
         this.barrierCommand = barrierAction;
+        this.leaves = combining ? buildTree(parties) : null;
+        this.spins = spin ? COMBINING_SPINS : 0;
+    }
+
+    /**
+     * Creates a new {@code CyclicBarrier} that behaves as one created
+     * with {@link #CyclicBarrier(int, Runnable)}, except that arrivals
+     * are counted in a combining tree sized from the number of
+     * parties. Counting an arrival contends only with the few others
+     * sharing its part of the tree, and the lock is taken only to trip
+     * the barrier and by threads that block. Threads that block wait
+     * on, and are all released through, the same lock and condition
+     * as in other barriers. This may be worthwhile for barriers with
+     * many parties that are used at high rates.
+     *
+     * <p>If {@code spin} is {@code true}, threads that are not the
+     * last to arrive first spin for a short while before blocking,
+     * which avoids the cost of blocking and unblocking when the
+     * remaining parties arrive soon, at the expense of processor time
+     * otherwise available to other threads. Spinning is disabled on
+     * uniprocessors.
+     *
+     * <p>Arrival indices returned by {@link #await} are distinct
+     * within each generation, and zero indicates the last to arrive,
+     * but the order of the other indices does not correspond to
+     * arrival order.
+     *
+     * @param parties the number of threads that must invoke {@link #await}
+     *        before the barrier is tripped
+     * @param barrierAction the command to execute when the barrier is
+     *        tripped, or {@code null} if there is no action
+     * @param spin whether waiting threads spin before blocking
+     * @return the new barrier
+     * @throws IllegalArgumentException if {@code parties} is less than 1
+     */
+    public static CyclicBarrier newCombiningBarrier(int parties,
+                                                    Runnable barrierAction,
+                                                    boolean spin) {
+        return new CyclicBarrier(parties, barrierAction, true, spin);
     }
 
     /**
@@ -483,6 +829,16 @@ public class CyclicBarrier {
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
+            final Node[] leaves = this.leaves;
+            if (leaves != null) {
+                final Generation g = generation;
+                int n = 0;
+                if (!g.broken) {
+                    for (Node leaf : leaves)
+                        n += leaf.countFor(g);
+                }
+                return n;
+            }
             return parties - count;
         } finally {
             lock.unlock();
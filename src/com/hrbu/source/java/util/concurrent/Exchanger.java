@@ -330,6 +330,13 @@ public class Exchanger<V> {
      */
     private final Participant participant;
 
+    /**
+     * The wait strategy used while waiting in the slot or in arena
+     * slot 0 (the only places where threads block), or null for the
+     * built-in spin policy
+     */
+    private final WaitStrategy waitStrategy;
+
     /**
      * Elimination array; null until enabled (within slotExchange).
      * Element accesses use emulation of volatile gets and CAS.
@@ -377,14 +384,25 @@ public class Exchanger<V> {
                 if (U.compareAndSwapObject(a, j, null, p)) {
                     long end = (timed && m == 0) ? System.nanoTime() + ns : 0L;
                     Thread t = Thread.currentThread(); // wait
-                    for (int h = p.hash, spins = SPINS;;) {
+                    WaitStrategy ws = (m == 0) ? waitStrategy : null;
+                    boolean blocked = false;
+                    for (int h = p.hash,
+                             spins = (ws != null) ? ws.spins(timed) : SPINS;;) {
                         Object v = p.match;
                         if (v != null) {
                             U.putOrderedObject(p, MATCH, null);
                             p.item = null;             // clear for next use
                             p.hash = h;
+                            if (ws != null)
+                                ws.handedOff(blocked);
                             return v;
                         }
+                        else if (spins > 0 && ws != null) {
+                            spins = ws.spin(spins);
+                            if (t.isInterrupted() ||   // stop to recheck
+                                (timed && end - System.nanoTime() <= 0L))
+                                spins = 0;
+                        }
                         else if (spins > 0) {
                             h ^= h << 1; h ^= h >>> 3; h ^= h << 10; // xorshift
                             if (h == 0)                // initialize hash
@@ -400,8 +418,10 @@ public class Exchanger<V> {
                                   (ns = end - System.nanoTime()) > 0L)) {
                             U.putObject(t, BLOCKER, this); // emulate LockSupport
                             p.parked = t;              // minimize window
-                            if (U.getObjectVolatile(a, j) == p)
+                            if (U.getObjectVolatile(a, j) == p) {
+                                blocked = true;
                                 U.park(false, ns);
+                            }
                             p.parked = null;
                             U.putObject(t, BLOCKER, null);
                         }
@@ -485,10 +505,19 @@ public class Exchanger<V> {
         // await release
         int h = p.hash;
         long end = timed ? System.nanoTime() + ns : 0L;
-        int spins = (NCPU > 1) ? SPINS : 1;
+        final WaitStrategy ws = (NCPU > 1) ? waitStrategy : null;
+        int spins = (ws != null) ? ws.spins(timed) : (NCPU > 1) ? SPINS : 1;
+        boolean blocked = false;
         Object v;
         while ((v = p.match) == null) {
-            if (spins > 0) {
+            if (spins > 0 && ws != null) {
+                spins = ws.spin(spins);
+                if (arena != null ||       // slot abandoned; leave it
+                    t.isInterrupted() ||   // stop spinning to recheck
+                    (timed && end - System.nanoTime() <= 0L))
+                    spins = 0;
+            }
+            else if (spins > 0) {
                 h ^= h << 1; h ^= h >>> 3; h ^= h << 10;
                 if (h == 0)
                     h = SPINS | (int)t.getId();
@@ -501,8 +530,10 @@ public class Exchanger<V> {
                      (!timed || (ns = end - System.nanoTime()) > 0L)) {
                 U.putObject(t, BLOCKER, this);
                 p.parked = t;
-                if (slot == p)
+                if (slot == p) {
+                    blocked = true;
                     U.park(false, ns);
+                }
                 p.parked = null;
                 U.putObject(t, BLOCKER, null);
             }
@@ -514,6 +545,8 @@ public class Exchanger<V> {
         U.putOrderedObject(p, MATCH, null);
         p.item = null;
         p.hash = h;
+        if (ws != null && v != null && v != TIMED_OUT)
+            ws.handedOff(blocked);
         return v;
     }
 
@@ -521,7 +554,22 @@ public class Exchanger<V> {
      * Creates a new Exchanger.
      */
     public Exchanger() {
+        this(null);
+    }
+
+    /**
+     * Creates a new Exchanger using the given wait strategy, which
+     * controls how a thread waiting for a partner spins before
+     * blocking. If {@code null}, the built-in spin policy is used.
+     * Under contention, threads may instead wait briefly in other
+     * slots of an elimination arena; these waits never block and
+     * always use the built-in policy.
+     *
+     * @param waitStrategy the wait strategy, or {@code null}
+     */
+    public Exchanger(WaitStrategy waitStrategy) {
         participant = new Participant();
+        this.waitStrategy = waitStrategy;
     }
 
     /**
@@ -353,6 +353,27 @@ public class Executors {
         return new DefaultThreadFactory();
     }
 
+    /**
+     * Returns a thread factory that behaves as {@link
+     * #defaultThreadFactory()} except that each new thread is created
+     * with the given requested stack size. Pools whose tasks spend
+     * most of their time blocked in I/O may use a small stack size
+     * to reduce the per-thread memory cost of running many threads.
+     * As with {@link Thread#Thread(ThreadGroup, Runnable, String, long)},
+     * the stack size is only a hint and may be ignored by the
+     * virtual machine.
+     *
+     * @param stackSize the desired stack size for new threads, or
+     *        zero to indicate that this parameter is to be ignored
+     * @return a thread factory
+     * @throws IllegalArgumentException if {@code stackSize} is negative
+     */
+    public static ThreadFactory defaultThreadFactory(long stackSize) {
+        if (stackSize < 0L)
+            throw new IllegalArgumentException();
+        return new DefaultThreadFactory(stackSize);
+    }
+
     /**
      * Returns a thread factory used to create new threads that
      * have the same permissions as the current thread.
@@ -598,8 +619,14 @@ public class Executors {
         private final ThreadGroup group;
         private final AtomicInteger threadNumber = new AtomicInteger(1);
         private final String namePrefix;
+        private final long stackSize;
 
         DefaultThreadFactory() {
+            this(0L);
+        }
+
+        DefaultThreadFactory(long stackSize) {
+            this.stackSize = stackSize;
             SecurityManager s = System.getSecurityManager();
             group = (s != null) ? s.getThreadGroup() :
                                   Thread.currentThread().getThreadGroup();
@@ -611,7 +638,7 @@ public class Executors {
         public Thread newThread(Runnable r) {
             Thread t = new Thread(group, r,
                                   namePrefix + threadNumber.getAndIncrement(),
-                                  0);
+                                  stackSize);
             if (t.isDaemon())
                 t.setDaemon(false);
             if (t.getPriority() != Thread.NORM_PRIORITY)
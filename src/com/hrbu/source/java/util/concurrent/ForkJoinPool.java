@@ -645,6 +645,23 @@ public class ForkJoinPool extends AbstractExecutorService {
      * be JVM-dependent and must access particular Thread class fields
      * to achieve this effect.
      *
+     * Statistics
+     * ==========
+     *
+     * Workers keep plain (non-atomic) counts of empty scans, idle
+     * parks, parks ended by a signal, and submissions they took from
+     * shared queues, together with the time those submissions spent
+     * queued.  Only the owner writes them, so updating them costs no
+     * more than maintaining nsteals.  Shared queues record a
+     * System.nanoTime stamp per slot (array stamps, grown along with
+     * the task array under qlock) which stealers read after taking a
+     * task in scan.  Counts of departed workers are folded into
+     * "retired" pool fields under the runState lock, so monitoring
+     * methods (and the ForkJoinPoolMXBean view) can sum them without
+     * stopping the pool, at the price of only approximate results
+     * while it is active.  Compensating threads created in
+     * tryCompensate are counted with an Unsafe add.
+     *
      * Style notes
      * ===========
      *
@@ -812,6 +829,13 @@ public class ForkJoinPool extends AbstractExecutorService {
         volatile Thread parker;    // == owner during call to park; else null
         volatile ForkJoinTask<?> currentJoin;  // task being joined in awaitJoin
         volatile ForkJoinTask<?> currentSteal; // mainly used by helpStealer
+        long[] stamps;             // submission times if shared, else null
+        long nemptyScans;          // number of scans finding no task
+        long nparks;               // number of idle parks
+        long nunparks;             // number of parks ended by a signal
+        long nsubmissions;         // number of timed shared-queue steals
+        long submissionWait;       // total queued time of those, in nanos
+        long maxSubmissionWait;    // maximum of those, in nanos
 
         WorkQueue(ForkJoinPool pool, ForkJoinWorkerThread owner) {
             this.pool = pool;
@@ -883,6 +907,9 @@ public class ForkJoinPool extends AbstractExecutorService {
             if (size > MAXIMUM_QUEUE_CAPACITY)
                 throw new RejectedExecutionException("Queue capacity exceeded");
             int oldMask, t, b;
+            long[] oldSt = stamps, st = null;
+            if (owner == null)          // shared; caller holds qlock
+                stamps = st = new long[size];
             ForkJoinTask<?>[] a = array = new ForkJoinTask<?>[size];
             if (oldA != null && (oldMask = oldA.length - 1) >= 0 &&
                 (t = top) - (b = base) > 0) {
@@ -891,6 +918,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                     ForkJoinTask<?> x;
                     int oldj = ((b & oldMask) << ASHIFT) + ABASE;
                     int j    = ((b &    mask) << ASHIFT) + ABASE;
+                    if (st != null && oldSt != null &&
+                        oldSt.length == oldA.length)
+                        st[b & mask] = oldSt[b & oldMask];
                     x = (ForkJoinTask<?>)U.getObjectVolatile(oldA, oldj);
                     if (x != null &&
                         U.compareAndSwapObject(oldA, oldj, x, null))
@@ -1065,6 +1095,22 @@ public class ForkJoinPool extends AbstractExecutorService {
             }
         }
 
+        /**
+         * Records the queued time of the task just taken from slot b
+         * of shared queue q, if q stamped it.
+         */
+        final void recordSubmissionWait(WorkQueue q, int b) {
+            long[] st; long t, d;
+            if (q != null && (st = q.stamps) != null &&
+                (t = st[b & (st.length - 1)]) != 0L &&
+                (d = System.nanoTime() - t) >= 0L) {
+                ++nsubmissions;
+                submissionWait += d;
+                if (d > maxSubmissionWait)
+                    maxSubmissionWait = d;
+            }
+        }
+
         /**
          * Adds steal count to pool stealCounter if it exists, and resets.
          */
@@ -1396,6 +1442,13 @@ public class ForkJoinPool extends AbstractExecutorService {
     final UncaughtExceptionHandler ueh;  // per-worker UEH
     final String workerNamePrefix;       // to create worker name string
     volatile AtomicLong stealCounter;    // also used as sync monitor
+    volatile long compensations;         // compensating workers created
+    long retiredEmptyScans;              // statistics of departed workers,
+    long retiredParks;                   //   updated under runState lock
+    long retiredUnparks;
+    long retiredSubmissions;
+    long retiredSubmissionWait;
+    long retiredMaxSubmissionWait;
 
     /**
      * Acquires the runState lock; returns current (locked) runState.
@@ -1581,8 +1634,16 @@ public class ForkJoinPool extends AbstractExecutorService {
             WorkQueue[] ws;                           // remove index from array
             int idx = w.config & SMASK;
             int rs = lockRunState();
-            if ((ws = workQueues) != null && ws.length > idx && ws[idx] == w)
+            if ((ws = workQueues) != null && ws.length > idx && ws[idx] == w) {
                 ws[idx] = null;
+                retiredEmptyScans += w.nemptyScans;
+                retiredParks += w.nparks;
+                retiredUnparks += w.nunparks;
+                retiredSubmissions += w.nsubmissions;
+                retiredSubmissionWait += w.submissionWait;
+                if (w.maxSubmissionWait > retiredMaxSubmissionWait)
+                    retiredMaxSubmissionWait = w.maxSubmissionWait;
+            }
             unlockRunState(rs, rs & ~RSLOCK);
         }
         long c;                                       // decrement counts
@@ -1690,8 +1751,11 @@ public class ForkJoinPool extends AbstractExecutorService {
         for (ForkJoinTask<?> t;;) {
             if ((t = scan(w, r)) != null)
                 w.runTask(t);
-            else if (!awaitWork(w, r))
-                break;
+            else {
+                ++w.nemptyScans;
+                if (!awaitWork(w, r))
+                    break;
+            }
             r ^= r << 13; r ^= r >>> 17; r ^= r << 5; // xorshift
         }
     }
@@ -1729,6 +1793,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                             if (ss >= 0) {
                                 if (U.compareAndSwapObject(a, i, t, null)) {
                                     q.base = b + 1;
+                                    if ((k & 1) == 0) // submission
+                                        w.recordSubmissionWait(q, b);
                                     if (n < -1)       // signal others
                                         signalWork(ws, q);
                                     return t;
@@ -1820,12 +1886,19 @@ public class ForkJoinPool extends AbstractExecutorService {
                 Thread wt = Thread.currentThread();
                 U.putObject(wt, PARKBLOCKER, this);   // emulate LockSupport
                 w.parker = wt;
-                if (w.scanState < 0 && ctl == c)      // recheck before park
+                boolean parked = false;
+                if (w.scanState < 0 && ctl == c) {    // recheck before park
+                    parked = true;
+                    ++w.nparks;
                     U.park(false, parkTime);
+                }
                 U.putOrderedObject(w, QPARKER, null);
                 U.putObject(wt, PARKBLOCKER, null);
-                if (w.scanState >= 0)
+                if (w.scanState >= 0) {
+                    if (parked)
+                        ++w.nunparks;
                     break;
+                }
                 if (parkTime != 0L && ctl == c &&
                     deadline - System.nanoTime() <= 0L &&
                     U.compareAndSwapLong(this, CTL, c, prevctl))
@@ -2018,6 +2091,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                     add = U.compareAndSwapLong(this, CTL, c, nc);
                 unlockRunState(rs, rs & ~RSLOCK);
                 canBlock = add && createWorker(); // throws on exception
+                if (canBlock)
+                    U.getAndAddLong(this, COMPENSATIONS, 1L);
             }
         }
         return canBlock;
@@ -2356,6 +2431,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                         if ((a != null && a.length > s + 1 - q.base) ||
                             (a = q.growArray()) != null) {
                             int j = (((a.length - 1) & s) << ASHIFT) + ABASE;
+                            long[] st = q.stamps;
+                            if (st != null && st.length == a.length)
+                                st[(a.length - 1) & s] = System.nanoTime();
                             U.putOrderedObject(a, j, task);
                             U.putOrderedInt(q, QTOP, s + 1);
                             submitted = true;
@@ -2407,6 +2485,9 @@ public class ForkJoinPool extends AbstractExecutorService {
             if ((a = q.array) != null &&
                 (am = a.length - 1) > (n = (s = q.top) - q.base)) {
                 int j = ((am & s) << ASHIFT) + ABASE;
+                long[] st = q.stamps;
+                if (st != null && st.length == a.length)
+                    st[am & s] = System.nanoTime();   // for statistics
                 U.putOrderedObject(a, j, task);
                 U.putOrderedInt(q, QTOP, s + 1);
                 U.putIntVolatile(q, QLOCK, 0);
@@ -2886,6 +2967,340 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Returns an estimate of the total number of times worker threads
+     * looked for a task in every queue of the pool without finding
+     * one. A high rate relative to {@link #getStealCount} suggests
+     * more workers than available parallel work.
+     *
+     * @return the number of unsuccessful scans
+     */
+    public long getEmptyScanCount() {
+        long count = retiredEmptyScans;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.nemptyScans;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns an estimate of the total number of times idle worker
+     * threads have blocked waiting for tasks.
+     *
+     * @return the number of idle parks
+     */
+    public long getParkCount() {
+        long count = retiredParks;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.nparks;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns an estimate of the total number of times blocked idle
+     * worker threads were woken up because work became available (as
+     * opposed to timing out or terminating).
+     *
+     * @return the number of idle parks ended by a signal
+     */
+    public long getUnparkCount() {
+        long count = retiredUnparks;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.nunparks;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of worker threads created to compensate for
+     * workers blocked in joins or in {@link #managedBlock}.  A
+     * steadily increasing value indicates blocking work that keeps
+     * the pool above its target parallelism.
+     *
+     * @return the number of compensating threads created
+     */
+    public long getCompensationCount() {
+        return compensations;
+    }
+
+    /**
+     * Returns the number of tasks submitted by non-worker threads
+     * whose queueing time has been measured, that is, those taken
+     * from submission queues by workers scanning for work. Tasks
+     * taken in other ways (for example by submitters helping to
+     * complete them) are not counted.
+     *
+     * @return the number of timed submissions
+     * @see #getSubmissionWaitTime
+     */
+    public long getSubmissionCount() {
+        long count = retiredSubmissions;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.nsubmissions;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns an estimate of the total time, in nanoseconds, that
+     * the submissions counted by {@link #getSubmissionCount} spent
+     * waiting in submission queues before a worker took them.
+     *
+     * @return the total submission queueing time in nanoseconds
+     */
+    public long getSubmissionWaitTime() {
+        long time = retiredSubmissionWait;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    time += w.submissionWait;
+            }
+        }
+        return time;
+    }
+
+    /**
+     * Returns the longest time, in nanoseconds, that any of the
+     * submissions counted by {@link #getSubmissionCount} spent
+     * waiting in a submission queue.
+     *
+     * @return the maximum submission queueing time in nanoseconds
+     */
+    public long getMaxSubmissionWaitTime() {
+        long time = retiredMaxSubmissionWait;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null && w.maxSubmissionWait > time)
+                    time = w.maxSubmissionWait;
+            }
+        }
+        return time;
+    }
+
+    /**
+     * Returns a snapshot of statistics for each queue of this pool,
+     * both those owned by worker threads and the shared queues
+     * holding tasks submitted by other threads. The values are read
+     * without stopping the pool, so are only approximations if it is
+     * active, and they do not include workers that have since
+     * terminated.
+     *
+     * @return per-queue statistics, ordered by queue index
+     */
+    public QueueStatistics[] getQueueStatistics() {
+        ArrayList<QueueStatistics> list = new ArrayList<>();
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 0; i < ws.length; ++i) {
+                if ((w = ws[i]) != null)
+                    list.add(new QueueStatistics(i, w));
+            }
+        }
+        return list.toArray(new QueueStatistics[list.size()]);
+    }
+
+    /**
+     * Statistics for a single queue of a {@link ForkJoinPool}, as
+     * returned by {@link ForkJoinPool#getQueueStatistics}. Counts for
+     * shared submission queues other than the queued task count are
+     * always zero.
+     */
+    public static final class QueueStatistics {
+        private final int index;
+        private final String threadName;
+        private final int queuedTaskCount;
+        private final long stealCount;
+        private final long emptyScanCount;
+        private final long parkCount;
+        private final long unparkCount;
+        private final long submissionCount;
+        private final long submissionWaitTime;
+
+        QueueStatistics(int index, WorkQueue w) {
+            Thread t = w.owner;
+            this.index = index;
+            this.threadName = (t == null) ? null : t.getName();
+            this.queuedTaskCount = w.queueSize();
+            this.stealCount = w.nsteals;
+            this.emptyScanCount = w.nemptyScans;
+            this.parkCount = w.nparks;
+            this.unparkCount = w.nunparks;
+            this.submissionCount = w.nsubmissions;
+            this.submissionWaitTime = w.submissionWait;
+        }
+
+        /**
+         * Returns the index of the queue within the pool. Worker
+         * queues have odd indices, shared submission queues even ones.
+         *
+         * @return the queue index
+         */
+        public int getIndex() { return index; }
+
+        /**
+         * Returns true if this is a shared queue of tasks submitted
+         * by non-worker threads.
+         *
+         * @return true if this is a submission queue
+         */
+        public boolean isSubmissionQueue() { return (index & 1) == 0; }
+
+        /**
+         * Returns the name of the worker thread owning the queue, or
+         * {@code null} for a submission queue.
+         *
+         * @return the owner's name, or null
+         */
+        public String getThreadName() { return threadName; }
+
+        /**
+         * Returns the number of tasks held in the queue.
+         *
+         * @return the number of queued tasks
+         */
+        public int getQueuedTaskCount() { return queuedTaskCount; }
+
+        /**
+         * Returns the number of tasks the owning worker has stolen
+         * that have not yet been added to {@link
+         * ForkJoinPool#getStealCount}.
+         *
+         * @return the worker's recent steal count
+         */
+        public long getStealCount() { return stealCount; }
+
+        /**
+         * Returns the number of scans by the owning worker that found
+         * no task.
+         *
+         * @return the worker's empty scan count
+         */
+        public long getEmptyScanCount() { return emptyScanCount; }
+
+        /**
+         * Returns the number of times the owning worker blocked
+         * waiting for work.
+         *
+         * @return the worker's idle park count
+         */
+        public long getParkCount() { return parkCount; }
+
+        /**
+         * Returns the number of times the owning worker was woken up
+         * from an idle park because work became available.
+         *
+         * @return the worker's signalled unpark count
+         */
+        public long getUnparkCount() { return unparkCount; }
+
+        /**
+         * Returns the number of submissions the owning worker took
+         * from submission queues and timed.
+         *
+         * @return the worker's timed submission count
+         */
+        public long getSubmissionCount() { return submissionCount; }
+
+        /**
+         * Returns the total time, in nanoseconds, that the submissions
+         * counted by {@link #getSubmissionCount} spent queued.
+         *
+         * @return the queueing time in nanoseconds
+         */
+        public long getSubmissionWaitTime() { return submissionWaitTime; }
+
+        /**
+         * Returns a string identifying this queue and its statistics.
+         *
+         * @return a string representation of these statistics
+         */
+        public String toString() {
+            return ((threadName != null) ? threadName :
+                    "submissions-" + (index >>> 1)) +
+                "[tasks = " + queuedTaskCount +
+                ", steals = " + stealCount +
+                ", empty scans = " + emptyScanCount +
+                ", parks = " + parkCount +
+                ", unparks = " + unparkCount +
+                ", submissions = " + submissionCount +
+                ", wait = " + submissionWaitTime + "ns]";
+        }
+    }
+
+    /**
+     * Returns a view of this pool's monitoring methods as a {@link
+     * ForkJoinPoolMXBean}, suitable for registration with an MBean
+     * server:
+     *
+     * <pre> {@code
+     * ManagementFactory.getPlatformMBeanServer()
+     *     .registerMBean(pool.getMXBean(), name);}</pre>
+     *
+     * @return a management view of this pool
+     */
+    public ForkJoinPoolMXBean getMXBean() {
+        return new PoolMXBean(this);
+    }
+
+    /**
+     * Adapts a pool's monitoring methods to ForkJoinPoolMXBean,
+     * keeping the pool itself free of management dependencies.
+     */
+    static final class PoolMXBean implements ForkJoinPoolMXBean {
+        final ForkJoinPool pool;
+        PoolMXBean(ForkJoinPool pool) { this.pool = pool; }
+        public int getParallelism() { return pool.getParallelism(); }
+        public int getPoolSize() { return pool.getPoolSize(); }
+        public int getActiveThreadCount() {
+            return pool.getActiveThreadCount();
+        }
+        public int getRunningThreadCount() {
+            return pool.getRunningThreadCount();
+        }
+        public long getQueuedTaskCount() { return pool.getQueuedTaskCount(); }
+        public int getQueuedSubmissionCount() {
+            return pool.getQueuedSubmissionCount();
+        }
+        public long getStealCount() { return pool.getStealCount(); }
+        public long getEmptyScanCount() { return pool.getEmptyScanCount(); }
+        public long getParkCount() { return pool.getParkCount(); }
+        public long getUnparkCount() { return pool.getUnparkCount(); }
+        public long getCompensationCount() {
+            return pool.getCompensationCount();
+        }
+        public long getSubmissionCount() { return pool.getSubmissionCount(); }
+        public long getSubmissionWaitTime() {
+            return pool.getSubmissionWaitTime();
+        }
+        public long getMaxSubmissionWaitTime() {
+            return pool.getMaxSubmissionWaitTime();
+        }
+        public QueueStatistics[] getQueueStatistics() {
+            return pool.getQueueStatistics();
+        }
+        public boolean isQuiescent() { return pool.isQuiescent(); }
+        public boolean isShutdown() { return pool.isShutdown(); }
+    }
+
     /**
      * Returns an estimate of the number of tasks submitted to this
      * pool that have not yet begun executing.  This method may take
@@ -3343,6 +3758,7 @@ public class ForkJoinPool extends AbstractExecutorService {
     private static final long CTL;
     private static final long RUNSTATE;
     private static final long STEALCOUNTER;
+    private static final long COMPENSATIONS;
     private static final long PARKBLOCKER;
     private static final long QTOP;
     private static final long QLOCK;
@@ -3362,6 +3778,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                 (k.getDeclaredField("runState"));
             STEALCOUNTER = U.objectFieldOffset
                 (k.getDeclaredField("stealCounter"));
+            COMPENSATIONS = U.objectFieldOffset
+                (k.getDeclaredField("compensations"));
             Class<?> tk = Thread.class;
             PARKBLOCKER = U.objectFieldOffset
                 (tk.getDeclaredField("parkBlocker"));
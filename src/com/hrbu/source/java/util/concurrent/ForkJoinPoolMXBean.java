@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.concurrent;
+
+/**
+ * The management interface for a {@link ForkJoinPool}, obtained
+ * with {@link ForkJoinPool#getMXBean}. Each attribute corresponds to
+ * the pool method of the same name; see those methods for the
+ * precise meaning and accuracy of each value. All attributes are
+ * read without stopping the pool, so they may be sampled
+ * periodically while it runs.
+ *
+ * <p>A pool is not registered automatically. To monitor one, for
+ * example the {@linkplain ForkJoinPool#commonPool common pool},
+ * register its view under a name of your choosing:
+ *
+ * <pre> {@code
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(
+ *     ForkJoinPool.commonPool().getMXBean(),
+ *     new ObjectName("java.util.concurrent:type=ForkJoinPool,name=common"));}</pre>
+ */
+public interface ForkJoinPoolMXBean {
+
+    /**
+     * Returns the targeted parallelism level of the pool.
+     *
+     * @return the targeted parallelism level
+     * @see ForkJoinPool#getParallelism
+     */
+    int getParallelism();
+
+    /**
+     * Returns the number of worker threads that have started but not
+     * yet terminated.
+     *
+     * @return the number of worker threads
+     * @see ForkJoinPool#getPoolSize
+     */
+    int getPoolSize();
+
+    /**
+     * Returns an estimate of the number of threads that are currently
+     * stealing or executing tasks.
+     *
+     * @return the number of active threads
+     * @see ForkJoinPool#getActiveThreadCount
+     */
+    int getActiveThreadCount();
+
+    /**
+     * Returns an estimate of the number of worker threads that are
+     * not blocked waiting to join tasks or for other managed
+     * synchronization.
+     *
+     * @return the number of running worker threads
+     * @see ForkJoinPool#getRunningThreadCount
+     */
+    int getRunningThreadCount();
+
+    /**
+     * Returns an estimate of the number of tasks held in worker
+     * queues.
+     *
+     * @return the number of queued tasks
+     * @see ForkJoinPool#getQueuedTaskCount
+     */
+    long getQueuedTaskCount();
+
+    /**
+     * Returns an estimate of the number of submitted tasks not yet
+     * taken by a worker.
+     *
+     * @return the number of queued submissions
+     * @see ForkJoinPool#getQueuedSubmissionCount
+     */
+    int getQueuedSubmissionCount();
+
+    /**
+     * Returns an estimate of the total number of steals.
+     *
+     * @return the number of steals
+     * @see ForkJoinPool#getStealCount
+     */
+    long getStealCount();
+
+    /**
+     * Returns an estimate of the number of scans that found no task.
+     *
+     * @return the number of unsuccessful scans
+     * @see ForkJoinPool#getEmptyScanCount
+     */
+    long getEmptyScanCount();
+
+    /**
+     * Returns an estimate of the number of idle worker parks.
+     *
+     * @return the number of idle parks
+     * @see ForkJoinPool#getParkCount
+     */
+    long getParkCount();
+
+    /**
+     * Returns an estimate of the number of idle parks ended by a
+     * signal.
+     *
+     * @return the number of signalled unparks
+     * @see ForkJoinPool#getUnparkCount
+     */
+    long getUnparkCount();
+
+    /**
+     * Returns the number of compensating worker threads created.
+     *
+     * @return the number of compensating threads
+     * @see ForkJoinPool#getCompensationCount
+     */
+    long getCompensationCount();
+
+    /**
+     * Returns the number of submissions whose queueing time has been
+     * measured.
+     *
+     * @return the number of timed submissions
+     * @see ForkJoinPool#getSubmissionCount
+     */
+    long getSubmissionCount();
+
+    /**
+     * Returns the total queueing time of timed submissions, in
+     * nanoseconds.
+     *
+     * @return the total submission queueing time
+     * @see ForkJoinPool#getSubmissionWaitTime
+     */
+    long getSubmissionWaitTime();
+
+    /**
+     * Returns the maximum queueing time of a timed submission, in
+     * nanoseconds.
+     *
+     * @return the maximum submission queueing time
+     * @see ForkJoinPool#getMaxSubmissionWaitTime
+     */
+    long getMaxSubmissionWaitTime();
+
+    /**
+     * Returns a snapshot of per-queue statistics.
+     *
+     * @return per-queue statistics
+     * @see ForkJoinPool#getQueueStatistics
+     */
+    ForkJoinPool.QueueStatistics[] getQueueStatistics();
+
+    /**
+     * Returns {@code true} if all worker threads are currently idle.
+     *
+     * @return {@code true} if the pool is quiescent
+     * @see ForkJoinPool#isQuiescent
+     */
+    boolean isQuiescent();
+
+    /**
+     * Returns {@code true} if the pool has been shut down.
+     *
+     * @return {@code true} if the pool has been shut down
+     * @see ForkJoinPool#isShutdown
+     */
+    boolean isShutdown();
+}
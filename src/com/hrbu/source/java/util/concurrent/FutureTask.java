@@ -423,10 +423,73 @@ public class FutureTask<V> implements RunnableFuture<V> {
                     removeWaiter(q); // 超时，移除等待的线程
                     return state;
                 }
-                LockSupport.parkNanos(this, nanos);
+                parkWaiter(true, nanos);
             }
             else
-                LockSupport.park(this); // 暂停当前线程
+                parkWaiter(false, 0L); // 暂停当前线程
+        }
+    }
+
+    /**
+     * Parks the current waiter once. If the caller is a ForkJoinPool worker,
+     * parking goes through {@link ForkJoinPool#managedBlock} so that the pool
+     * may activate or create a spare thread while this one is blocked,
+     * rather than losing a unit of parallelism for the whole wait.
+     * 暂停当前等待线程一次。如果调用者是ForkJoinPool的工作线程，通过managedBlock暂停，
+     * 使线程池在该线程阻塞期间可以激活或创建备用线程，而不是在整个等待期间损失一个并行度。
+     *
+     * @param timed true if use timed waits
+     * @param nanos time to wait, if timed
+     */
+    private void parkWaiter(boolean timed, long nanos) {
+        if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+            Blocker b = new Blocker(this, timed, nanos);
+            try {
+                ForkJoinPool.managedBlock(b);
+            } catch (InterruptedException ie) { // not thrown by Blocker
+                Thread.currentThread().interrupt();
+            }
+        }
+        else if (timed)
+            LockSupport.parkNanos(this, nanos);
+        else
+            LockSupport.park(this);
+    }
+
+    /**
+     * ManagedBlocker used by ForkJoinPool workers waiting in awaitDone.
+     * Each block() parks at most once and, as in CompletableFuture's
+     * Signaller, reports whether the wait is over, so that managedBlock
+     * keeps the worker compensated across spurious wakeups. awaitDone
+     * rechecks state, interrupts and timeouts after managedBlock returns.
+     * ForkJoinPool工作线程在awaitDone中等待时使用的ManagedBlocker。
+     * 每次block()最多暂停一次，并返回等待是否结束，使managedBlock在虚假唤醒后继续补偿；
+     * managedBlock返回后由awaitDone重新检查状态、中断和超时。
+     */
+    static final class Blocker implements ForkJoinPool.ManagedBlocker {
+        final FutureTask<?> task;
+        final boolean timed;
+        final long deadline;
+        long nanos;
+        Blocker(FutureTask<?> task, boolean timed, long nanos) {
+            this.task = task;
+            this.timed = timed;
+            this.nanos = nanos;
+            this.deadline = timed ? System.nanoTime() + nanos : 0L;
+        }
+        public boolean isReleasable() {
+            return task.state > COMPLETING ||
+                Thread.currentThread().isInterrupted() ||
+                (timed && (nanos = deadline - System.nanoTime()) <= 0L);
+        }
+        public boolean block() {
+            if (isReleasable())
+                return true;
+            else if (timed)
+                LockSupport.parkNanos(task, nanos);
+            else
+                LockSupport.park(task);
+            return isReleasable();
         }
     }
 
@@ -567,6 +567,9 @@ public class LinkedTransferQueue<E> extends AbstractQueue<E>
     /** The number of apparent failures to unsplice removed nodes */
     private transient volatile int sweepVotes;
 
+    /** The wait strategy, or null for the built-in spin policy */
+    private final transient WaitStrategy waitStrategy;
+
     // CAS methods for fields
     private boolean casTail(Node cmp, Node val) {
         return UNSAFE.compareAndSwapObject(this, tailOffset, cmp, val);
@@ -699,15 +702,19 @@ public class LinkedTransferQueue<E> extends AbstractQueue<E>
      */
     private E awaitMatch(Node s, Node pred, E e, boolean timed, long nanos) {
         final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        final WaitStrategy ws = waitStrategy;
         Thread w = Thread.currentThread();
         int spins = -1; // initialized after first item and cancel checks
         ThreadLocalRandom randomYields = null; // bound if needed
+        boolean blocked = false;
 
         for (;;) {
             Object item = s.item;
             if (item != e) {                  // matched
                 // assert item != s;
                 s.forgetContents();           // avoid garbage
+                if (ws != null)
+                    ws.handedOff(blocked);
                 return LinkedTransferQueue.<E>cast(item);
             }
             if ((w.isInterrupted() || (timed && nanos <= 0)) &&
@@ -717,23 +724,37 @@ public class LinkedTransferQueue<E> extends AbstractQueue<E>
             }
 
             if (spins < 0) {                  // establish spins at/near front
-                if ((spins = spinsFor(pred, s.isData)) > 0)
-                    randomYields = ThreadLocalRandom.current();
+                if ((spins = spinsFor(pred, s.isData)) > 0) {
+                    if (ws != null)
+                        spins = ws.spins(timed);
+                    else
+                        randomYields = ThreadLocalRandom.current();
+                }
             }
             else if (spins > 0) {             // spin
-                --spins;
-                if (randomYields.nextInt(CHAINED_SPINS) == 0)
-                    Thread.yield();           // occasionally yield
+                if (ws != null) {
+                    spins = ws.spin(spins);
+                    if (timed)                // strategy may never stop
+                        nanos = deadline - System.nanoTime();
+                }
+                else {
+                    --spins;
+                    if (randomYields.nextInt(CHAINED_SPINS) == 0)
+                        Thread.yield();       // occasionally yield
+                }
             }
             else if (s.waiter == null) {
                 s.waiter = w;                 // request unpark then recheck
             }
             else if (timed) {
                 nanos = deadline - System.nanoTime();
-                if (nanos > 0L)
+                if (nanos > 0L) {
+                    blocked = true;
                     LockSupport.parkNanos(this, nanos);
+                }
             }
             else {
+                blocked = true;
                 LockSupport.park(this);
             }
         }
@@ -1144,6 +1165,22 @@ public class LinkedTransferQueue<E> extends AbstractQueue<E>
      * Creates an initially empty {@code LinkedTransferQueue}.
      */
     public LinkedTransferQueue() {
+        this.waitStrategy = null;
+    }
+
+    /**
+     * Creates an initially empty {@code LinkedTransferQueue} using the
+     * given wait strategy, which controls how threads waiting for a
+     * match spin before blocking. If {@code null}, the built-in spin
+     * policy is used. As with the built-in policy, threads spin only
+     * when at or near the front of the queue, and only on
+     * multiprocessors. Wait strategies are not serialized, so a
+     * deserialized queue uses the built-in policy.
+     *
+     * @param waitStrategy the wait strategy, or {@code null}
+     */
+    public LinkedTransferQueue(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
     }
 
     /**
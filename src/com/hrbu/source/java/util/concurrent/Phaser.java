@@ -136,6 +136,10 @@ import java.util.concurrent.locks.LockSupport;
  * {@link #arriveAndDeregister}, the child phaser is deregistered
  * from its parent.
  *
+ * <p>Method {@link #newTree(Phaser, int, int)} builds such a tree
+ * automatically, sized from the total number of parties, and returns
+ * the leaf phasers to which the parties should be assigned.
+ *
  * <p><b>Monitoring.</b> While synchronization methods may be invoked
  * only by registered parties, the current state of a phaser may be
  * monitored by any caller.  At any given moment there are {@link
@@ -572,6 +576,92 @@ public class Phaser {
             ((long)parties);
     }
 
+    /**
+     * Creates a tree of phasers below the given root that together
+     * register the given number of parties, using a default fan-in
+     * chosen for high synchronization rates. Equivalent to {@link
+     * #newTree(Phaser, int, int) newTree(root, parties, 4)}.
+     *
+     * @param root the root phaser, or {@code null} to create one
+     * @param parties the total number of parties
+     * @return the leaf phasers; party {@code k} should use element
+     * {@code k % length} of this array
+     * @throws IllegalArgumentException if parties is less than one
+     * @throws IllegalStateException if the root cannot register the
+     * additional children or parties
+     */
+    public static Phaser[] newTree(Phaser root, int parties) {
+        return newTree(root, parties, DEFAULT_FAN_IN);
+    }
+
+    /**
+     * Creates a tree of phasers below the given root that together
+     * register the given number of parties, so that no phaser in the
+     * tree has more than {@code fanIn} registered parties or children.
+     * Each arrival then contends only with the few other parties
+     * sharing its leaf, and the cost of a full barrier grows with the
+     * logarithm of the number of parties rather than linearly.
+     *
+     * <p>Parties are spread as evenly as possible across the leaves,
+     * and party {@code k} (for {@code 0 <= k < parties}) should use
+     * leaf {@code k % leaves.length}, for example by invoking {@link
+     * #arriveAndAwaitAdvance} on it. If the given root is {@code
+     * null}, a new root phaser is created. A root subclass may
+     * override {@link #onAdvance} to act as a barrier action; it is
+     * invoked once per phase, on the root, by the party triggering
+     * the advance. If all parties fit in a single leaf, they are
+     * registered directly with the root, and the result holds only
+     * the root.
+     *
+     * @param root the root phaser, or {@code null} to create one
+     * @param parties the total number of parties
+     * @param fanIn the maximum number of parties or children per phaser
+     * @return the leaf phasers; party {@code k} should use element
+     * {@code k % length} of this array
+     * @throws IllegalArgumentException if parties is less than one,
+     * or fanIn is less than two or greater than the maximum number
+     * of parties supported
+     * @throws IllegalStateException if the root cannot register the
+     * additional children or parties
+     */
+    public static Phaser[] newTree(Phaser root, int parties, int fanIn) {
+        if (parties < 1 || fanIn < 2 || fanIn > MAX_PARTIES)
+            throw new IllegalArgumentException();
+        if (root == null)
+            root = new Phaser();
+        int n = (parties - 1) / fanIn + 1;   // number of leaves
+        Phaser[] leaves = new Phaser[n];
+        if (n == 1) {
+            root.bulkRegister(parties);
+            leaves[0] = root;
+        }
+        else
+            buildTree(root, leaves, 0, n, parties, fanIn);
+        return leaves;
+    }
+
+    /**
+     * Creates leaves[lo, hi) below parent, adding interior phasers
+     * so that no phaser has more than fanIn children. Leaf i holds
+     * those of the given parties congruent to i modulo leaves.length.
+     */
+    private static void buildTree(Phaser parent, Phaser[] leaves,
+                                  int lo, int hi, int parties, int fanIn) {
+        int n = hi - lo;
+        if (n == 1) {
+            int len = leaves.length, q = parties / len, r = parties % len;
+            leaves[lo] = new Phaser(parent, (lo < r) ? q + 1 : q);
+        }
+        else {
+            int span = (n - 1) / fanIn + 1; // leaves per subtree
+            for (int i = lo; i < hi; i += span) {
+                int j = Math.min(i + span, hi);
+                buildTree((j - i == 1) ? parent : new Phaser(parent),
+                          leaves, i, j, parties, fanIn);
+            }
+        }
+    }
+
     /**
      * Adds a new unarrived party to this phaser.  If an ongoing
      * invocation of {@link #onAdvance} is in progress, this method
@@ -1024,6 +1114,13 @@ public class Phaser {
      */
     static final int SPINS_PER_ARRIVAL = (NCPU < 2) ? 1 : 1 << 8;
 
+    /**
+     * The fan-in used by {@link #newTree(Phaser, int)}. Small values
+     * keep per-phaser contention low at the price of deeper trees;
+     * four is a good choice for extremely small per-phase bodies.
+     */
+    private static final int DEFAULT_FAN_IN = 4;
+
     /**
      * Possibly blocks and waits for phase to advance unless aborted.
      * Call only on root phaser.
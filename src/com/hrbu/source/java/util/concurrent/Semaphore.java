@@ -174,6 +174,19 @@ public class Semaphore implements java.io.Serializable {
             return getState();
         }
 
+        // contention statistics, which are protected in AQS
+        long queuedAcquireCount() {
+            return getQueuedAcquireCount();
+        }
+
+        long parkCount() {
+            return getParkCount();
+        }
+
+        double averageQueueLength() {
+            return getAverageQueueLength();
+        }
+
         final int nonfairTryAcquireShared(int acquires) {
             for (;;) {
                 int available = getState();
@@ -680,6 +693,46 @@ public class Semaphore implements java.io.Serializable {
         return sync.getQueueLength();
     }
 
+    /**
+     * Returns the number of acquires that could not proceed at once
+     * and had to wait. This method is designed for use in monitoring
+     * of the system state, not for synchronization control. Like the
+     * other contention statistics of this class, it is zero unless the
+     * system property {@code
+     * java.util.concurrent.locks.contentionStatistics} is {@code true}.
+     *
+     * @return the number of acquires that waited
+     */
+    public final long getQueuedAcquireCount() {
+        return sync.queuedAcquireCount();
+    }
+
+    /**
+     * Returns the number of times threads waiting to acquire have
+     * blocked. Waiting threads that are next in line spin briefly
+     * before blocking, so this may be less than {@link
+     * #getQueuedAcquireCount}. This method is designed for use in
+     * monitoring of the system state, not for synchronization
+     * control.
+     *
+     * @return the number of times waiting threads have blocked
+     */
+    public final long getParkCount() {
+        return sync.parkCount();
+    }
+
+    /**
+     * Returns the average number of threads found waiting, including
+     * itself, by each acquire that had to wait. This method is
+     * designed for use in monitoring of the system state, not for
+     * synchronization control.
+     *
+     * @return the average queue length, or zero if no thread has waited
+     */
+    public final double getAverageQueueLength() {
+        return sync.averageQueueLength();
+    }
+
     /**
      * Returns a collection containing threads that may be waiting to acquire.
      * Because the actual set of threads may change dynamically while
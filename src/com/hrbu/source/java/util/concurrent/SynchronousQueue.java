@@ -166,6 +166,13 @@ public class SynchronousQueue<E> extends AbstractQueue<E>
      * Shared internal API for dual stacks and queues.
      */
     abstract static class Transferer<E> {
+        /** The wait strategy, or null for the built-in spin policy */
+        final WaitStrategy waitStrategy;
+
+        Transferer(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+        }
+
         /**
          * Performs a put or take.
          *
@@ -225,6 +232,10 @@ public class SynchronousQueue<E> extends AbstractQueue<E>
         /** Node is fulfilling another unfulfilled DATA or REQUEST */
         static final int FULFILLING = 2;
 
+        TransferStack(WaitStrategy waitStrategy) {
+            super(waitStrategy);
+        }
+
         /** Returns true if m has fulfilling bit set. */
         static boolean isFulfilling(int m) { return (m & FULFILLING) != 0; }
 
@@ -434,15 +445,21 @@ public class SynchronousQueue<E> extends AbstractQueue<E>
              * method rather than calling awaitFulfill.
              */
             final long deadline = timed ? System.nanoTime() + nanos : 0L;
+            final WaitStrategy ws = waitStrategy;
             Thread w = Thread.currentThread();
-            int spins = (shouldSpin(s) ?
-                         (timed ? maxTimedSpins : maxUntimedSpins) : 0);
+            int spins = (!shouldSpin(s) || NCPUS < 2 ? 0 :
+                         (ws != null) ? ws.spins(timed) :
+                         (timed ? maxTimedSpins : maxUntimedSpins));
+            boolean blocked = false;
             for (;;) {
                 if (w.isInterrupted())
                     s.tryCancel();
                 SNode m = s.match;
-                if (m != null)
+                if (m != null) {
+                    if (ws != null && m != s)
+                        ws.handedOff(blocked);
                     return m;
+                }
                 if (timed) {
                     nanos = deadline - System.nanoTime();
                     if (nanos <= 0L) {
@@ -451,13 +468,18 @@ public class SynchronousQueue<E> extends AbstractQueue<E>
                     }
                 }
                 if (spins > 0)
-                    spins = shouldSpin(s) ? (spins-1) : 0;
+                    spins = !shouldSpin(s) ? 0 :
+                        (ws != null) ? ws.spin(spins) : (spins-1);
                 else if (s.waiter == null)
                     s.waiter = w; // establish waiter so can park next iter
-                else if (!timed)
+                else if (!timed) {
+                    blocked = true;
                     LockSupport.park(this);
-                else if (nanos > spinForTimeoutThreshold)
+                }
+                else if (nanos > spinForTimeoutThreshold) {
+                    blocked = true;
                     LockSupport.parkNanos(this, nanos);
+                }
             }
         }
 
@@ -605,7 +627,8 @@ public class SynchronousQueue<E> extends AbstractQueue<E>
          */
         transient volatile QNode cleanMe;
 
-        TransferQueue() {
+        TransferQueue(WaitStrategy waitStrategy) {
+            super(waitStrategy);
             QNode h = new QNode(null, false); // initialize to dummy node.
             head = h;
             tail = h;
@@ -738,15 +761,21 @@ public class SynchronousQueue<E> extends AbstractQueue<E>
         Object awaitFulfill(QNode s, E e, boolean timed, long nanos) {
             /* Same idea as TransferStack.awaitFulfill */
             final long deadline = timed ? System.nanoTime() + nanos : 0L;
+            final WaitStrategy ws = waitStrategy;
             Thread w = Thread.currentThread();
-            int spins = ((head.next == s) ?
-                         (timed ? maxTimedSpins : maxUntimedSpins) : 0);
+            int spins = ((head.next != s || NCPUS < 2) ? 0 :
+                         (ws != null) ? ws.spins(timed) :
+                         (timed ? maxTimedSpins : maxUntimedSpins));
+            boolean blocked = false;
             for (;;) {
                 if (w.isInterrupted())
                     s.tryCancel(e);
                 Object x = s.item;
-                if (x != e)
+                if (x != e) {
+                    if (ws != null && x != s)
+                        ws.handedOff(blocked);
                     return x;
+                }
                 if (timed) {
                     nanos = deadline - System.nanoTime();
                     if (nanos <= 0L) {
@@ -755,13 +784,17 @@ public class SynchronousQueue<E> extends AbstractQueue<E>
                     }
                 }
                 if (spins > 0)
-                    --spins;
+                    spins = (ws != null) ? ws.spin(spins) : (spins-1);
                 else if (s.waiter == null)
                     s.waiter = w;
-                else if (!timed)
+                else if (!timed) {
+                    blocked = true;
                     LockSupport.park(this);
-                else if (nanos > spinForTimeoutThreshold)
+                }
+                else if (nanos > spinForTimeoutThreshold) {
+                    blocked = true;
                     LockSupport.parkNanos(this, nanos);
+                }
             }
         }
 
@@ -862,7 +895,23 @@ public class SynchronousQueue<E> extends AbstractQueue<E>
      *        access; otherwise the order is unspecified.
      */
     public SynchronousQueue(boolean fair) {
-        transferer = fair ? new TransferQueue<E>() : new TransferStack<E>();
+        this(fair, null);
+    }
+
+    /**
+     * Creates a {@code SynchronousQueue} with the specified fairness
+     * policy and wait strategy. The strategy controls how threads
+     * waiting for a partner spin before blocking; if {@code null},
+     * the built-in spin policy is used. Wait strategies are not
+     * serialized, so a deserialized queue uses the built-in policy.
+     *
+     * @param fair if true, waiting threads contend in FIFO order for
+     *        access; otherwise the order is unspecified.
+     * @param waitStrategy the wait strategy, or {@code null}
+     */
+    public SynchronousQueue(boolean fair, WaitStrategy waitStrategy) {
+        transferer = fair ? new TransferQueue<E>(waitStrategy) :
+            new TransferStack<E>(waitStrategy);
     }
 
     /**
@@ -1191,9 +1240,9 @@ public class SynchronousQueue<E> extends AbstractQueue<E>
         throws java.io.IOException, ClassNotFoundException {
         s.defaultReadObject();
         if (waitingProducers instanceof FifoWaitQueue)
-            transferer = new TransferQueue<E>();
+            transferer = new TransferQueue<E>(null);
         else
-            transferer = new TransferStack<E>();
+            transferer = new TransferStack<E>(null);
     }
 
     // Unsafe mechanics
@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A scope that runs a group of subtasks in a supplied {@link
+ * Executor} and treats them as a unit: the scope is joined as a
+ * whole, possibly with a deadline, and it can {@linkplain #shutdown
+ * shut down}, cancelling (with interruption) every subtask that has
+ * not yet completed.  Depending on how the scope was created, it
+ * shuts down by itself when the first subtask fails ({@link
+ * #shutdownOnFailure}) or when the first one succeeds ({@link
+ * #shutdownOnSuccess}), so that siblings whose results can no longer
+ * matter stop consuming threads and CPU as soon as possible.  Tasks
+ * cancelled before they start are also removed from the work queue
+ * of a {@link ThreadPoolExecutor}.
+ *
+ * <p>Unlike {@link ExecutorCompletionService} or {@link
+ * ExecutorService#invokeAny}, a scope ties the lifetime of its
+ * subtasks to a block of code: {@link #close} shuts the scope down
+ * and waits until every subtask has stopped running, so no subtask
+ * outlives the scope.  The intended usage is a try-with-resources
+ * block:
+ *
+ * <pre> {@code
+ * Response hedged(Executor e, List<Replica> replicas)
+ *     throws InterruptedException, ExecutionException, TimeoutException {
+ *   try (TaskScope<Response> scope = TaskScope.shutdownOnSuccess(e)) {
+ *     for (Replica r : replicas)
+ *       scope.fork(() -> r.call());
+ *     scope.joinUntil(50, TimeUnit.MILLISECONDS);
+ *     return scope.result();   // first response; the others are cancelled
+ *   }
+ * }}</pre>
+ *
+ * and, to gather results that are all needed:
+ *
+ * <pre> {@code
+ * try (TaskScope<Object> scope = TaskScope.shutdownOnFailure(e)) {
+ *   Future<Object> user  = scope.fork(() -> findUser(id));
+ *   Future<Object> order = scope.fork(() -> fetchOrder(id));
+ *   scope.join().throwIfFailed();  // a failure cancels the other task
+ *   return new Page(user.get(), order.get());
+ * }}</pre>
+ *
+ * <p>This class is thread-safe: subtasks may fork further subtasks
+ * into the same scope.  Subtasks forked after the scope has shut
+ * down are not run, and their futures are returned cancelled.
+ *
+ * @param <T> the result type of subtasks
+ */
+public class TaskScope<T> implements AutoCloseable {
+    /*
+     * Subtasks are FutureTasks whose done() method reports back to
+     * the scope, in the same way as the QueueingFutures of
+     * ExecutorCompletionService.  All bookkeeping is guarded by a
+     * single lock: the set of unfinished subtasks (for cancellation),
+     * the number of subtasks currently running (for close), and the
+     * first success and first failure.  Cancellation is performed
+     * outside the lock, since cancelling runs done() of the cancelled
+     * task, which re-enters it.
+     */
+
+    /** Modes */
+    private static final int JOIN_ALL   = 0;
+    private static final int ON_FAILURE = 1;
+    private static final int ON_SUCCESS = 2;
+
+    private final Executor executor;
+    private final int mode;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    /** Forked subtasks that have not completed; guarded by lock */
+    private final LinkedHashSet<Subtask> unfinished = new LinkedHashSet<>();
+    /** Number of subtasks currently executing; guarded by lock */
+    private int running;
+    /** True after shutdown; guarded by lock */
+    private boolean shutdown;
+    /** The exception of the first failed subtask; guarded by lock */
+    private Throwable firstException;
+    /** True if some subtask succeeded; guarded by lock */
+    private boolean hasResult;
+    /** The result of the first successful subtask; guarded by lock */
+    private T firstResult;
+
+    private TaskScope(Executor executor, int mode) {
+        if (executor == null)
+            throw new NullPointerException();
+        this.executor = executor;
+        this.mode = mode;
+    }
+
+    /**
+     * Returns a new scope that runs subtasks in the given executor
+     * and shuts down only when asked to.
+     *
+     * @param executor the executor to run subtasks
+     * @param <T> the result type of subtasks
+     * @return a new scope
+     * @throws NullPointerException if executor is null
+     */
+    public static <T> TaskScope<T> open(Executor executor) {
+        return new TaskScope<T>(executor, JOIN_ALL);
+    }
+
+    /**
+     * Returns a new scope that runs subtasks in the given executor
+     * and shuts down when any subtask completes abnormally, recording
+     * the first exception for {@link #throwIfFailed}.
+     *
+     * @param executor the executor to run subtasks
+     * @param <T> the result type of subtasks
+     * @return a new scope
+     * @throws NullPointerException if executor is null
+     */
+    public static <T> TaskScope<T> shutdownOnFailure(Executor executor) {
+        return new TaskScope<T>(executor, ON_FAILURE);
+    }
+
+    /**
+     * Returns a new scope that runs subtasks in the given executor
+     * and shuts down when any subtask completes normally, recording
+     * its value for {@link #result}.
+     *
+     * @param executor the executor to run subtasks
+     * @param <T> the result type of subtasks
+     * @return a new scope
+     * @throws NullPointerException if executor is null
+     */
+    public static <T> TaskScope<T> shutdownOnSuccess(Executor executor) {
+        return new TaskScope<T>(executor, ON_SUCCESS);
+    }
+
+    /**
+     * A subtask, reporting its start, end and outcome to the scope.
+     */
+    private final class Subtask extends FutureTask<T> {
+        Subtask(Callable<? extends T> task) {
+            super(task::call);
+        }
+
+        public void run() {
+            if (isDone())               // cancelled before start
+                return;
+            final ReentrantLock lock = TaskScope.this.lock;
+            lock.lock();
+            try {
+                ++running;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                super.run();
+            } finally {
+                lock.lock();
+                try {
+                    if (--running == 0)
+                        changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        protected void done() {
+            subtaskDone(this);
+        }
+    }
+
+    /**
+     * Starts a subtask in this scope's executor.  If the scope has
+     * already shut down, the subtask is not run and the returned
+     * future is cancelled.
+     *
+     * @param task the subtask
+     * @return a future representing the pending completion of the subtask
+     * @throws NullPointerException if task is null
+     * @throws RejectedExecutionException if the executor rejects the task
+     */
+    public Future<T> fork(Callable<? extends T> task) {
+        if (task == null)
+            throw new NullPointerException();
+        Subtask f = new Subtask(task);
+        boolean run;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (run = !shutdown)
+                unfinished.add(f);
+        } finally {
+            lock.unlock();
+        }
+        if (!run)
+            f.cancel(false);
+        else {
+            try {
+                executor.execute(f);
+            } catch (RuntimeException | Error ex) {
+                lock.lock();
+                try {
+                    if (unfinished.remove(f) && unfinished.isEmpty())
+                        changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                throw ex;
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Records the outcome of a completed (or cancelled) subtask.
+     */
+    private void subtaskDone(Subtask f) {
+        boolean stop = false;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (!unfinished.remove(f))
+                return;                 // not forked, or rejected
+            if (!f.isCancelled()) {
+                try {
+                    T v = f.get();      // does not block: f is done
+                    if (!hasResult) {
+                        hasResult = true;
+                        firstResult = v;
+                    }
+                    stop = (mode == ON_SUCCESS);
+                } catch (ExecutionException ex) {
+                    if (firstException == null)
+                        firstException = ex.getCause();
+                    stop = (mode == ON_FAILURE);
+                } catch (InterruptedException | CancellationException ex) {
+                    // cannot happen for a done, uncancelled task
+                }
+            }
+            if (unfinished.isEmpty())
+                changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (stop)
+            shutdown();
+    }
+
+    /**
+     * Waits until all subtasks have completed or the scope has shut
+     * down, in which case every subtask has completed or been
+     * cancelled.
+     *
+     * @return this scope
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public TaskScope<T> join() throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (!unfinished.isEmpty())
+                changed.await();
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Waits as for {@link #join}, but for at most the given time.  If
+     * the time elapses first, the scope is shut down, cancelling all
+     * unfinished subtasks, and {@code TimeoutException} is thrown.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     * @return this scope
+     * @throws InterruptedException if interrupted while waiting
+     * @throws TimeoutException if the wait timed out
+     */
+    public TaskScope<T> joinUntil(long timeout, TimeUnit unit)
+        throws InterruptedException, TimeoutException {
+        long nanos = unit.toNanos(timeout);
+        boolean timedOut = false;
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (!unfinished.isEmpty()) {
+                if (nanos <= 0L) {
+                    timedOut = true;
+                    break;
+                }
+                nanos = changed.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (timedOut) {
+            shutdown();
+            throw new TimeoutException();
+        }
+        return this;
+    }
+
+    /**
+     * Shuts down this scope: subtasks forked afterwards are not run,
+     * and every unfinished subtask is cancelled, interrupting those
+     * that are running.  Invocation has no additional effect if
+     * already shut down.
+     */
+    public void shutdown() {
+        ArrayList<Subtask> pending;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (shutdown)
+                return;
+            shutdown = true;
+            pending = new ArrayList<>(unfinished);
+        } finally {
+            lock.unlock();
+        }
+        ThreadPoolExecutor tpe = (executor instanceof ThreadPoolExecutor) ?
+            (ThreadPoolExecutor)executor : null;
+        for (Subtask f : pending) {
+            f.cancel(true);
+            if (tpe != null)
+                tpe.remove(f);          // release queue slot
+        }
+    }
+
+    /**
+     * Returns {@code true} if this scope has shut down.
+     *
+     * @return {@code true} if this scope has shut down
+     */
+    public boolean isShutdown() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Throws if any subtask has completed abnormally, typically after
+     * {@link #join} of a {@link #shutdownOnFailure} scope.
+     *
+     * @throws ExecutionException wrapping the exception of the first
+     * subtask that failed
+     */
+    public void throwIfFailed() throws ExecutionException {
+        Throwable ex;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            ex = firstException;
+        } finally {
+            lock.unlock();
+        }
+        if (ex != null)
+            throw new ExecutionException(ex);
+    }
+
+    /**
+     * Returns the result of the first subtask to complete normally,
+     * typically after {@link #join} of a {@link #shutdownOnSuccess}
+     * scope.
+     *
+     * @return the result of the first successful subtask
+     * @throws ExecutionException if no subtask succeeded but some
+     * failed, wrapping the exception of the first that failed
+     * @throws IllegalStateException if no subtask has completed
+     */
+    public T result() throws ExecutionException {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (hasResult)
+                return firstResult;
+            if (firstException != null)
+                throw new ExecutionException(firstException);
+            throw new IllegalStateException("No subtask completed");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Shuts down this scope and waits until no subtask is still
+     * running.  Because running subtasks are interrupted by the
+     * shutdown, this normally returns promptly, but it waits for as
+     * long as a subtask ignores interruption.  If the current thread
+     * is interrupted while waiting, waiting continues and the
+     * interrupt status is restored on return.
+     */
+    public void close() {
+        shutdown();
+        boolean interrupted = false;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            while (running > 0) {
+                try {
+                    changed.await();
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Returns a string identifying this scope, as well as its state.
+     *
+     * @return a string identifying this scope, as well as its state
+     */
+    public String toString() {
+        int n, r; boolean s;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            n = unfinished.size();
+            r = running;
+            s = shutdown;
+        } finally {
+            lock.unlock();
+        }
+        return super.toString() +
+            "[" + (s ? "Shutdown" : "Open") +
+            ", unfinished = " + n +
+            ", running = " + r + "]";
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.concurrent;
+
+/**
+ * A policy for how a thread waiting for a partner in a direct
+ * handoff spins before it blocks. A wait strategy may be supplied
+ * when constructing a {@link SynchronousQueue}, {@link
+ * LinkedTransferQueue} or {@link Exchanger}; otherwise these classes
+ * use their own built-in spin policies, which are tuned for general
+ * use and avoid spinning on uniprocessors.
+ *
+ * <p>When a thread is about to wait for a partner, and the handoff
+ * structure indicates that a partner may arrive soon (for example
+ * because the waiter is at the front of a queue), it obtains a spin
+ * count from {@link #spins}. While the count is positive and no
+ * partner has arrived, each iteration of the wait loop invokes
+ * {@link #spin}, which may pause or yield and returns the updated
+ * count. Once the count reaches zero, the thread blocks. Waiters
+ * that are not next in line to be matched may block without
+ * spinning, whatever the strategy. Interrupts and timeouts are
+ * checked while spinning just as while blocked. When a waiting
+ * thread has been matched, {@link #handedOff} reports whether it
+ * had to block, which adaptive strategies may use to adjust later
+ * spin counts.
+ *
+ * <p>Strategies are shared by all threads using a queue or exchanger,
+ * so implementations must be thread-safe. Their methods are invoked
+ * in the innermost loops of handoffs, so they should be cheap and
+ * must not block.
+ *
+ * <p>The strategies provided by the static factory methods cover
+ * the usual trade-offs: {@link #busySpin} gives the lowest handoff
+ * latency while dedicating a processor to each waiter, {@link
+ * #spinYield} and {@link #spinPark} bound the processor time spent
+ * before blocking, and {@link #adaptive} adjusts the spin count
+ * according to whether recent waiters were matched while still
+ * spinning. Strategies that spin are rarely useful unless waiting
+ * threads and their partners run on different processors, so on
+ * uniprocessors waiting threads never spin, whatever the strategy.
+ */
+public abstract class WaitStrategy {
+
+    /**
+     * Constructor for use by subclasses.
+     */
+    protected WaitStrategy() {}
+
+    /**
+     * Returns the number of times a thread that is about to wait
+     * should spin before blocking.
+     *
+     * @param timed true if the wait is timed
+     * @return the number of spins, or zero (or a negative value) to
+     * block without spinning
+     */
+    public abstract int spins(boolean timed);
+
+    /**
+     * Performs one spin of a waiting thread. This implementation
+     * just counts down.
+     *
+     * @param spins the number of spins remaining, always positive
+     * @return the number of spins remaining after this one; the thread
+     * blocks once this value is zero or negative
+     */
+    public int spin(int spins) {
+        return spins - 1;
+    }
+
+    /**
+     * Invoked when a waiting thread has been matched by a partner.
+     * This implementation does nothing.
+     *
+     * @param blocked true if the thread blocked before being matched,
+     * false if it was matched while spinning
+     */
+    public void handedOff(boolean blocked) {
+    }
+
+    /**
+     * Returns a strategy that spins without ever blocking, until
+     * matched, interrupted, or timed out. A waiter also stops
+     * spinning when the handoff structure no longer lets partners
+     * find it, as when an {@link Exchanger} moves its waiters into
+     * its arena.
+     *
+     * @return the strategy
+     */
+    public static WaitStrategy busySpin() {
+        return new BusySpin();
+    }
+
+    /**
+     * Returns a strategy that spins the given number of times,
+     * yielding on each spin, before blocking.
+     *
+     * @param spins the number of spins before blocking
+     * @return the strategy
+     * @throws IllegalArgumentException if spins is negative
+     */
+    public static WaitStrategy spinYield(int spins) {
+        if (spins < 0)
+            throw new IllegalArgumentException();
+        return new SpinYield(spins);
+    }
+
+    /**
+     * Returns a strategy that spins the given numbers of times before
+     * blocking.
+     *
+     * @param timedSpins the number of spins before blocking in
+     * timed waits
+     * @param untimedSpins the number of spins before blocking in
+     * untimed waits, which spin faster since they need not check
+     * the time on each spin
+     * @return the strategy
+     * @throws IllegalArgumentException if either argument is negative
+     */
+    public static WaitStrategy spinPark(int timedSpins, int untimedSpins) {
+        if (timedSpins < 0 || untimedSpins < 0)
+            throw new IllegalArgumentException();
+        return new SpinPark(timedSpins, untimedSpins);
+    }
+
+    /**
+     * Returns a strategy that spins before blocking for a number of
+     * times between the given bounds, starting at {@code minSpins}.
+     * The number roughly doubles (up to {@code maxSpins}) whenever a
+     * waiter is matched while still spinning, and halves (down to
+     * {@code minSpins}) whenever a waiter blocks before being matched.
+     * So waiters spin longer while partners tend to arrive within the
+     * spin window, and stop wasting processor time when they do not.
+     *
+     * @param minSpins the least number of spins before blocking
+     * @param maxSpins the greatest number of spins before blocking
+     * @return the strategy
+     * @throws IllegalArgumentException if minSpins is negative or
+     * greater than maxSpins
+     */
+    public static WaitStrategy adaptive(int minSpins, int maxSpins) {
+        if (minSpins < 0 || maxSpins < minSpins)
+            throw new IllegalArgumentException();
+        return new Adaptive(minSpins, maxSpins);
+    }
+
+    static final class BusySpin extends WaitStrategy {
+        public int spins(boolean timed) { return Integer.MAX_VALUE; }
+        public int spin(int spins)      { return spins; }
+        public String toString()        { return "WaitStrategy[busySpin]"; }
+    }
+
+    static final class SpinYield extends WaitStrategy {
+        final int spins;
+        SpinYield(int spins) { this.spins = spins; }
+        public int spins(boolean timed) { return spins; }
+        public int spin(int spins) {
+            Thread.yield();
+            return spins - 1;
+        }
+        public String toString() {
+            return "WaitStrategy[spinYield " + spins + "]";
+        }
+    }
+
+    static final class SpinPark extends WaitStrategy {
+        final int timedSpins, untimedSpins;
+        SpinPark(int timedSpins, int untimedSpins) {
+            this.timedSpins = timedSpins;
+            this.untimedSpins = untimedSpins;
+        }
+        public int spins(boolean timed) {
+            return timed ? timedSpins : untimedSpins;
+        }
+        public String toString() {
+            return "WaitStrategy[spinPark " + timedSpins + "/" +
+                untimedSpins + "]";
+        }
+    }
+
+    /**
+     * Adaptive spinning. As with adaptive spinning of monitors in
+     * virtual machines, a match while spinning suggests that partners
+     * usually arrive within the spin window, so the window grows, and
+     * blocking suggests that spinning is wasted, so it shrinks. Races
+     * among waiters updating the count only blur the estimate, which
+     * is a heuristic anyway, so plain writes of the volatile count
+     * suffice.
+     */
+    static final class Adaptive extends WaitStrategy {
+        final int minSpins, maxSpins;
+        volatile int current;           // spins handed to next waiter
+        Adaptive(int minSpins, int maxSpins) {
+            this.minSpins = minSpins;
+            this.maxSpins = maxSpins;
+            this.current = minSpins;
+        }
+        public int spins(boolean timed) {
+            return current;
+        }
+        public void handedOff(boolean blocked) {
+            int n = current;
+            if (blocked)
+                current = Math.max(minSpins, n >>> 1);
+            else if (n < maxSpins)
+                current = (int)Math.min((long)maxSpins, ((long)n << 1) + 1L);
+        }
+        public String toString() {
+            return "WaitStrategy[adaptive " + minSpins + ".." + maxSpins +
+                ", spins = " + current + "]";
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.concurrent.atomic;
+
+/**
+ * A histogram of non-negative {@code double} values that may be
+ * recorded concurrently by many threads.  Values are counted in
+ * log-linear buckets between a lowest discernible and a highest
+ * trackable value: each binary order of magnitude in that range is
+ * divided into {@code 2^precision} equal sub-buckets, so the relative
+ * error of reported values is at most {@code 2^-precision}.  Values
+ * below the lowest discernible value (including zero) are counted in
+ * the first bucket, and values above the highest trackable value in
+ * the last one.
+ *
+ * <p>Bucket indices are taken directly from the exponent and leading
+ * fraction bits of a value's IEEE 754 representation, so recording
+ * needs no logarithms.  Otherwise this class behaves like {@link
+ * LongHistogram}: recording is lock-free, contended recording spreads
+ * over dynamically added sets of counts, and {@link #snapshot}
+ * merges them into an immutable {@link Snapshot}.
+ *
+ * @see LongHistogram
+ */
+public class DoubleHistogram extends StripedHistogram {
+
+    /** Number of fraction bits in a double. */
+    private static final int FRACTION_BITS = 52;
+
+    /** Number of sub-bucket bits per binary order of magnitude. */
+    private final int precision;
+
+    /** The bucket key of the lowest discernible value. */
+    private final long lowestKey;
+
+    private final double lowestDiscernibleValue;
+    private final double highestTrackableValue;
+
+    /**
+     * Creates a new histogram of values in the given range, with the
+     * given precision.
+     *
+     * @param lowestDiscernibleValue the smallest value distinguished
+     * from zero
+     * @param highestTrackableValue the largest value distinguished
+     * from larger ones
+     * @param precision the number of bits of each value resolved,
+     * between 1 and 12; the relative error of reported values is at
+     * most {@code 2^-precision}
+     * @throws IllegalArgumentException if lowestDiscernibleValue is
+     * not positive, highestTrackableValue is not finite or not greater
+     * than lowestDiscernibleValue, or precision is out of range
+     */
+    public DoubleHistogram(double lowestDiscernibleValue,
+                           double highestTrackableValue,
+                           int precision) {
+        super(checkedBucketCount(lowestDiscernibleValue,
+                                 highestTrackableValue, precision));
+        this.precision = precision;
+        this.lowestKey = key(lowestDiscernibleValue, precision);
+        this.lowestDiscernibleValue = lowestDiscernibleValue;
+        this.highestTrackableValue = highestTrackableValue;
+    }
+
+    private static int checkedBucketCount(double lowest, double highest,
+                                          int precision) {
+        if (!(lowest > 0.0) || !(highest > lowest) ||
+            highest == Double.POSITIVE_INFINITY ||
+            precision < 1 || precision > LongHistogram.MAX_PRECISION)
+            throw new IllegalArgumentException();
+        long n = key(highest, precision) - key(lowest, precision) + 1L;
+        if (n > Integer.MAX_VALUE - (PAD << 1))
+            throw new IllegalArgumentException();
+        return (int)n;
+    }
+
+    /**
+     * Returns the exponent and leading fraction bits of positive
+     * value v, which increase monotonically with v.
+     */
+    private static long key(double v, int precision) {
+        return Double.doubleToRawLongBits(v) >>> (FRACTION_BITS - precision);
+    }
+
+    private double keyValue(long key) {
+        return Double.longBitsToDouble(key << (FRACTION_BITS - precision));
+    }
+
+    /**
+     * Records the given value.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if value is negative or NaN
+     */
+    public void record(double value) {
+        if (!(value >= 0.0))
+            throw new IllegalArgumentException();
+        int bucket;
+        if (value < lowestDiscernibleValue)
+            bucket = 0;
+        else if (value >= highestTrackableValue)
+            bucket = buckets - 1;
+        else
+            bucket = (int)(key(value, precision) - lowestKey);
+        increment(bucket);
+    }
+
+    /**
+     * Returns the number of buckets of this histogram.
+     *
+     * @return the number of buckets
+     */
+    public int bucketCount() {
+        return buckets;
+    }
+
+    /**
+     * Returns the precision of this histogram.
+     *
+     * @return the number of bits of each value resolved
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the smallest value this histogram distinguishes from
+     * zero.
+     *
+     * @return the lowest discernible value
+     */
+    public double getLowestDiscernibleValue() {
+        return lowestDiscernibleValue;
+    }
+
+    /**
+     * Returns the largest value this histogram distinguishes.
+     *
+     * @return the highest trackable value
+     */
+    public double getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    /**
+     * Returns the current counts of this histogram.  The returned
+     * snapshot is <em>NOT</em> atomic; invocation in the absence of
+     * concurrent updates returns accurate counts, but concurrent
+     * recordings that occur while it is being taken might not be
+     * incorporated.
+     *
+     * @return a snapshot of the counts
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this, counts(false));
+    }
+
+    /**
+     * Equivalent in effect to {@link #snapshot} followed by {@link
+     * #reset}, except that every recording is included either in the
+     * returned snapshot or in the histogram afterwards, never lost.
+     *
+     * @return a snapshot of the counts before the reset
+     */
+    public Snapshot snapshotThenReset() {
+        return new Snapshot(this, counts(true));
+    }
+
+    /**
+     * Resets all counts to zero.  This method is only effective if
+     * there are no concurrent recordings; otherwise some of them may
+     * survive the reset.
+     */
+    public void reset() {
+        counts(true);
+    }
+
+    /**
+     * Returns the String representation of the current {@link
+     * #snapshot}.
+     *
+     * @return the String representation of the current snapshot
+     */
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * An immutable set of counts of a {@link DoubleHistogram}.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final double[] bounds;   // bounds[i] is lower bound of i
+        private final long totalCount;
+
+        Snapshot(DoubleHistogram h, long[] counts) {
+            int n = counts.length;
+            double[] bounds = new double[n + 1];
+            for (int i = 1; i < n; ++i)
+                bounds[i] = h.keyValue(h.lowestKey + i);
+            bounds[n] = Math.max(h.highestTrackableValue,
+                                 h.keyValue(h.lowestKey + n));
+            long total = 0L;
+            for (long c : counts)
+                total += c;
+            this.counts = counts;
+            this.bounds = bounds;
+            this.totalCount = total;
+        }
+
+        /**
+         * Returns the number of recorded values.
+         *
+         * @return the number of recorded values
+         */
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns the number of buckets.
+         *
+         * @return the number of buckets
+         */
+        public int getBucketCount() {
+            return counts.length;
+        }
+
+        /**
+         * Returns the number of values recorded in the given bucket.
+         *
+         * @param bucket the bucket index
+         * @return the count
+         * @throws IndexOutOfBoundsException if bucket is out of range
+         */
+        public long getCount(int bucket) {
+            return counts[bucket];
+        }
+
+        /**
+         * Returns the smallest value counted in the given bucket,
+         * which is zero for the first bucket.
+         *
+         * @param bucket the bucket index
+         * @return the lower bound, inclusive
+         * @throws IndexOutOfBoundsException if bucket is out of range
+         */
+        public double getLowerBound(int bucket) {
+            if (bucket < 0 || bucket >= counts.length)
+                throw new IndexOutOfBoundsException();
+            return bounds[bucket];
+        }
+
+        /**
+         * Returns the upper bound of values counted in the given
+         * bucket. Values above the histogram's highest trackable
+         * value, all counted in the last bucket, may exceed it.
+         *
+         * @param bucket the bucket index
+         * @return the upper bound, exclusive
+         * @throws IndexOutOfBoundsException if bucket is out of range
+         */
+        public double getUpperBound(int bucket) {
+            if (bucket < 0 || bucket >= counts.length)
+                throw new IndexOutOfBoundsException();
+            return bounds[bucket + 1];
+        }
+
+        /**
+         * Returns a value such that the given percentage of recorded
+         * values are below it: the upper bound of the bucket in which
+         * that percentile falls.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the value at the percentile, or 0 if there are no
+         * recorded values
+         * @throws IllegalArgumentException if percentile is out of range
+         */
+        public double getValueAtPercentile(double percentile) {
+            if (!(percentile >= 0.0 && percentile <= 100.0))
+                throw new IllegalArgumentException();
+            long target = Math.max(1L, (long)Math.ceil(
+                                       percentile / 100.0 * totalCount));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; ++i) {
+                if ((seen += counts[i]) >= target)
+                    return bounds[i + 1];
+            }
+            return 0.0;
+        }
+
+        /**
+         * Returns the lower bound of the lowest non-empty bucket.
+         *
+         * @return the approximate minimum, or 0 if there are no
+         * recorded values
+         */
+        public double getMin() {
+            for (int i = 0; i < counts.length; ++i) {
+                if (counts[i] != 0L)
+                    return bounds[i];
+            }
+            return 0.0;
+        }
+
+        /**
+         * Returns the upper bound of the highest non-empty bucket.
+         *
+         * @return the approximate maximum, or 0 if there are no
+         * recorded values
+         */
+        public double getMax() {
+            for (int i = counts.length - 1; i >= 0; --i) {
+                if (counts[i] != 0L)
+                    return bounds[i + 1];
+            }
+            return 0.0;
+        }
+
+        /**
+         * Returns the mean of recorded values, taking each to lie at
+         * the midpoint of its bucket.
+         *
+         * @return the approximate mean, or {@code NaN} if there are no
+         * recorded values
+         */
+        public double getMean() {
+            if (totalCount == 0L)
+                return Double.NaN;
+            double sum = 0.0;
+            for (int i = 0; i < counts.length; ++i) {
+                long c;
+                if ((c = counts[i]) != 0L)
+                    sum += c * ((bounds[i] + bounds[i + 1]) / 2.0);
+            }
+            return sum / totalCount;
+        }
+
+        /**
+         * Returns a string summarizing these counts.
+         *
+         * @return a string summarizing these counts
+         */
+        public String toString() {
+            return "[count = " + totalCount +
+                ", min = " + getMin() +
+                ", p50 = " + getValueAtPercentile(50.0) +
+                ", p99 = " + getValueAtPercentile(99.0) +
+                ", max = " + getMax() +
+                "]";
+        }
+    }
+
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.concurrent.atomic;
+
+/**
+ * A histogram of non-negative {@code long} values, such as latencies
+ * in nanoseconds, that may be recorded concurrently by many threads.
+ * Values are counted in log-linear buckets: each power-of-two range
+ * is divided into {@code 2^precision} equal sub-buckets, so the
+ * bucket holding a value {@code v} spans at most {@code v /
+ * 2^precision}, bounding the relative error of any reported value,
+ * while values below {@code 2^(precision+1)} are counted exactly.
+ *
+ * <p>Like {@link LongAdder}, a histogram keeps its counts in one or
+ * more sets of variables, growing the number of sets dynamically when
+ * {@link #record} is contended.  Recording is lock-free and costs one
+ * uncontended CAS in the common case.  Method {@link #snapshot}
+ * merges all sets into an immutable {@link Snapshot} from which
+ * counts, percentiles and other statistics can be read without
+ * affecting recording threads.  Each set of variables holds one
+ * {@code long} per bucket, so the footprint of a highly contended
+ * histogram is roughly the number of buckets (see {@link
+ * #bucketCount}) times eight bytes times the number of CPUs.
+ *
+ * <p>For example, to track request latency with about 3%
+ * precision:
+ *
+ * <pre> {@code
+ * static final LongHistogram LATENCY =
+ *     new LongHistogram(TimeUnit.MINUTES.toNanos(1), 5);
+ *
+ * long start = System.nanoTime();
+ * handle(request);
+ * LATENCY.record(System.nanoTime() - start);
+ * ...
+ * LongHistogram.Snapshot s = LATENCY.snapshotThenReset();
+ * report(s.getTotalCount(), s.getValueAtPercentile(99.0));}</pre>
+ *
+ * @see DoubleHistogram
+ */
+public class LongHistogram extends StripedHistogram {
+
+    /** The largest supported precision. */
+    static final int MAX_PRECISION = 12;
+
+    /** Number of sub-bucket bits per power of two. */
+    private final int precision;
+
+    /** The largest value distinguished from larger ones. */
+    private final long highestTrackableValue;
+
+    /**
+     * Creates a new histogram able to distinguish all non-negative
+     * {@code long} values with the given precision.
+     *
+     * @param precision the number of bits of each value resolved,
+     * between 1 and 12; the relative error of reported values is at
+     * most {@code 2^-precision}
+     * @throws IllegalArgumentException if precision is out of range
+     */
+    public LongHistogram(int precision) {
+        this(Long.MAX_VALUE, precision);
+    }
+
+    /**
+     * Creates a new histogram of values up to the given value, with
+     * the given precision. Larger values are counted in the bucket of
+     * {@code highestTrackableValue}.
+     *
+     * @param highestTrackableValue the largest value to distinguish
+     * @param precision the number of bits of each value resolved,
+     * between 1 and 12; the relative error of reported values is at
+     * most {@code 2^-precision}
+     * @throws IllegalArgumentException if highestTrackableValue is
+     * less than one or precision is out of range
+     */
+    public LongHistogram(long highestTrackableValue, int precision) {
+        super(checkedBucketCount(highestTrackableValue, precision));
+        this.precision = precision;
+        this.highestTrackableValue = highestTrackableValue;
+    }
+
+    private static int checkedBucketCount(long highest, int precision) {
+        if (highest < 1L || precision < 1 || precision > MAX_PRECISION)
+            throw new IllegalArgumentException();
+        return bucketIndex(highest, precision) + 1;
+    }
+
+    /**
+     * Returns the index of the bucket holding non-negative value v.
+     */
+    static int bucketIndex(long v, int precision) {
+        if (v < (2L << precision))
+            return (int)v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - precision;
+        return (shift << precision) + (int)(v >>> shift);
+    }
+
+    /**
+     * Returns the smallest value held by the given bucket.
+     */
+    static long lowerBound(int bucket, int precision) {
+        if (bucket < (1 << precision))
+            return bucket;
+        int shift = (bucket >>> precision) - 1;
+        long sub = (bucket & ((1 << precision) - 1)) | (1 << precision);
+        return sub << shift;
+    }
+
+    /**
+     * Returns the largest value held by the given bucket.
+     */
+    static long upperBound(int bucket, int precision) {
+        if (bucket < (1 << precision))
+            return bucket;
+        int shift = (bucket >>> precision) - 1;
+        long sub = (bucket & ((1 << precision) - 1)) | (1 << precision);
+        return (sub << shift) + ((1L << shift) - 1L);
+    }
+
+    /**
+     * Records the given value.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if value is negative
+     */
+    public void record(long value) {
+        if (value < 0L)
+            throw new IllegalArgumentException();
+        increment((value >= highestTrackableValue) ? buckets - 1 :
+                  bucketIndex(value, precision));
+    }
+
+    /**
+     * Returns the number of buckets of this histogram.
+     *
+     * @return the number of buckets
+     */
+    public int bucketCount() {
+        return buckets;
+    }
+
+    /**
+     * Returns the precision of this histogram.
+     *
+     * @return the number of bits of each value resolved
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the largest value this histogram distinguishes.
+     *
+     * @return the highest trackable value
+     */
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    /**
+     * Returns the current counts of this histogram.  The returned
+     * snapshot is <em>NOT</em> atomic; invocation in the absence of
+     * concurrent updates returns accurate counts, but concurrent
+     * recordings that occur while it is being taken might not be
+     * incorporated.
+     *
+     * @return a snapshot of the counts
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(counts(false), precision);
+    }
+
+    /**
+     * Equivalent in effect to {@link #snapshot} followed by {@link
+     * #reset}, except that every recording is included either in the
+     * returned snapshot or in the histogram afterwards, never lost.
+     * This method may be used to collect one snapshot per reporting
+     * interval.
+     *
+     * @return a snapshot of the counts before the reset
+     */
+    public Snapshot snapshotThenReset() {
+        return new Snapshot(counts(true), precision);
+    }
+
+    /**
+     * Resets all counts to zero.  This method is only effective if
+     * there are no concurrent recordings; otherwise some of them may
+     * survive the reset.
+     */
+    public void reset() {
+        counts(true);
+    }
+
+    /**
+     * Returns the String representation of the current {@link
+     * #snapshot}.
+     *
+     * @return the String representation of the current snapshot
+     */
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * An immutable set of counts of a {@link LongHistogram}.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final int precision;
+        private final long totalCount;
+
+        Snapshot(long[] counts, int precision) {
+            long total = 0L;
+            for (long c : counts)
+                total += c;
+            this.counts = counts;
+            this.precision = precision;
+            this.totalCount = total;
+        }
+
+        /**
+         * Returns the number of recorded values.
+         *
+         * @return the number of recorded values
+         */
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns the number of buckets.
+         *
+         * @return the number of buckets
+         */
+        public int getBucketCount() {
+            return counts.length;
+        }
+
+        /**
+         * Returns the number of values recorded in the given bucket.
+         *
+         * @param bucket the bucket index
+         * @return the count
+         * @throws IndexOutOfBoundsException if bucket is out of range
+         */
+        public long getCount(int bucket) {
+            return counts[bucket];
+        }
+
+        /**
+         * Returns the smallest value counted in the given bucket.
+         *
+         * @param bucket the bucket index
+         * @return the lower bound, inclusive
+         * @throws IndexOutOfBoundsException if bucket is out of range
+         */
+        public long getLowerBound(int bucket) {
+            if (bucket < 0 || bucket >= counts.length)
+                throw new IndexOutOfBoundsException();
+            return lowerBound(bucket, precision);
+        }
+
+        /**
+         * Returns the largest value counted in the given bucket.
+         * Values above the histogram's highest trackable value, all
+         * counted in the last bucket, may exceed it.
+         *
+         * @param bucket the bucket index
+         * @return the upper bound, inclusive
+         * @throws IndexOutOfBoundsException if bucket is out of range
+         */
+        public long getUpperBound(int bucket) {
+            if (bucket < 0 || bucket >= counts.length)
+                throw new IndexOutOfBoundsException();
+            return upperBound(bucket, precision);
+        }
+
+        /**
+         * Returns a value such that the given percentage of recorded
+         * values are at most equivalent to it: the upper bound of the
+         * bucket in which that percentile falls.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the value at the percentile, or 0 if there are no
+         * recorded values
+         * @throws IllegalArgumentException if percentile is out of range
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (!(percentile >= 0.0 && percentile <= 100.0))
+                throw new IllegalArgumentException();
+            long target = Math.max(1L, (long)Math.ceil(
+                                       percentile / 100.0 * totalCount));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; ++i) {
+                if ((seen += counts[i]) >= target)
+                    return upperBound(i, precision);
+            }
+            return 0L;
+        }
+
+        /**
+         * Returns the lower bound of the lowest non-empty bucket.
+         *
+         * @return the approximate minimum, or 0 if there are no
+         * recorded values
+         */
+        public long getMin() {
+            for (int i = 0; i < counts.length; ++i) {
+                if (counts[i] != 0L)
+                    return lowerBound(i, precision);
+            }
+            return 0L;
+        }
+
+        /**
+         * Returns the upper bound of the highest non-empty bucket.
+         *
+         * @return the approximate maximum, or 0 if there are no
+         * recorded values
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; --i) {
+                if (counts[i] != 0L)
+                    return upperBound(i, precision);
+            }
+            return 0L;
+        }
+
+        /**
+         * Returns the mean of recorded values, taking each to lie at
+         * the midpoint of its bucket.
+         *
+         * @return the approximate mean, or {@code NaN} if there are no
+         * recorded values
+         */
+        public double getMean() {
+            if (totalCount == 0L)
+                return Double.NaN;
+            double sum = 0.0;
+            for (int i = 0; i < counts.length; ++i) {
+                long c;
+                if ((c = counts[i]) != 0L)
+                    sum += c * ((lowerBound(i, precision) / 2.0) +
+                                (upperBound(i, precision) / 2.0));
+            }
+            return sum / totalCount;
+        }
+
+        /**
+         * Returns a string summarizing these counts.
+         *
+         * @return a string summarizing these counts
+         */
+        public String toString() {
+            return "[count = " + totalCount +
+                ", min = " + getMin() +
+                ", p50 = " + getValueAtPercentile(50.0) +
+                ", p99 = " + getValueAtPercentile(99.0) +
+                ", max = " + getMax() +
+                "]";
+        }
+    }
+
+}
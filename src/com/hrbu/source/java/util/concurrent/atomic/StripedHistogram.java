@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.concurrent.atomic;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A package-local class holding the striped bucket counts shared by
+ * {@link LongHistogram} and {@link DoubleHistogram}.  Subclasses map
+ * recorded values to bucket indices; this class only counts.
+ */
+abstract class StripedHistogram {
+    /*
+     * This class applies the Striped64 scheme to arrays of counts
+     * rather than to single values.  Each stripe is a long[] holding
+     * one count per bucket, padded at both ends so that the hot
+     * buckets of different stripes never share a cache line.  When
+     * there is no contention, all increments go to the base stripe.
+     * Contention is detected, as in Striped64, by a failed CAS on a
+     * bucket count (rather than using getAndAdd, which would never
+     * report it), upon which a table of stripes is created and then
+     * doubled on further collisions up to the number of CPUs, indexed
+     * by the same per-thread probe.  Stripes are large, so slots are
+     * filled only when some thread hashes to them.  Readers merge all
+     * stripes into a fresh array, so recording never waits for them.
+     *
+     * The code of increment and incrementSlow deliberately tracks
+     * LongAdder.add and Striped64.longAccumulate, to which see for
+     * explanation.
+     */
+
+    /** Number of padding slots at each end of a stripe. */
+    static final int PAD = 16;
+
+    /** The number of buckets. */
+    final int buckets;
+
+    /** Counts used when there is no contention. */
+    final long[] base;
+
+    /** Table of stripes. When non-null, size is a power of 2. */
+    volatile long[][] stripes;
+
+    /** Spinlock (locked via CAS) used when resizing and/or creating stripes. */
+    volatile int stripesBusy;
+
+    StripedHistogram(int buckets) {
+        this.buckets = buckets;
+        this.base = new long[buckets + (PAD << 1)];
+    }
+
+    private static long offset(int bucket) {
+        return ((long)(bucket + PAD) << ASHIFT) + ABASE;
+    }
+
+    private static boolean casCount(long[] a, long off, long cmp, long val) {
+        return U.compareAndSwapLong(a, off, cmp, val);
+    }
+
+    final boolean casStripesBusy() {
+        return U.compareAndSwapInt(this, STRIPESBUSY, 0, 1);
+    }
+
+    /**
+     * Adds one to the count of the given bucket.
+     *
+     * @param bucket the bucket index, which must be in range
+     */
+    final void increment(int bucket) {
+        long[][] as; long[] a; long v; int m;
+        long off = offset(bucket);
+        if ((as = stripes) != null ||
+            !casCount(a = base, off, v = U.getLongVolatile(a, off), v + 1L)) {
+            boolean uncontended = true;
+            if (as == null || (m = as.length - 1) < 0 ||
+                (a = as[Striped64.getProbe() & m]) == null ||
+                !(uncontended = casCount(a, off,
+                                         v = U.getLongVolatile(a, off),
+                                         v + 1L)))
+                incrementSlow(bucket, off, uncontended);
+        }
+    }
+
+    /**
+     * Handles increments involving initialization, resizing, creating
+     * new stripes, and/or contention; a copy of
+     * Striped64.longAccumulate adapted to stripes.
+     */
+    private void incrementSlow(int bucket, long off, boolean wasUncontended) {
+        int h;
+        if ((h = Striped64.getProbe()) == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = Striped64.getProbe();
+            wasUncontended = true;
+        }
+        boolean collide = false;                // True if last slot nonempty
+        for (;;) {
+            long[][] as; long[] a; int n; long v;
+            if ((as = stripes) != null && (n = as.length) > 0) {
+                if ((a = as[(n - 1) & h]) == null) {
+                    if (stripesBusy == 0) {     // Try to attach new stripe
+                        long[] r = newStripe(bucket);
+                        if (stripesBusy == 0 && casStripesBusy()) {
+                            boolean created = false;
+                            try {               // Recheck under lock
+                                long[][] rs; int m, j;
+                                if ((rs = stripes) != null &&
+                                    (m = rs.length) > 0 &&
+                                    rs[j = (m - 1) & h] == null) {
+                                    rs[j] = r;
+                                    created = true;
+                                }
+                            } finally {
+                                stripesBusy = 0;
+                            }
+                            if (created)
+                                break;
+                            continue;           // Slot is now non-empty
+                        }
+                    }
+                    collide = false;
+                }
+                else if (!wasUncontended)       // CAS already known to fail
+                    wasUncontended = true;      // Continue after rehash
+                else if (casCount(a, off, v = U.getLongVolatile(a, off),
+                                  v + 1L))
+                    break;
+                else if (n >= Striped64.NCPU || stripes != as)
+                    collide = false;            // At max size or stale
+                else if (!collide)
+                    collide = true;
+                else if (stripesBusy == 0 && casStripesBusy()) {
+                    try {
+                        if (stripes == as) {    // Expand table unless stale
+                            long[][] rs = new long[n << 1][];
+                            for (int i = 0; i < n; ++i)
+                                rs[i] = as[i];
+                            stripes = rs;
+                        }
+                    } finally {
+                        stripesBusy = 0;
+                    }
+                    collide = false;
+                    continue;                   // Retry with expanded table
+                }
+                h = Striped64.advanceProbe(h);
+            }
+            else if (stripesBusy == 0 && stripes == as && casStripesBusy()) {
+                boolean init = false;
+                try {                           // Initialize table
+                    if (stripes == as) {
+                        long[][] rs = new long[2][];
+                        rs[h & 1] = newStripe(bucket);
+                        stripes = rs;
+                        init = true;
+                    }
+                } finally {
+                    stripesBusy = 0;
+                }
+                if (init)
+                    break;
+            }
+            else if (casCount(a = base, off, v = U.getLongVolatile(a, off),
+                              v + 1L))
+                break;                          // Fall back on using base
+        }
+    }
+
+    /** Returns a new stripe with a count of one in the given bucket. */
+    private long[] newStripe(int bucket) {
+        long[] a = new long[buckets + (PAD << 1)];
+        a[bucket + PAD] = 1L;
+        return a;
+    }
+
+    /**
+     * Returns the merged counts of all stripes, optionally resetting
+     * them. The result is <em>NOT</em> an atomic snapshot: increments
+     * concurrent with this method might or might not be included.
+     *
+     * @param reset whether to zero each count after reading it
+     * @return an array holding the count of each bucket
+     */
+    final long[] counts(boolean reset) {
+        long[] counts = new long[buckets];
+        addCounts(counts, base, reset);
+        long[][] as; long[] a;
+        if ((as = stripes) != null) {
+            for (int i = 0; i < as.length; ++i) {
+                if ((a = as[i]) != null)
+                    addCounts(counts, a, reset);
+            }
+        }
+        return counts;
+    }
+
+    private static void addCounts(long[] counts, long[] a, boolean reset) {
+        for (int i = 0; i < counts.length; ++i) {
+            long off = offset(i);
+            counts[i] += reset ? U.getAndSetLong(a, off, 0L) :
+                U.getLongVolatile(a, off);
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long STRIPESBUSY;
+    private static final int ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = StripedHistogram.class;
+            STRIPESBUSY = U.objectFieldOffset
+                (k.getDeclaredField("stripesBusy"));
+            Class<?> ak = long[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+
+}
@@ -38,7 +38,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.concurrent.atomic.LongAdder;
+import java.security.AccessController;
 import sun.misc.Unsafe;
+import sun.security.action.GetBooleanAction;
 
 /**
  * A version of {@link AbstractQueuedSynchronizer} in
@@ -353,6 +356,128 @@ public abstract class AbstractQueuedLongSynchronizer
      */
     static final long spinForTimeoutThreshold = 1000L;
 
+    /*
+     * Adaptive spinning. A queued thread whose predecessor is the head
+     * is next in line, and the head's status stays SIGNAL until the
+     * holder starts to release and unparks its successor. Rather than
+     * parking at once, such a thread first spins for up to spinLimit
+     * checks of that status. If it sees the release, parking (and the
+     * unpark round trip, which for short critical sections costs far
+     * more than the section itself) is avoided and the limit is
+     * doubled; otherwise the thread parks and the limit is halved.
+     * The limit thus tracks how often recent hold times have been
+     * shorter than a spin. It is a plain field: lost updates merely
+     * perturb a heuristic.
+     */
+
+    /** Number of processors, for spin control */
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Lower bound of the adaptive spin limit; zero disables spinning */
+    private static final int MIN_SPINS = (NCPU > 1) ? 1 << 4 : 0;
+
+    /** Upper bound of the adaptive spin limit */
+    private static final int MAX_SPINS = (NCPU > 1) ? 1 << 12 : 0;
+
+    /**
+     * Current number of checks a thread at the head of the queue makes
+     * before parking, between MIN_SPINS and MAX_SPINS.
+     */
+    private transient int spinLimit;
+
+    /**
+     * Contention statistics, allocated on first queued acquire.
+     */
+    private transient volatile ContentionStats contention;
+
+    /**
+     * Counters describing queued acquires, used only if enabled by
+     * system property. They are striped, and kept apart from the
+     * synchronizer, so that updating them neither disturbs the cache
+     * line holding state, head and tail nor makes waiting threads
+     * contend on a single counter, and are only updated on the slow
+     * path, so that uncontended acquires do not pay for them.
+     */
+    static final class ContentionStats {
+        /** Whether statistics are gathered, read on first queued acquire */
+        static final boolean ENABLED = AccessController.doPrivileged(
+            new GetBooleanAction("java.util.concurrent.locks.contentionStatistics"));
+
+        /** Number of acquires that entered the queue */
+        final LongAdder queuedAcquires = new LongAdder();
+        /** Number of times queued threads parked */
+        final LongAdder parks = new LongAdder();
+        /** Number of releases observed while spinning */
+        final LongAdder spinSuccesses = new LongAdder();
+        /** Sum of queue lengths seen by entering threads */
+        final LongAdder queueLengthSum = new LongAdder();
+        /** Number of threads currently in acquire loops */
+        final LongAdder queued = new LongAdder();
+
+        void enqueued() {
+            queued.increment();
+            queuedAcquires.increment();
+            queueLengthSum.add(queued.sum());
+        }
+
+        void dequeued() {
+            queued.decrement();
+        }
+
+        void parked() {
+            parks.increment();
+        }
+
+        void spun() {
+            spinSuccesses.increment();
+        }
+    }
+
+    /**
+     * Records that the current thread is entering an acquire loop.
+     *
+     * @return the statistics to update on exit, or null if statistics
+     *         are not gathered
+     */
+    private ContentionStats enterQueue() {
+        if (!ContentionStats.ENABLED)
+            return null;
+        ContentionStats cs = contention;
+        if (cs == null &&
+            !unsafe.compareAndSwapObject(this, contentionOffset, null,
+                                         cs = new ContentionStats()))
+            cs = contention;
+        cs.enqueued();
+        return cs;
+    }
+
+    /**
+     * Spins while node's predecessor p is the head and has not begun
+     * to release, adapting spinLimit to the outcome.
+     *
+     * @param p the node's predecessor
+     * @return {@code true} if a release was seen, so the caller
+     *         should retry rather than park
+     */
+    private boolean spinForRelease(Node p) {
+        if (MAX_SPINS == 0 || p != head)
+            return false;
+        int limit = spinLimit;
+        if (limit < MIN_SPINS)
+            limit = MIN_SPINS;
+        for (int i = 0; i < limit; ++i) {
+            if (p.waitStatus != Node.SIGNAL || p != head) {
+                spinLimit = Math.min(limit << 1, MAX_SPINS);
+                ContentionStats cs = contention;
+                if (cs != null)
+                    cs.spun();
+                return true;
+            }
+        }
+        spinLimit = limit >>> 1;
+        return false;
+    }
+
     /**
      * Inserts node into queue, initializing if necessary. See picture above.
      * @param node the node to insert
@@ -611,10 +736,23 @@ public abstract class AbstractQueuedLongSynchronizer
      * @return {@code true} if interrupted
      */
     private final boolean parkAndCheckInterrupt() {
+        ContentionStats cs = contention;
+        if (cs != null)
+            cs.parked();
         LockSupport.park(this);
         return Thread.interrupted();
     }
 
+    /**
+     * Convenience method to park for at most the given time.
+     */
+    private final void timedPark(long nanosTimeout) {
+        ContentionStats cs = contention;
+        if (cs != null)
+            cs.parked();
+        LockSupport.parkNanos(this, nanosTimeout);
+    }
+
     /*
      * Various flavors of acquire, varying in exclusive/shared and
      * control modes.  Each is mostly the same, but annoyingly
@@ -634,6 +772,7 @@ public abstract class AbstractQueuedLongSynchronizer
      */
     final boolean acquireQueued(final Node node, long arg) {
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             boolean interrupted = false;
             for (;;) {
@@ -645,10 +784,13 @@ public abstract class AbstractQueuedLongSynchronizer
                     return interrupted;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !spinForRelease(p) &&
                     parkAndCheckInterrupt())
                     interrupted = true;
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -662,6 +804,7 @@ public abstract class AbstractQueuedLongSynchronizer
         throws InterruptedException {
         final Node node = addWaiter(Node.EXCLUSIVE);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -672,10 +815,13 @@ public abstract class AbstractQueuedLongSynchronizer
                     return;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !spinForRelease(p) &&
                     parkAndCheckInterrupt())
                     throw new InterruptedException();
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -695,6 +841,7 @@ public abstract class AbstractQueuedLongSynchronizer
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.EXCLUSIVE);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -708,12 +855,15 @@ public abstract class AbstractQueuedLongSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
-                    LockSupport.parkNanos(this, nanosTimeout);
+                    nanosTimeout > spinForTimeoutThreshold &&
+                    !spinForRelease(p))
+                    timedPark(nanosTimeout);
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -726,6 +876,7 @@ public abstract class AbstractQueuedLongSynchronizer
     private void doAcquireShared(long arg) {
         final Node node = addWaiter(Node.SHARED);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             boolean interrupted = false;
             for (;;) {
@@ -742,10 +893,13 @@ public abstract class AbstractQueuedLongSynchronizer
                     }
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !spinForRelease(p) &&
                     parkAndCheckInterrupt())
                     interrupted = true;
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -759,6 +913,7 @@ public abstract class AbstractQueuedLongSynchronizer
         throws InterruptedException {
         final Node node = addWaiter(Node.SHARED);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -772,10 +927,13 @@ public abstract class AbstractQueuedLongSynchronizer
                     }
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !spinForRelease(p) &&
                     parkAndCheckInterrupt())
                     throw new InterruptedException();
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -795,6 +953,7 @@ public abstract class AbstractQueuedLongSynchronizer
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.SHARED);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -811,12 +970,15 @@ public abstract class AbstractQueuedLongSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
-                    LockSupport.parkNanos(this, nanosTimeout);
+                    nanosTimeout > spinForTimeoutThreshold &&
+                    !spinForRelease(p))
+                    timedPark(nanosTimeout);
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -1320,6 +1482,66 @@ public abstract class AbstractQueuedLongSynchronizer
         return n;
     }
 
+    /**
+     * Returns the number of acquires that could not proceed at once
+     * and entered the wait queue, including reacquires after condition
+     * waits. Acquires that succeed on their first attempt are not
+     * counted. This method is designed for use in monitoring system
+     * state, not for synchronization control, and returns zero unless
+     * contention statistics are enabled.
+     *
+     * @return the number of queued acquires
+     */
+    protected long getQueuedAcquireCount() {
+        ContentionStats cs = contention;
+        return (cs == null) ? 0L : cs.queuedAcquires.sum();
+    }
+
+    /**
+     * Returns the number of times threads waiting to acquire have
+     * blocked. A queued acquire that spins until the synchronizer is
+     * released does not block. This method is designed for use in
+     * monitoring system state, not for synchronization control, and
+     * returns zero unless contention statistics are enabled.
+     *
+     * @return the number of times waiting threads have parked
+     */
+    protected long getParkCount() {
+        ContentionStats cs = contention;
+        return (cs == null) ? 0L : cs.parks.sum();
+    }
+
+    /**
+     * Returns the number of times a waiting thread that was first in
+     * the queue saw the synchronizer being released while spinning,
+     * and so did not need to block. This method is designed for use in
+     * monitoring system state, not for synchronization control, and
+     * returns zero unless contention statistics are enabled.
+     *
+     * @return the number of successful spins
+     */
+    protected long getSpinSuccessCount() {
+        ContentionStats cs = contention;
+        return (cs == null) ? 0L : cs.spinSuccesses.sum();
+    }
+
+    /**
+     * Returns the average number of threads waiting, including the
+     * entering thread, seen by each acquire as it entered the queue.
+     * This method is designed for use in monitoring system state, not
+     * for synchronization control, and returns zero unless contention
+     * statistics are enabled.
+     *
+     * @return the average queue length seen by queued acquires, or
+     *         zero if there have been none
+     */
+    protected double getAverageQueueLength() {
+        ContentionStats cs = contention;
+        long n;
+        return (cs == null || (n = cs.queuedAcquires.sum()) == 0L) ? 0.0 :
+            (double)cs.queueLengthSum.sum() / n;
+    }
+
     /**
      * Returns a collection containing threads that may be waiting to
      * acquire.  Because the actual set of threads may change
@@ -2043,6 +2265,7 @@ public abstract class AbstractQueuedLongSynchronizer
     private static final long tailOffset;
     private static final long waitStatusOffset;
     private static final long nextOffset;
+    private static final long contentionOffset;
 
     static {
         try {
@@ -2056,6 +2279,8 @@ public abstract class AbstractQueuedLongSynchronizer
                 (Node.class.getDeclaredField("waitStatus"));
             nextOffset = unsafe.objectFieldOffset
                 (Node.class.getDeclaredField("next"));
+            contentionOffset = unsafe.objectFieldOffset
+                (AbstractQueuedLongSynchronizer.class.getDeclaredField("contention"));
 
         } catch (Exception ex) { throw new Error(ex); }
     }
@@ -38,7 +38,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.concurrent.atomic.LongAdder;
+import java.security.AccessController;
 import sun.misc.Unsafe;
+import sun.security.action.GetBooleanAction;
 
 /**
  * Provides a framework for implementing blocking locks and related
@@ -96,6 +99,17 @@ import sun.misc.Unsafe;
  * using an {@code AbstractQueuedSynchronizer} for their
  * synchronization mechanics.
  *
+ * <p>A thread that is first in the queue spins briefly before
+ * blocking, for an adaptive number of checks that grows while
+ * releases tend to arrive within the spin and shrinks while they do
+ * not, so that synchronizers held for very short periods avoid the
+ * cost of parking and unparking. Methods {@link #getQueuedAcquireCount},
+ * {@link #getParkCount}, {@link #getSpinSuccessCount} and {@link
+ * #getAverageQueueLength} report contention statistics. These are
+ * gathered only if the system property {@code
+ * java.util.concurrent.locks.contentionStatistics} is {@code true},
+ * and then only for acquires that have to wait.
+ *
  * <p>Serialization of this class stores only the underlying atomic
  * integer maintaining state, so deserialized objects have empty
  * thread queues. Typical subclasses requiring serializability will
@@ -575,6 +589,128 @@ public abstract class AbstractQueuedSynchronizer
      */
     static final long spinForTimeoutThreshold = 1000L;
 
+    /*
+     * Adaptive spinning. A queued thread whose predecessor is the head
+     * is next in line, and the head's status stays SIGNAL until the
+     * holder starts to release and unparks its successor. Rather than
+     * parking at once, such a thread first spins for up to spinLimit
+     * checks of that status. If it sees the release, parking (and the
+     * unpark round trip, which for short critical sections costs far
+     * more than the section itself) is avoided and the limit is
+     * doubled; otherwise the thread parks and the limit is halved.
+     * The limit thus tracks how often recent hold times have been
+     * shorter than a spin. It is a plain field: lost updates merely
+     * perturb a heuristic.
+     */
+
+    /** Number of processors, for spin control */
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Lower bound of the adaptive spin limit; zero disables spinning */
+    private static final int MIN_SPINS = (NCPU > 1) ? 1 << 4 : 0;
+
+    /** Upper bound of the adaptive spin limit */
+    private static final int MAX_SPINS = (NCPU > 1) ? 1 << 12 : 0;
+
+    /**
+     * Current number of checks a thread at the head of the queue makes
+     * before parking, between MIN_SPINS and MAX_SPINS.
+     */
+    private transient int spinLimit;
+
+    /**
+     * Contention statistics, allocated on first queued acquire.
+     */
+    private transient volatile ContentionStats contention;
+
+    /**
+     * Counters describing queued acquires, used only if enabled by
+     * system property. They are striped, and kept apart from the
+     * synchronizer, so that updating them neither disturbs the cache
+     * line holding state, head and tail nor makes waiting threads
+     * contend on a single counter, and are only updated on the slow
+     * path, so that uncontended acquires do not pay for them.
+     */
+    static final class ContentionStats {
+        /** Whether statistics are gathered, read on first queued acquire */
+        static final boolean ENABLED = AccessController.doPrivileged(
+            new GetBooleanAction("java.util.concurrent.locks.contentionStatistics"));
+
+        /** Number of acquires that entered the queue */
+        final LongAdder queuedAcquires = new LongAdder();
+        /** Number of times queued threads parked */
+        final LongAdder parks = new LongAdder();
+        /** Number of releases observed while spinning */
+        final LongAdder spinSuccesses = new LongAdder();
+        /** Sum of queue lengths seen by entering threads */
+        final LongAdder queueLengthSum = new LongAdder();
+        /** Number of threads currently in acquire loops */
+        final LongAdder queued = new LongAdder();
+
+        void enqueued() {
+            queued.increment();
+            queuedAcquires.increment();
+            queueLengthSum.add(queued.sum());
+        }
+
+        void dequeued() {
+            queued.decrement();
+        }
+
+        void parked() {
+            parks.increment();
+        }
+
+        void spun() {
+            spinSuccesses.increment();
+        }
+    }
+
+    /**
+     * Records that the current thread is entering an acquire loop.
+     *
+     * @return the statistics to update on exit, or null if statistics
+     *         are not gathered
+     */
+    private ContentionStats enterQueue() {
+        if (!ContentionStats.ENABLED)
+            return null;
+        ContentionStats cs = contention;
+        if (cs == null &&
+            !unsafe.compareAndSwapObject(this, contentionOffset, null,
+                                         cs = new ContentionStats()))
+            cs = contention;
+        cs.enqueued();
+        return cs;
+    }
+
+    /**
+     * Spins while node's predecessor p is the head and has not begun
+     * to release, adapting spinLimit to the outcome.
+     *
+     * @param p the node's predecessor
+     * @return {@code true} if a release was seen, so the caller
+     *         should retry rather than park
+     */
+    private boolean spinForRelease(Node p) {
+        if (MAX_SPINS == 0 || p != head)
+            return false;
+        int limit = spinLimit;
+        if (limit < MIN_SPINS)
+            limit = MIN_SPINS;
+        for (int i = 0; i < limit; ++i) {
+            if (p.waitStatus != Node.SIGNAL || p != head) {
+                spinLimit = Math.min(limit << 1, MAX_SPINS);
+                ContentionStats cs = contention;
+                if (cs != null)
+                    cs.spun();
+                return true;
+            }
+        }
+        spinLimit = limit >>> 1;
+        return false;
+    }
+
     /**
      * Inserts node into queue, initializing if necessary. See picture above.
      * @param node the node to insert
@@ -833,10 +969,23 @@ public abstract class AbstractQueuedSynchronizer
      * @return {@code true} if interrupted
      */
     private final boolean parkAndCheckInterrupt() {
+        ContentionStats cs = contention;
+        if (cs != null)
+            cs.parked();
         LockSupport.park(this);
         return Thread.interrupted();
     }
 
+    /**
+     * Convenience method to park for at most the given time.
+     */
+    private final void timedPark(long nanosTimeout) {
+        ContentionStats cs = contention;
+        if (cs != null)
+            cs.parked();
+        LockSupport.parkNanos(this, nanosTimeout);
+    }
+
     /*
      * Various flavors of acquire, varying in exclusive/shared and
      * control modes.  Each is mostly the same, but annoyingly
@@ -856,6 +1005,7 @@ public abstract class AbstractQueuedSynchronizer
      */
     final boolean acquireQueued(final Node node, int arg) {
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             boolean interrupted = false;
             for (;;) {
@@ -867,10 +1017,13 @@ public abstract class AbstractQueuedSynchronizer
                     return interrupted;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !spinForRelease(p) &&
                     parkAndCheckInterrupt())
                     interrupted = true;
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -884,6 +1037,7 @@ public abstract class AbstractQueuedSynchronizer
         throws InterruptedException {
         final Node node = addWaiter(Node.EXCLUSIVE);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -894,10 +1048,13 @@ public abstract class AbstractQueuedSynchronizer
                     return;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !spinForRelease(p) &&
                     parkAndCheckInterrupt())
                     throw new InterruptedException();
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -917,6 +1074,7 @@ public abstract class AbstractQueuedSynchronizer
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.EXCLUSIVE);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -930,12 +1088,15 @@ public abstract class AbstractQueuedSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
-                    LockSupport.parkNanos(this, nanosTimeout);
+                    nanosTimeout > spinForTimeoutThreshold &&
+                    !spinForRelease(p))
+                    timedPark(nanosTimeout);
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -948,6 +1109,7 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireShared(int arg) {
         final Node node = addWaiter(Node.SHARED);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             boolean interrupted = false;
             for (;;) {
@@ -964,10 +1126,13 @@ public abstract class AbstractQueuedSynchronizer
                     }
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !spinForRelease(p) &&
                     parkAndCheckInterrupt())
                     interrupted = true;
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -981,6 +1146,7 @@ public abstract class AbstractQueuedSynchronizer
         throws InterruptedException {
         final Node node = addWaiter(Node.SHARED);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -994,10 +1160,13 @@ public abstract class AbstractQueuedSynchronizer
                     }
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !spinForRelease(p) &&
                     parkAndCheckInterrupt())
                     throw new InterruptedException();
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -1017,6 +1186,7 @@ public abstract class AbstractQueuedSynchronizer
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.SHARED);
         boolean failed = true;
+        final ContentionStats cs = enterQueue();
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -1033,12 +1203,15 @@ public abstract class AbstractQueuedSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
-                    LockSupport.parkNanos(this, nanosTimeout);
+                    nanosTimeout > spinForTimeoutThreshold &&
+                    !spinForRelease(p))
+                    timedPark(nanosTimeout);
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
         } finally {
+            if (cs != null)
+                cs.dequeued();
             if (failed)
                 cancelAcquire(node);
         }
@@ -1542,6 +1715,66 @@ public abstract class AbstractQueuedSynchronizer
         return n;
     }
 
+    /**
+     * Returns the number of acquires that could not proceed at once
+     * and entered the wait queue, including reacquires after condition
+     * waits. Acquires that succeed on their first attempt are not
+     * counted. This method is designed for use in monitoring system
+     * state, not for synchronization control, and returns zero unless
+     * contention statistics are enabled.
+     *
+     * @return the number of queued acquires
+     */
+    protected long getQueuedAcquireCount() {
+        ContentionStats cs = contention;
+        return (cs == null) ? 0L : cs.queuedAcquires.sum();
+    }
+
+    /**
+     * Returns the number of times threads waiting to acquire have
+     * blocked. A queued acquire that spins until the synchronizer is
+     * released does not block. This method is designed for use in
+     * monitoring system state, not for synchronization control, and
+     * returns zero unless contention statistics are enabled.
+     *
+     * @return the number of times waiting threads have parked
+     */
+    protected long getParkCount() {
+        ContentionStats cs = contention;
+        return (cs == null) ? 0L : cs.parks.sum();
+    }
+
+    /**
+     * Returns the number of times a waiting thread that was first in
+     * the queue saw the synchronizer being released while spinning,
+     * and so did not need to block. This method is designed for use in
+     * monitoring system state, not for synchronization control, and
+     * returns zero unless contention statistics are enabled.
+     *
+     * @return the number of successful spins
+     */
+    protected long getSpinSuccessCount() {
+        ContentionStats cs = contention;
+        return (cs == null) ? 0L : cs.spinSuccesses.sum();
+    }
+
+    /**
+     * Returns the average number of threads waiting, including the
+     * entering thread, seen by each acquire as it entered the queue.
+     * This method is designed for use in monitoring system state, not
+     * for synchronization control, and returns zero unless contention
+     * statistics are enabled.
+     *
+     * @return the average queue length seen by queued acquires, or
+     *         zero if there have been none
+     */
+    protected double getAverageQueueLength() {
+        ContentionStats cs = contention;
+        long n;
+        return (cs == null || (n = cs.queuedAcquires.sum()) == 0L) ? 0.0 :
+            (double)cs.queueLengthSum.sum() / n;
+    }
+
     /**
      * Returns a collection containing threads that may be waiting to
      * acquire.  Because the actual set of threads may change
@@ -2263,6 +2496,7 @@ public abstract class AbstractQueuedSynchronizer
     private static final long tailOffset;
     private static final long waitStatusOffset;
     private static final long nextOffset;
+    private static final long contentionOffset;
 
     static {
         try {
@@ -2276,6 +2510,8 @@ public abstract class AbstractQueuedSynchronizer
                 (Node.class.getDeclaredField("waitStatus"));
             nextOffset = unsafe.objectFieldOffset
                 (Node.class.getDeclaredField("next"));
+            contentionOffset = unsafe.objectFieldOffset
+                (AbstractQueuedSynchronizer.class.getDeclaredField("contention"));
 
         } catch (Exception ex) { throw new Error(ex); }
     }
@@ -659,6 +659,46 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         return sync.getQueueLength();
     }
 
+    /**
+     * Returns the number of lock acquisitions that could not proceed
+     * at once and had to wait. This method is designed for use in
+     * monitoring of the system state, not for synchronization
+     * control. Like the other contention statistics of this class, it
+     * is zero unless the system property {@code
+     * java.util.concurrent.locks.contentionStatistics} is {@code true}.
+     *
+     * @return the number of lock acquisitions that waited
+     */
+    public final long getQueuedAcquireCount() {
+        return sync.getQueuedAcquireCount();
+    }
+
+    /**
+     * Returns the number of times threads waiting for this lock have
+     * blocked. Waiting threads that are next in line spin briefly
+     * before blocking, so this may be less than {@link
+     * #getQueuedAcquireCount}. This method is designed for use in
+     * monitoring of the system state, not for synchronization
+     * control.
+     *
+     * @return the number of times waiting threads have blocked
+     */
+    public final long getParkCount() {
+        return sync.getParkCount();
+    }
+
+    /**
+     * Returns the average number of threads found waiting, including
+     * itself, by each lock acquisition that had to wait. This method
+     * is designed for use in monitoring of the system state, not for
+     * synchronization control.
+     *
+     * @return the average queue length, or zero if no thread has waited
+     */
+    public final double getAverageQueueLength() {
+        return sync.getAverageQueueLength();
+    }
+
     /**
      * Returns a collection containing threads that may be waiting to
      * acquire this lock.  Because the actual set of threads may change
@@ -35,11 +35,14 @@
 
 package java.util.concurrent.locks;
 
+import java.util.ArrayDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 /**
  * A capability-based lock with three modes for controlling read/write
@@ -94,6 +97,13 @@ import java.util.concurrent.locks.LockSupport;
  * help reduce some of the code bloat that otherwise occurs in
  * retry-based designs.
  *
+ * <p>Methods {@link #read}, {@link #write} and {@link #writeIf}
+ * package the most common of these retry-based idioms: an optimistic
+ * read that falls back to a read lock, and a check that upgrades to
+ * the write lock only when the check succeeds. Method {@link
+ * #newWriteCondition} supports waiting for a state change while in
+ * write mode, much as a {@link Condition} does for a {@link Lock}.
+ *
  * <p>StampedLocks are designed for use as internal utilities in the
  * development of thread-safe components. Their use relies on
  * knowledge of the internal properties of the data, objects, and
@@ -771,6 +781,137 @@ public class StampedLock implements java.io.Serializable {
         return false;
     }
 
+    // idioms
+
+    /**
+     * Returns the result of the given function, evaluated in
+     * optimistic read mode if that validates, and otherwise under a
+     * read lock. This packages the usual optimistic read idiom:
+     *
+     * <pre> {@code
+     * double distanceFromOrigin() {
+     *   return sl.read(() -> Math.sqrt(x * x + y * y));
+     * }}</pre>
+     *
+     * <p>The function may be evaluated twice, the first time without
+     * any lock held, so it must be free of side effects and tolerate
+     * the inconsistent values that optimistic reads may observe. Its
+     * result is discarded if the optimistic read does not validate.
+     * A {@code RuntimeException} thrown from the optimistic evaluation
+     * is likewise ignored if the read does not validate, in which case
+     * the function is evaluated again under the read lock.
+     *
+     * @param reader the function reading the protected state
+     * @param <T> the type of the result
+     * @return the result of a validated evaluation of {@code reader}
+     */
+    public <T> T read(Supplier<? extends T> reader) {
+        long stamp;
+        if ((stamp = tryOptimisticRead()) != 0L) {
+            try {
+                T result = reader.get();
+                if (validate(stamp))
+                    return result;
+            } catch (RuntimeException ex) {
+                if (validate(stamp))
+                    throw ex;
+            }
+        }
+        stamp = readLock();
+        try {
+            return reader.get();
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the result of the given function, evaluated while
+     * holding the write lock.
+     *
+     * @param writer the function updating the protected state
+     * @param <T> the type of the result
+     * @return the result of {@code writer}
+     */
+    public <T> T write(Supplier<? extends T> writer) {
+        long stamp = writeLock();
+        try {
+            return writer.get();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Runs the given action in write mode if, and only if, the given
+     * condition holds. The condition is first evaluated in optimistic
+     * read mode; if it validates as false, the method returns without
+     * acquiring any lock, and if it holds, the optimistic stamp is
+     * converted to a write stamp, which succeeds only if no write has
+     * intervened. If either step fails, the condition is evaluated
+     * again while holding the write lock. This packages the usual
+     * upgrade idiom:
+     *
+     * <pre> {@code
+     * void moveIfAtOrigin(double newX, double newY) {
+     *   sl.writeIf(() -> x == 0.0 && y == 0.0,
+     *              () -> { x = newX; y = newY; });
+     * }}</pre>
+     *
+     * <p>As with {@link #read}, the condition may be evaluated without
+     * any lock held, so it must be free of side effects.
+     *
+     * @param condition the check, reading the protected state
+     * @param action the update, run in write mode if the check holds
+     * @return {@code true} if the action was run
+     */
+    public boolean writeIf(BooleanSupplier condition, Runnable action) {
+        long stamp;
+        if ((stamp = tryOptimisticRead()) != 0L) {
+            boolean test = true, valid = false;
+            try {
+                test = condition.getAsBoolean();
+                valid = true;
+            } catch (RuntimeException ex) {
+                if (validate(stamp))
+                    throw ex;
+            }
+            if (valid) {
+                if (!test) {
+                    if (validate(stamp))
+                        return false;
+                }
+                else if ((stamp = tryConvertToWriteLock(stamp)) != 0L) {
+                    try {
+                        action.run();
+                    } finally {
+                        unlockWrite(stamp);
+                    }
+                    return true;
+                }
+            }
+        }
+        stamp = writeLock();
+        try {
+            if (!condition.getAsBoolean())
+                return false;
+            action.run();
+            return true;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns a new {@link WriteCondition} for use with the write mode
+     * of this lock.
+     *
+     * @return a new write condition
+     */
+    public WriteCondition newWriteCondition() {
+        return new WriteCondition();
+    }
+
     // status monitoring methods
 
     /**
@@ -916,6 +1057,156 @@ public class StampedLock implements java.io.Serializable {
         public Lock writeLock() { return asWriteLock(); }
     }
 
+    /**
+     * A condition queue for threads in the write mode of a {@code
+     * StampedLock}, playing the role of a {@link Condition} for a
+     * {@link Lock}. Because a stamped lock is released and reacquired
+     * by stamp, the await methods take the current write stamp and
+     * return the new write stamp obtained when the lock is reacquired;
+     * the old stamp is no longer valid.
+     *
+     * <pre> {@code
+     * long stamp = sl.writeLock();
+     * try {
+     *   while (count == 0)
+     *     stamp = notEmpty.await(stamp);
+     *   return items[--count];
+     * } finally {
+     *   sl.unlockWrite(stamp);
+     * }}</pre>
+     *
+     * <p>Since the caller could not release a lock whose stamp it does
+     * not have, the await methods always return holding the write
+     * lock: on interrupt they return early, with the thread's
+     * interrupt status set, rather than throwing {@code
+     * InterruptedException}. As with {@code Condition}, spurious
+     * wakeups are permitted, so waiting should occur in a loop that
+     * rechecks the awaited state.
+     *
+     * <p>A {@code StampedLock} records no owner, so the signal
+     * methods can check only that the write lock is held, not that it
+     * is held by the caller.
+     */
+    public final class WriteCondition {
+        /** Waiting threads, in FIFO order; guarded by the write lock */
+        private final ArrayDeque<CondWaiter> waiters = new ArrayDeque<>();
+
+        WriteCondition() {}
+
+        /**
+         * Releases the write lock represented by the given stamp,
+         * waits until signalled or interrupted, and reacquires the
+         * write lock.
+         *
+         * @param stamp the current write stamp
+         * @return the new write stamp
+         * @throws IllegalMonitorStateException if the stamp does
+         * not match the current state of this lock
+         */
+        public long await(long stamp) {
+            return await(stamp, false, 0L);
+        }
+
+        /**
+         * Releases the write lock represented by the given stamp,
+         * waits until signalled or interrupted, or the specified
+         * waiting time elapses, and reacquires the write lock.
+         *
+         * @param stamp the current write stamp
+         * @param time the maximum time to wait
+         * @param unit the time unit of the {@code time} argument
+         * @return the new write stamp
+         * @throws IllegalMonitorStateException if the stamp does
+         * not match the current state of this lock
+         */
+        public long await(long stamp, long time, TimeUnit unit) {
+            return await(stamp, true, unit.toNanos(time));
+        }
+
+        private long await(long stamp, boolean timed, long nanos) {
+            if ((stamp & WBIT) == 0L || state != stamp)
+                throw new IllegalMonitorStateException();
+            CondWaiter w = new CondWaiter(Thread.currentThread());
+            waiters.add(w);
+            unlockWrite(stamp);
+            long deadline = timed ? System.nanoTime() + nanos : 0L;
+            boolean interrupted = false;
+            while (!w.signalled) {
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                    break;
+                }
+                if (timed) {
+                    if ((nanos = deadline - System.nanoTime()) <= 0L)
+                        break;
+                    LockSupport.parkNanos(this, nanos);
+                }
+                else
+                    LockSupport.park(this);
+            }
+            long next = writeLock();
+            if (!w.signalled)
+                waiters.remove(w);
+            if (interrupted)
+                Thread.currentThread().interrupt();
+            return next;
+        }
+
+        /**
+         * Wakes up the longest-waiting thread, if any. The write lock
+         * must be held.
+         *
+         * @throws IllegalMonitorStateException if the lock is not
+         * write-locked
+         */
+        public void signal() {
+            if ((state & WBIT) == 0L)
+                throw new IllegalMonitorStateException();
+            CondWaiter w = waiters.poll();
+            if (w != null) {
+                w.signalled = true;
+                LockSupport.unpark(w.thread);
+            }
+        }
+
+        /**
+         * Wakes up all waiting threads. The write lock must be held.
+         *
+         * @throws IllegalMonitorStateException if the lock is not
+         * write-locked
+         */
+        public void signalAll() {
+            if ((state & WBIT) == 0L)
+                throw new IllegalMonitorStateException();
+            CondWaiter w;
+            while ((w = waiters.poll()) != null) {
+                w.signalled = true;
+                LockSupport.unpark(w.thread);
+            }
+        }
+
+        /**
+         * Queries whether any threads are waiting on this condition.
+         * The write lock must be held.
+         *
+         * @return {@code true} if there are any waiting threads
+         * @throws IllegalMonitorStateException if the lock is not
+         * write-locked
+         */
+        public boolean hasWaiters() {
+            if ((state & WBIT) == 0L)
+                throw new IllegalMonitorStateException();
+            return !waiters.isEmpty();
+        }
+    }
+
+    /** Wait nodes for WriteCondition */
+    static final class CondWaiter {
+        final Thread thread;
+        volatile boolean signalled;
+        CondWaiter(Thread thread) { this.thread = thread; }
+    }
+
     // Unlock methods without stamp argument checks for view classes.
     // Needed because view-class lock methods throw away stamps.
 
@@ -0,0 +1,654 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.concurrent.locks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reader-biased {@link ReadWriteLock} for read-mostly data, whose
+ * read lock does not update any memory location shared by all readers.
+ *
+ * <p>A {@link ReentrantReadWriteLock} counts readers in the single
+ * synchronization state of its {@link AbstractQueuedSynchronizer}, so
+ * every read acquisition and release is a CAS on the same cache line,
+ * and read throughput falls as cores are added. This lock instead
+ * counts readers in an array of <em>reader indicators</em>, each on
+ * its own cache line, indexed by a hash of the reading thread. In the
+ * absence of writers, acquiring and releasing the read lock touches
+ * only the reading thread's indicator and one shared field that is
+ * read but not written. A writer first announces itself, which sends
+ * newly arriving readers to a slow path, and then waits for the
+ * indicators to <em>drain</em> to zero. Writes are therefore more
+ * expensive than with {@code ReentrantReadWriteLock}, in proportion to
+ * the number of indicators.
+ *
+ * <p>This class supports two modes:
+ * <ul>
+ * <li><b>Writer-preferring</b> (the default). A writer announces
+ * itself as soon as it starts waiting, so that no new reader enters
+ * while any writer is waiting. Writers cannot be starved by a stream
+ * of readers, but readers can be starved by a stream of writers.
+ * <li><b>Fair</b>. Writers, and readers that find a writer present,
+ * acquire the lock in approximately arrival order. A waiting writer
+ * does not stop new readers until the writers and slow-path readers
+ * ahead of it have been served.
+ * </ul>
+ *
+ * <p>Unlike {@code ReentrantReadWriteLock}, the read lock is <em>not
+ * reentrant</em>: a thread that holds the read lock and tries to
+ * acquire it again may deadlock if a writer is waiting. The write lock
+ * is reentrant, and a thread holding the write lock may also acquire
+ * the read lock, so that it can downgrade by releasing the write lock
+ * last. Upgrading from read to write is not supported. Neither lock
+ * view supports {@link Condition}s.
+ *
+ * <p>As with {@code ReentrantReadWriteLock}, the read lock is not owned
+ * by a thread, but it must be released by the thread that acquired it,
+ * since the reader indicator is chosen by the current thread.
+ *
+ * <p>Sample usage, for a read-mostly registry:
+ *
+ * <pre> {@code
+ * class Registry {
+ *   private final Map<String, Config> map = new HashMap<>();
+ *   private final StripedReadWriteLock rwl = new StripedReadWriteLock();
+ *   private final Lock r = rwl.readLock();
+ *   private final Lock w = rwl.writeLock();
+ *
+ *   Config get(String key) {
+ *     r.lock();
+ *     try { return map.get(key); }
+ *     finally { r.unlock(); }
+ *   }
+ *
+ *   void put(String key, Config value) {
+ *     w.lock();
+ *     try { map.put(key, value); }
+ *     finally { w.unlock(); }
+ *   }
+ * }}</pre>
+ *
+ * @see ReentrantReadWriteLock
+ * @see StampedLock
+ */
+public class StripedReadWriteLock implements ReadWriteLock {
+
+    /*
+     * Algorithmic notes:
+     *
+     * Readers increment the indicator for their thread and then read
+     * writerIntent; a writer increments writerIntent and then reads
+     * every indicator. All of these accesses are volatile, so either
+     * the writer sees the reader's increment and waits for it, or the
+     * reader sees the writer and backs out (decrementing again). A
+     * reader that backs out, or releases while writerIntent is
+     * nonzero, unparks the draining writer, recorded in field drainer.
+     *
+     * Writers are serialized by an ordinary ReentrantLock, held for
+     * the whole write critical section. Readers that find
+     * writerIntent nonzero take that lock too, wait on its condition
+     * until writerIntent is zero, and only then increment their
+     * indicator. No writer holds the lock while they do so, so they
+     * need not recheck. In fair mode writers increment writerIntent
+     * only once they hold the lock, so that slow-path readers and
+     * writers are ordered by the fair ReentrantLock; in
+     * writer-preferring mode they increment it before queuing.
+     *
+     * Each indicator occupies its own 128-byte block of the readers
+     * array, to avoid false sharing with neighbouring indicators
+     * including under adjacent-line prefetch. Threads are mapped to
+     * indicators by a hash of their thread ids, which unlike
+     * ThreadLocalRandom probes never change, so that a reader always
+     * releases the indicator it incremented.
+     */
+
+    /** Number of processors, for spin control and sizing */
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Maximum number of reader indicators */
+    private static final int MAX_STRIPES = 256;
+
+    /** Log2 of the number of longs per indicator (128 bytes) */
+    private static final int STRIDE_SHIFT = 4;
+
+    /** Number of times a draining writer checks before parking */
+    private static final int SPINS = (NCPU > 1) ? 1 << 7 : 0;
+
+    /** Reader indicators, at indices (i + 1) << STRIDE_SHIFT */
+    private final long[] readers;
+
+    /** Mask for mapping thread hashes to indicators */
+    private final int stripeMask;
+
+    /** Serializes writers and slow-path readers */
+    private final ReentrantLock writerLock;
+
+    /** Signalled when writerIntent drops to zero */
+    private final Condition readersMayProceed;
+
+    /** Whether writers queue fairly with slow-path readers */
+    private final boolean fair;
+
+    /**
+     * Number of writers that hold, or in writer-preferring mode are
+     * waiting for, the write lock. Readers may use the fast path
+     * only while this is zero.
+     */
+    private volatile int writerIntent;
+
+    /** The writer waiting for readers to drain, if any */
+    private volatile Thread drainer;
+
+    /** The thread holding the write lock, once readers have drained */
+    private volatile Thread writeOwner;
+
+    /** Inner class providing readlock */
+    private final ReadLock readerLock;
+    /** Inner class providing writelock */
+    private final WriteLock writerLockView;
+
+    /**
+     * Creates a new writer-preferring {@code StripedReadWriteLock}.
+     */
+    public StripedReadWriteLock() {
+        this(false);
+    }
+
+    /**
+     * Creates a new {@code StripedReadWriteLock} with the given mode.
+     *
+     * @param fair {@code true} for fair mode, {@code false} for
+     *        writer-preferring mode
+     */
+    public StripedReadWriteLock(boolean fair) {
+        int n = 1;
+        while (n < NCPU && n < MAX_STRIPES)
+            n <<= 1;
+        this.stripeMask = n - 1;
+        this.readers = new long[(n + 2) << STRIDE_SHIFT];
+        this.fair = fair;
+        this.writerLock = new ReentrantLock(fair);
+        this.readersMayProceed = writerLock.newCondition();
+        this.readerLock = new ReadLock();
+        this.writerLockView = new WriteLock();
+    }
+
+    public Lock readLock()  { return readerLock; }
+    public Lock writeLock() { return writerLockView; }
+
+    /**
+     * Returns the byte offset of the current thread's reader indicator.
+     */
+    private long indicatorOffset() {
+        long id = Thread.currentThread().getId();
+        int h = (int)(id ^ (id >>> 32)) * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & stripeMask;
+        return ((long)(i + 1) << (STRIDE_SHIFT + ASHIFT)) + ABASE;
+    }
+
+    /**
+     * Returns an estimate of the number of read locks held.
+     */
+    private long readerCount() {
+        long[] rs = readers;
+        long sum = 0L;
+        for (int i = 0; i <= stripeMask; ++i)
+            sum += U.getLongVolatile(rs, ((long)(i + 1) <<
+                                          (STRIDE_SHIFT + ASHIFT)) + ABASE);
+        return sum;
+    }
+
+    private void wakeDrainer() {
+        Thread w = drainer;
+        if (w != null)
+            LockSupport.unpark(w);
+    }
+
+    // Read lock
+
+    /**
+     * Tries to acquire the read lock without blocking; fails if a
+     * writer holds or (in writer-preferring mode) awaits the lock.
+     */
+    private boolean tryFastRead(long offset) {
+        U.getAndAddLong(readers, offset, 1L);
+        if (writerIntent == 0)
+            return true;
+        U.getAndAddLong(readers, offset, -1L);
+        wakeDrainer();
+        return false;
+    }
+
+    /**
+     * Acquires the read lock through writerLock.
+     *
+     * @param nanos the maximum time to wait if timed
+     * @return true if acquired, false if timed out
+     */
+    private boolean acquireReadSlow(long offset, boolean interruptible,
+                                    boolean timed, long nanos)
+        throws InterruptedException {
+        ReentrantLock lock = writerLock;
+        if (lock.isHeldByCurrentThread()) {   // downgrading
+            U.getAndAddLong(readers, offset, 1L);
+            return true;
+        }
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        if (timed) {
+            if (!lock.tryLock(nanos, TimeUnit.NANOSECONDS))
+                return false;
+        }
+        else if (interruptible)
+            lock.lockInterruptibly();
+        else
+            lock.lock();
+        try {
+            while (writerIntent != 0) {
+                if (timed) {
+                    if ((nanos = deadline - System.nanoTime()) <= 0L)
+                        return false;
+                    readersMayProceed.awaitNanos(nanos);
+                }
+                else if (interruptible)
+                    readersMayProceed.await();
+                else
+                    readersMayProceed.awaitUninterruptibly();
+            }
+            U.getAndAddLong(readers, offset, 1L);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseRead() {
+        long offset = indicatorOffset();
+        if (U.getAndAddLong(readers, offset, -1L) <= 0L) {
+            U.getAndAddLong(readers, offset, 1L);
+            throw new IllegalMonitorStateException();
+        }
+        if (writerIntent != 0)
+            wakeDrainer();
+    }
+
+    // Write lock
+
+    /**
+     * Acquires the write lock, announcing intent and draining readers.
+     *
+     * @param nanos the maximum time to wait if timed
+     * @return true if acquired, false if timed out
+     */
+    private boolean acquireWrite(boolean interruptible, boolean timed,
+                                 long nanos)
+        throws InterruptedException {
+        ReentrantLock lock = writerLock;
+        if (lock.isHeldByCurrentThread()) {
+            lock.lock();
+            return true;
+        }
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        boolean announced = false, locked = false, acquired = false;
+        try {
+            if (!fair) {
+                U.getAndAddInt(this, WRITERINTENT, 1);
+                announced = true;
+            }
+            if (timed)
+                locked = interruptible ?
+                    lock.tryLock(nanos, TimeUnit.NANOSECONDS) :
+                    lock.tryLock();
+            else if (interruptible) {
+                lock.lockInterruptibly();
+                locked = true;
+            }
+            else {
+                lock.lock();
+                locked = true;
+            }
+            if (!locked)
+                return false;
+            if (!announced) {
+                U.getAndAddInt(this, WRITERINTENT, 1);
+                announced = true;
+            }
+            Thread current = Thread.currentThread();
+            drainer = current;
+            if (acquired = awaitDrain(interruptible, timed, deadline)) {
+                drainer = null;
+                writeOwner = current;
+            }
+            return acquired;
+        } finally {
+            if (!acquired) {
+                if (announced &&
+                    U.getAndAddInt(this, WRITERINTENT, -1) == 1) {
+                    if (!locked) {
+                        lock.lock();
+                        locked = true;
+                    }
+                    readersMayProceed.signalAll();
+                }
+                if (locked) {
+                    drainer = null;
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for all reader indicators to drop to zero, spinning
+     * briefly before parking.
+     *
+     * @return true if drained, false if timed out
+     */
+    private boolean awaitDrain(boolean interruptible, boolean timed,
+                               long deadline)
+        throws InterruptedException {
+        boolean interrupted = false;
+        try {
+            for (int spins = SPINS;;) {
+                if (readerCount() == 0L)
+                    return true;
+                if (spins > 0) {
+                    --spins;
+                    continue;
+                }
+                if (Thread.interrupted()) {
+                    if (interruptible)
+                        throw new InterruptedException();
+                    interrupted = true;
+                }
+                if (timed) {
+                    long nanos = deadline - System.nanoTime();
+                    if (nanos <= 0L)
+                        return false;
+                    LockSupport.parkNanos(this, nanos);
+                }
+                else
+                    LockSupport.park(this);
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private void releaseWrite() {
+        ReentrantLock lock = writerLock;
+        if (!lock.isHeldByCurrentThread())
+            throw new IllegalMonitorStateException();
+        if (lock.getHoldCount() == 1) {
+            writeOwner = null;
+            if (U.getAndAddInt(this, WRITERINTENT, -1) == 1)
+                readersMayProceed.signalAll();
+        }
+        lock.unlock();
+    }
+
+    // Instrumentation and status
+
+    /**
+     * Returns {@code true} if this lock is in fair mode.
+     *
+     * @return {@code true} if this lock is in fair mode
+     */
+    public final boolean isFair() {
+        return fair;
+    }
+
+    /**
+     * Queries if the write lock is held by any thread. This method is
+     * designed for use in monitoring system state, not for
+     * synchronization control.
+     *
+     * @return {@code true} if any thread holds the write lock and
+     *         {@code false} otherwise
+     */
+    public boolean isWriteLocked() {
+        return writeOwner != null;
+    }
+
+    /**
+     * Queries if the write lock is held by the current thread.
+     *
+     * @return {@code true} if the current thread holds the write lock
+     *         and {@code false} otherwise
+     */
+    public boolean isWriteLockedByCurrentThread() {
+        return writerLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Returns an estimate of the number of read locks held for this
+     * lock. The value is a sum over all reader indicators, which may
+     * change while they are being read, so it is only a snapshot.
+     * This method is designed for use in monitoring system state, not
+     * for synchronization control.
+     *
+     * @return the estimated number of read locks held
+     */
+    public int getReadLockCount() {
+        long n = readerCount();
+        return (n <= 0L) ? 0 : (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Queries whether any threads are waiting to acquire the write
+     * lock, or the read lock through the slow path. This method is
+     * designed for use in monitoring system state.
+     *
+     * @return {@code true} if there may be other threads waiting to
+     *         acquire the lock
+     */
+    public final boolean hasQueuedThreads() {
+        return writerLock.hasQueuedThreads();
+    }
+
+    /**
+     * Returns a string identifying this lock, as well as its lock state.
+     * The state, in brackets, includes either the String {@code "Unlocked"}
+     * or the String {@code "Write locked by thread"} followed by the
+     * {@linkplain Thread#getName name} of the owning thread, and the
+     * String {@code "Read locks ="} followed by the estimated number of
+     * held read locks.
+     *
+     * @return a string identifying this lock, as well as its lock state
+     */
+    public String toString() {
+        Thread o = writeOwner;
+        return super.toString() + ((o == null) ?
+                                   "[Unlocked" :
+                                   "[Write locked by thread " + o.getName()) +
+            ", Read locks = " + getReadLockCount() + "]";
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#readLock}.
+     */
+    final class ReadLock implements Lock {
+        /**
+         * Acquires the read lock, waiting if a writer holds it or, in
+         * writer-preferring mode, is waiting for it.
+         */
+        public void lock() {
+            long offset = indicatorOffset();
+            if (!tryFastRead(offset)) {
+                try {
+                    acquireReadSlow(offset, false, false, 0L);
+                } catch (InterruptedException cannotHappen) {
+                    throw new Error(cannotHappen);
+                }
+            }
+        }
+
+        public void lockInterruptibly() throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            long offset = indicatorOffset();
+            if (!tryFastRead(offset))
+                acquireReadSlow(offset, true, false, 0L);
+        }
+
+        /**
+         * Acquires the read lock only if no writer holds or awaits it
+         * at the time of invocation.
+         *
+         * @return {@code true} if the read lock was acquired
+         */
+        public boolean tryLock() {
+            return tryFastRead(indicatorOffset());
+        }
+
+        public boolean tryLock(long timeout, TimeUnit unit)
+            throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            long offset = indicatorOffset();
+            return tryFastRead(offset) ||
+                acquireReadSlow(offset, true, true, unit.toNanos(timeout));
+        }
+
+        /**
+         * Releases the read lock, which must have been acquired by the
+         * current thread.
+         *
+         * @throws IllegalMonitorStateException if the current thread's
+         *         reader indicator shows no read lock held
+         */
+        public void unlock() {
+            releaseRead();
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because
+         * {@code ReadLocks} do not support conditions.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        public String toString() {
+            return super.toString() +
+                "[Read locks = " + getReadLockCount() + "]";
+        }
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#writeLock}.
+     */
+    final class WriteLock implements Lock {
+        /**
+         * Acquires the write lock, waiting for other writers and for
+         * all current readers to release.
+         */
+        public void lock() {
+            try {
+                acquireWrite(false, false, 0L);
+            } catch (InterruptedException cannotHappen) {
+                throw new Error(cannotHappen);
+            }
+        }
+
+        public void lockInterruptibly() throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            acquireWrite(true, false, 0L);
+        }
+
+        /**
+         * Acquires the write lock only if it is not held by another
+         * thread and no read locks are held at the time of invocation.
+         *
+         * @return {@code true} if the write lock was acquired
+         */
+        public boolean tryLock() {
+            try {
+                return acquireWrite(false, true, 0L);
+            } catch (InterruptedException cannotHappen) {
+                throw new Error(cannotHappen);
+            }
+        }
+
+        public boolean tryLock(long timeout, TimeUnit unit)
+            throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            return acquireWrite(true, true, unit.toNanos(timeout));
+        }
+
+        /**
+         * Releases the write lock.
+         *
+         * @throws IllegalMonitorStateException if the current thread
+         *         does not hold this lock
+         */
+        public void unlock() {
+            releaseWrite();
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because this
+         * lock's readers do not participate in {@link ReentrantLock}
+         * condition queues.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        public String toString() {
+            return super.toString() + (isWriteLockedByCurrentThread() ?
+                                       "[Locked by current thread]" :
+                                       "[Unlocked]");
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long WRITERINTENT;
+    private static final long ABASE;
+    private static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = StripedReadWriteLock.class;
+            WRITERINTENT = U.objectFieldOffset
+                (k.getDeclaredField("writerIntent"));
+            ABASE = U.arrayBaseOffset(long[].class);
+            int scale = U.arrayIndexScale(long[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
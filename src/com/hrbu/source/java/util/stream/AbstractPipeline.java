@@ -26,6 +26,9 @@ package java.util.stream;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -148,6 +151,13 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     private boolean parallel;
 
+    /**
+     * The pool in which parallel evaluation runs, or {@code null} for the
+     * pool of the calling worker thread or else the common pool; only valid
+     * for the source stage.
+     */
+    private ForkJoinPool parallelPool;
+
     /**
      * Constructor for the head of a stream pipeline.
      *
@@ -230,10 +240,31 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         linkedOrConsumed = true;
 
         return isParallel()
-               ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
+               ? inParallelPool(() -> terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags())))
                : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
     }
 
+    /**
+     * Performs a parallel evaluation in the pool bound by
+     * {@link #parallel(ForkJoinPool)}.  If no pool is bound, or the current
+     * thread is already a worker of that pool, the evaluation is performed
+     * directly, so that its tasks are forked to the current pool (or the
+     * common pool) as before.
+     *
+     * @param <R> the type of result
+     * @param evaluation the evaluation to perform
+     * @return the result of the evaluation
+     */
+    private <R> R inParallelPool(Supplier<R> evaluation) {
+        ForkJoinPool pool = sourceStage.parallelPool;
+        Thread t;
+        if (pool == null
+            || ((t = Thread.currentThread()) instanceof ForkJoinWorkerThread
+                && ((ForkJoinWorkerThread) t).getPool() == pool))
+            return evaluation.get();
+        return pool.invoke(ForkJoinTask.adapt(evaluation::get));
+    }
+
     /**
      * Collect the elements output from the pipeline stage.
      *
@@ -254,7 +285,10 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             // upstream slice and upstream operations will not be included
             // in this slice
             depth = 0;
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            return inParallelPool(() -> opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator));
+        }
+        else if (isParallel()) {
+            return inParallelPool(() -> evaluate(sourceSpliterator(0), true, generator));
         }
         else {
             return evaluate(sourceSpliterator(0), true, generator);
@@ -301,6 +335,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     @Override
     @SuppressWarnings("unchecked")
     public final S sequential() {
+        sourceStage.parallelPool = null;
         sourceStage.parallel = false;
         return (S) this;
     }
@@ -308,6 +343,16 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     @Override
     @SuppressWarnings("unchecked")
     public final S parallel() {
+        sourceStage.parallelPool = null;
+        sourceStage.parallel = true;
+        return (S) this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S parallel(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        sourceStage.parallelPool = pool;
         sourceStage.parallel = true;
         return (S) this;
     }
@@ -29,8 +29,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
@@ -116,6 +118,40 @@ public interface BaseStream<T, S extends BaseStream<T, S>>
      */
     S parallel();
 
+    /**
+     * Returns an equivalent stream that is parallel, and whose terminal
+     * operation runs its parallel tasks in the given {@link ForkJoinPool}
+     * rather than in the {@link ForkJoinPool#commonPool() common pool}.
+     * The thread invoking the terminal operation waits for the pool to
+     * complete it, unless that thread is itself a worker of the pool.
+     * This allows workloads to be partitioned across pools so that a
+     * long-running pipeline does not starve others sharing the common pool.
+     * May return itself, either because the stream was already parallel, or
+     * because the underlying stream state was modified to be parallel.
+     *
+     * <p>The binding applies to terminal operations.  Traversal through the
+     * {@link #iterator()} or {@link #spliterator()} of the stream escapes it.
+     * As with the execution mode, the most recent call to this method,
+     * {@link #parallel()} or {@link #sequential()} applies to the whole
+     * pipeline, so a later call to either of the latter drops the pool.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation checks that {@code pool} is non-null and
+     * returns {@link #parallel()}; stream implementations that can evaluate
+     * in a given pool override it.
+     *
+     * @param pool the pool in which to evaluate the stream
+     * @return a parallel stream
+     * @throws NullPointerException if {@code pool} is null
+     */
+    default S parallel(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        return parallel();
+    }
+
     /**
      * Returns an equivalent stream that is
      * <a href="package-summary.html#Ordering">unordered</a>.  May return